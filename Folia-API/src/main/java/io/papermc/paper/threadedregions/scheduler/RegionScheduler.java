@@ -41,6 +41,32 @@ public interface RegionScheduler {
         this.execute(plugin, location.getWorld(), location.getBlockX() >> 4, location.getBlockZ() >> 4, run);
     }
 
+    /**
+     * Schedules a batch of tasks, each to be executed on the region which owns its location. This is equivalent to
+     * invoking {@link #execute(Plugin, World, int, int, Runnable)} for each task, but it is considerably cheaper
+     * when scheduling many tasks at once.
+     * <p>
+     * Tasks owned by the same region are executed in the order they appear in the provided arrays. Scheduling is
+     * cheapest when tasks owned by the same region are next to each other in the arrays.
+     * </p>
+     *
+     * @param plugin The plugin that owns the tasks
+     * @param world  The world of the regions that own the tasks
+     * @param chunkX The chunk X coordinate of the region that owns each task
+     * @param chunkZ The chunk Z coordinate of the region that owns each task
+     * @param run    The tasks to execute
+     * @throws IllegalArgumentException If the arrays are not all of the same length
+     */
+    default void executeAll(@NotNull Plugin plugin, @NotNull World world, int @NotNull [] chunkX, int @NotNull [] chunkZ,
+                            @NotNull Runnable @NotNull [] run) {
+        if (chunkX.length != run.length || chunkZ.length != run.length) {
+            throw new IllegalArgumentException("Coordinate and task arrays must be of the same length");
+        }
+        for (int i = 0; i < run.length; ++i) {
+            this.execute(plugin, world, chunkX[i], chunkZ[i], run[i]);
+        }
+    }
+
     /**
      * Schedules a task to be executed on the region which owns the location on the next tick.
      *
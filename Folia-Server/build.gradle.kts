@@ -18,6 +18,8 @@ dependencies {
     implementation("io.papermc.paper:paper-mojangapi:${project.version}") {
         exclude("io.papermc.paper", "paper-api")
     }
+    implementation("org.lz4:lz4-java:1.8.0") // lz4 region compression
+    implementation("com.github.luben:zstd-jni:1.5.5-10") // zstd region compression
     // Folia end
     // Paper start
     implementation("org.jline:jline-terminal-jansi:3.21.0")
@@ -50,6 +52,10 @@ dependencies {
         isTransitive = false
     }
     // Paper end
+    // Folia start - io_uring transport
+    implementation("io.netty.incubator:netty-incubator-transport-native-io_uring:0.0.23.Final:linux-x86_64")
+    implementation("io.netty.incubator:netty-incubator-transport-native-io_uring:0.0.23.Final:linux-aarch_64")
+    // Folia end - io_uring transport
 
     runtimeOnly("org.apache.maven:maven-resolver-provider:3.8.5")
     runtimeOnly("org.apache.maven.resolver:maven-resolver-connector-basic:1.7.3")
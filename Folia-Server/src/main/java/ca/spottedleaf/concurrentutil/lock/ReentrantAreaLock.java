@@ -5,6 +5,8 @@ import it.unimi.dsi.fastutil.HashCommon;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.LockSupport;
 
 public final class ReentrantAreaLock {
@@ -14,10 +16,28 @@ public final class ReentrantAreaLock {
     // aggressive load factor to reduce contention
     private final ConcurrentHashMap<Coordinate, Node> nodes = new ConcurrentHashMap<>(128, 0.2f);
 
+    // null when contention profiling is disabled
+    private volatile ContentionProfiler profiler;
+
     public ReentrantAreaLock(final int coordinateShift) {
         this.coordinateShift = coordinateShift;
     }
 
+    /**
+     * Enables or disables recording of the time threads spend waiting to acquire each section. Enabling
+     * discards any previously recorded data. Uncontended acquisitions are never recorded.
+     */
+    public void setContentionProfiling(final boolean enabled) {
+        this.profiler = enabled ? new ContentionProfiler() : null;
+    }
+
+    /**
+     * Returns the contention profiler, or {@code null} if contention profiling is disabled.
+     */
+    public ContentionProfiler getContentionProfiler() {
+        return this.profiler;
+    }
+
     public boolean isHeldByCurrentThread(final int x, final int z) {
         final Thread currThread = Thread.currentThread();
         final int shift = this.coordinateShift;
@@ -143,6 +163,7 @@ public final class ReentrantAreaLock {
         final Node ret = new Node(this, areaAffected, currThread);
         final Coordinate coordinate = new Coordinate(Coordinate.key(sectionX, sectionZ));
 
+        long waitStart = 0L;
         for (long failures = 0L;;) {
             final Node park;
 
@@ -152,6 +173,9 @@ public final class ReentrantAreaLock {
 
                 if (prev == null) {
                     areaAffected.add(coordinate);
+                    if (failures != 0L) {
+                        this.recordContention(coordinate.key, waitStart);
+                    }
                     return ret;
                 } else if (prev.thread != currThread) {
                     park = prev;
@@ -161,6 +185,9 @@ public final class ReentrantAreaLock {
                 }
             }
 
+            if (failures == 0L) {
+                waitStart = System.nanoTime();
+            }
             ++failures;
 
             if (failures > 128L && park.add(currThread)) {
@@ -208,6 +235,8 @@ public final class ReentrantAreaLock {
 
         final Node ret = new Node(this, areaAffected, currThread);
 
+        long waitStart = 0L;
+        long firstBlockedOn = 0L;
         for (long failures = 0L;;) {
             Node park = null;
             boolean addedToArea = false;
@@ -231,6 +260,9 @@ public final class ReentrantAreaLock {
                     if (prev.thread != currThread) {
                         park = prev;
                         alreadyOwned = true;
+                        if (failures == 0L) {
+                            firstBlockedOn = coordinate.key;
+                        }
                         break;
                     }
                 }
@@ -240,6 +272,9 @@ public final class ReentrantAreaLock {
                 if (alreadyOwned && !allOwned) {
                     throw new IllegalStateException("Improper lock usage: Should never acquire intersecting areas");
                 }
+                if (failures != 0L) {
+                    this.recordContention(firstBlockedOn, waitStart);
+                }
                 return ret;
             }
 
@@ -262,6 +297,9 @@ public final class ReentrantAreaLock {
                 }
             }
 
+            if (failures == 0L) {
+                waitStart = System.nanoTime();
+            }
             ++failures;
 
             if (failures > 128L && park.add(currThread)) {
@@ -290,6 +328,13 @@ public final class ReentrantAreaLock {
         }
     }
 
+    private void recordContention(final long sectionKey, final long waitStart) {
+        final ContentionProfiler profiler = this.profiler;
+        if (profiler != null) {
+            profiler.record(sectionKey, System.nanoTime() - waitStart);
+        }
+    }
+
     public void unlock(final Node node) {
         if (node.lock != this) {
             throw new IllegalStateException("Unlock target lock mismatch");
@@ -338,6 +383,67 @@ public final class ReentrantAreaLock {
         }
     }
 
+    /**
+     * Records, per section, how many lock acquisitions had to wait and for how long. Waits on area locks are
+     * attributed to the first section the thread found to be held by another thread.
+     */
+    public static final class ContentionProfiler {
+
+        private final ConcurrentHashMap<Coordinate, SectionContention> sections = new ConcurrentHashMap<>();
+        private final long start = System.nanoTime();
+
+        private void record(final long sectionKey, final long waitTime) {
+            SectionContention contention = this.sections.get(new Coordinate(sectionKey));
+            if (contention == null) {
+                contention = this.sections.computeIfAbsent(new Coordinate(sectionKey), (final Coordinate keyInMap) -> {
+                    return new SectionContention();
+                });
+            }
+            contention.waits.increment();
+            contention.totalWaitTime.add(waitTime);
+            contention.maxWaitTime.accumulateAndGet(waitTime, Math::max);
+        }
+
+        /**
+         * Returns the time, in ns, at which this profiler started recording.
+         */
+        public long getStartTime() {
+            return this.start;
+        }
+
+        /**
+         * Returns the recorded sections ordered by descending total wait time, limited to the specified count.
+         */
+        public List<SectionReport> getReport(final int maxSections) {
+            final List<SectionReport> ret = new ArrayList<>(this.sections.size());
+            for (final java.util.Map.Entry<Coordinate, SectionContention> entry : this.sections.entrySet()) {
+                final long key = entry.getKey().key;
+                final SectionContention contention = entry.getValue();
+                ret.add(new SectionReport(
+                    Coordinate.x(key), Coordinate.z(key), contention.waits.sum(),
+                    contention.totalWaitTime.sum(), contention.maxWaitTime.get()
+                ));
+            }
+
+            ret.sort((final SectionReport r1, final SectionReport r2) -> {
+                return Long.compare(r2.totalWaitTime(), r1.totalWaitTime());
+            });
+
+            return ret.size() <= maxSections ? ret : new ArrayList<>(ret.subList(0, maxSections));
+        }
+
+        private static final class SectionContention {
+            private final LongAdder waits = new LongAdder();
+            private final LongAdder totalWaitTime = new LongAdder();
+            private final AtomicLong maxWaitTime = new AtomicLong();
+        }
+
+        /**
+         * Wait times are in ns. The section coordinates are the lock coordinates shifted by the lock's coordinate shift.
+         */
+        public static record SectionReport(int sectionX, int sectionZ, long waits, long totalWaitTime, long maxWaitTime) {}
+    }
+
     private static final class Coordinate implements Comparable<Coordinate> {
 
         public final long key;
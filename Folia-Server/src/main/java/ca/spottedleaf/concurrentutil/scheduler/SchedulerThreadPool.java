@@ -31,7 +31,10 @@ public class SchedulerThreadPool {
         return Long.compare(t1.id, t2.id);
     };
 
+    private final SchedulingMode mode;
+    private final AffinityPolicy affinity;
     private final TickThreadRunner[] runners;
+    private final StealingTickThreadRunner[] stealingRunners;
     private final Thread[] threads;
     private final LinkedSortedSet<SchedulableTick> awaiting = new LinkedSortedSet<>(TICK_COMPARATOR_BY_TIME);
     private final PriorityQueue<SchedulableTick> queued = new PriorityQueue<>(TICK_COMPARATOR_BY_TIME);
@@ -42,21 +45,86 @@ public class SchedulerThreadPool {
     private volatile boolean halted;
 
     public SchedulerThreadPool(final int threads, final ThreadFactory threadFactory) {
+        this(threads, threadFactory, SchedulingMode.GLOBAL_QUEUE);
+    }
+
+    public SchedulerThreadPool(final int threads, final ThreadFactory threadFactory, final SchedulingMode mode) {
+        this(threads, threadFactory, mode, AffinityPolicy.NONE);
+    }
+
+    public SchedulerThreadPool(final int threads, final ThreadFactory threadFactory, final SchedulingMode mode,
+                               final AffinityPolicy affinity) {
+        if (affinity.runnerGroups() != null && affinity.runnerGroups().length != threads) {
+            throw new IllegalArgumentException("Runner groups must be specified for each thread");
+        }
+        this.mode = mode;
+        this.affinity = affinity;
         final BitSet idleThreads = new BitSet(threads);
         for (int i = 0; i < threads; ++i) {
             idleThreads.set(i);
         }
         this.idleThreads = idleThreads;
 
-        final TickThreadRunner[] runners = new TickThreadRunner[threads];
         final Thread[] t = new Thread[threads];
-        for (int i = 0; i < threads; ++i) {
-            runners[i] = new TickThreadRunner(i, this);
-            t[i] = threadFactory.newThread(runners[i]);
+        if (mode == SchedulingMode.WORK_STEALING) {
+            final StealingTickThreadRunner[] runners = new StealingTickThreadRunner[threads];
+            for (int i = 0; i < threads; ++i) {
+                runners[i] = new StealingTickThreadRunner(i, this);
+                t[i] = threadFactory.newThread(runners[i]);
+            }
+            this.runners = null;
+            this.stealingRunners = runners;
+        } else {
+            final TickThreadRunner[] runners = new TickThreadRunner[threads];
+            for (int i = 0; i < threads; ++i) {
+                runners[i] = new TickThreadRunner(i, this);
+                t[i] = threadFactory.newThread(runners[i]);
+            }
+            this.runners = runners;
+            this.stealingRunners = null;
         }
 
         this.threads = t;
-        this.runners = runners;
+    }
+
+    /**
+     * Returns the scheduling mode this pool was created with.
+     */
+    public SchedulingMode getMode() {
+        return this.mode;
+    }
+
+    /**
+     * Returns the affinity policy this pool was created with.
+     */
+    public AffinityPolicy getAffinity() {
+        return this.affinity;
+    }
+
+    /**
+     * Returns a snapshot of the scheduling statistics of this pool. For {@link SchedulingMode#GLOBAL_QUEUE}, only
+     * the executed tick count is tracked.
+     */
+    public SchedulerStats getStats() {
+        long ticks = 0L;
+        long steals = 0L;
+        long stealAttempts = 0L;
+        long migrations = 0L;
+        if (this.stealingRunners != null) {
+            for (final StealingTickThreadRunner runner : this.stealingRunners) {
+                ticks += runner.executedTicks.get();
+                steals += runner.stolenTicks.get();
+                stealAttempts += runner.stealAttempts.get();
+                migrations += runner.migrations.get();
+            }
+        } else {
+            for (final TickThreadRunner runner : this.runners) {
+                ticks += runner.executedTicks.get();
+                migrations += runner.migrations.get();
+            }
+        }
+
+        return new SchedulerStats(this.mode, ticks, steals, stealAttempts, migrations);
     }
 
     /**
@@ -177,6 +245,16 @@ public class SchedulerThreadPool {
     }
 
     public void schedule(final SchedulableTick task) {
+        if (this.mode == SchedulingMode.WORK_STEALING) {
+            if (!task.tryMarkScheduled()) {
+                throw new IllegalStateException("Task " + task + " is already scheduled or cancelled");
+            }
+
+            task.schedulerOwnedBy = this;
+
+            this.selectRunnerForFresh().insert(task);
+            return;
+        }
         synchronized (this.scheduleLock) {
             if (!task.tryMarkScheduled()) {
                 throw new IllegalStateException("Task " + task + " is already scheduled or cancelled");
@@ -189,6 +267,9 @@ public class SchedulerThreadPool {
     }
 
     public boolean updateTickStartToMax(final SchedulableTick task, final long newStart) {
+        if (this.mode == SchedulingMode.WORK_STEALING) {
+            return this.updateTickStartToMaxStealing(task, newStart);
+        }
         synchronized (this.scheduleLock) {
             if (TimeUtil.compareTimes(newStart, task.getScheduledStart()) <= 0) {
                 return false;
@@ -231,6 +312,10 @@ public class SchedulerThreadPool {
             return null;
         }
 
+        if (this.mode == SchedulingMode.WORK_STEALING) {
+            return this.tryRetireStealing(task);
+        }
+
         synchronized (this.scheduleLock) {
             if (this.queued.remove(task)) {
                 // cancelled, and no runner owns it - so return
@@ -263,6 +348,216 @@ public class SchedulerThreadPool {
         // Not implemented
     }
 
+    /**
+     * Selects the runner to place a newly scheduled task on: the first idle runner, or otherwise the runner
+     * with the smallest local queue.
+     */
+    private StealingTickThreadRunner selectRunnerForFresh() {
+        final StealingTickThreadRunner[] runners = this.stealingRunners;
+
+        StealingTickThreadRunner ret = null;
+        int minSize = Integer.MAX_VALUE;
+        for (final StealingTickThreadRunner runner : runners) {
+            final int size = runner.queueSize;
+            if (size == 0 && !runner.executing) {
+                return runner;
+            }
+            if (size < minSize) {
+                minSize = size;
+                ret = runner;
+            }
+        }
+
+        return ret;
+    }
+
+    private boolean updateTickStartToMaxStealing(final SchedulableTick task, final long newStart) {
+        for (;;) {
+            final StealingTickThreadRunner runner = task.queuedOn;
+            if (runner == null) {
+                // not scheduled, or currently executing
+                return false;
+            }
+            synchronized (runner.queueLock) {
+                if (task.queuedOn != runner) {
+                    // stolen or taken for execution while we were acquiring the lock
+                    continue;
+                }
+                if (TimeUtil.compareTimes(newStart, task.getScheduledStart()) <= 0) {
+                    return false;
+                }
+                runner.queue.remove(task);
+                task.setScheduledStart(newStart);
+                runner.queue.add(task);
+                runner.updateHead();
+            }
+            // the runner may be parked for the old deadline, it needs to re-evaluate its head
+            LockSupport.unpark(runner.getRunnerThread());
+            return true;
+        }
+    }
+
+    private Boolean tryRetireStealing(final SchedulableTick task) {
+        for (;;) {
+            final StealingTickThreadRunner runner = task.queuedOn;
+            if (runner == null) {
+                // the runner re-checks the schedule state before executing or re-queueing the task
+                return task.tryMarkCancelled() ? Boolean.FALSE : null;
+            }
+            synchronized (runner.queueLock) {
+                if (task.queuedOn != runner) {
+                    continue;
+                }
+                runner.queue.remove(task);
+                task.queuedOn = null;
+                runner.updateHead();
+                return Boolean.TRUE;
+            }
+        }
+    }
+
+    /**
+     * Returns the amount of time a tick queued on the victim must be overdue before the thief may steal it.
+     */
+    private long getStealSlack(final StealingTickThreadRunner thief, final StealingTickThreadRunner victim) {
+        final int[] groups = this.affinity.runnerGroups();
+        if (groups == null || groups[thief.id] == groups[victim.id]) {
+            return this.affinity.stealSlack();
+        }
+        return this.affinity.remoteStealSlack();
+    }
+
+    /**
+     * Attempts to steal the earliest due tick from a peer of the specified runner. Only peers which are currently
+     * executing a tick are stolen from, as an awaiting peer will execute its due tick itself. To keep regions on the
+     * thread which last ticked them, a tick is only considered due for stealing once it is overdue by the
+     * slack of the {@link AffinityPolicy}.
+     * <p>
+     * The earliest deadline of any executing peer's queue is written to {@link StealingTickThreadRunner#peerDeadline},
+     * so that the thief can park until a steal may become possible.
+     * </p>
+     * @return The stolen tick, already marked as executing by the thief, or {@code null} if nothing could be stolen.
+     */
+    private SchedulableTick trySteal(final StealingTickThreadRunner thief) {
+        final StealingTickThreadRunner[] runners = this.stealingRunners;
+        final long now = System.nanoTime();
+
+        thief.peerDeadline = DEADLINE_NOT_SET;
+        thief.stealAttempts.getAndIncrement();
+
+        for (;;) {
+            StealingTickThreadRunner victim = null;
+            long victimDeadline = DEADLINE_NOT_SET;
+            long nextPeerDeadline = DEADLINE_NOT_SET;
+
+            for (final StealingTickThreadRunner runner : runners) {
+                if (runner == thief || !runner.executing || runner.queueSize == 0) {
+                    continue;
+                }
+                final long deadline = runner.headDeadline + this.getStealSlack(thief, runner);
+                if (deadline - now <= 0L) {
+                    if (victim == null || TimeUtil.compareTimes(deadline, victimDeadline) < 0) {
+                        victim = runner;
+                        victimDeadline = deadline;
+                    }
+                } else if (nextPeerDeadline == DEADLINE_NOT_SET || TimeUtil.compareTimes(deadline, nextPeerDeadline) < 0) {
+                    nextPeerDeadline = deadline;
+                }
+            }
+
+            if (victim == null) {
+                thief.peerDeadline = nextPeerDeadline;
+                return null;
+            }
+
+            final long slack = this.getStealSlack(thief, victim);
+            final SchedulableTick head;
+            synchronized (victim.queueLock) {
+                head = victim.queue.peek();
+                if (head == null || !victim.executing || (head.getScheduledStart() + slack) - now > 0L) {
+                    // victim state changed, re-scan
+                    continue;
+                }
+                victim.queue.poll();
+                head.queuedOn = null;
+                victim.updateHead();
+            }
+
+            thief.stolenTicks.getAndIncrement();
+            return head;
+        }
+    }
+
+    private boolean hasStealableWork(final StealingTickThreadRunner thief) {
+        final long now = System.nanoTime();
+        for (final StealingTickThreadRunner runner : this.stealingRunners) {
+            if (runner != thief && runner.executing && runner.queueSize != 0
+                && (runner.headDeadline + this.getStealSlack(thief, runner)) - now <= 0L) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Unparks a runner which is parked without any due work so that it may attempt to steal from
+     * the specified runner.
+     */
+    private void notifyThieves(final StealingTickThreadRunner from) {
+        for (final StealingTickThreadRunner runner : this.stealingRunners) {
+            if (runner != from && runner.parked) {
+                LockSupport.unpark(runner.getRunnerThread());
+                return;
+            }
+        }
+    }
+
+    /**
+     * The strategy used to distribute scheduled ticks to the scheduler threads.
+     */
+    public static enum SchedulingMode {
+        /**
+         * All ticks are kept in a single deadline-ordered queue guarded by one lock. Each idle thread is handed
+         * the next due tick.
+         */
+        GLOBAL_QUEUE,
+
+        /**
+         * Each thread owns a deadline-ordered local queue, and rescheduled ticks return to the queue of the thread
+         * that executed them. Threads without due work steal the earliest due tick from threads that are busy
+         * executing a tick.
+         */
+        WORK_STEALING;
+    }
+
+    /**
+     * Controls how strongly scheduled ticks are kept on the thread which last executed them in
+     * {@link SchedulingMode#WORK_STEALING} mode, so that the data of a region stays in that thread's CPU caches.
+     *
+     * @param stealSlack How long, in ns, a tick must be overdue before a thread of the same group may steal it.
+     * @param remoteStealSlack How long, in ns, a tick must be overdue before a thread of another group may steal it.
+     * @param runnerGroups The group of each thread, or {@code null} to place all threads in one group.
+     */
+    public static record AffinityPolicy(long stealSlack, long remoteStealSlack, int[] runnerGroups) {
+        public static final AffinityPolicy NONE = new AffinityPolicy(0L, 0L, null);
+
+        /**
+         * Splits the specified number of threads into at most the specified number of groups, such that consecutive
+         * threads share a group and each group receives an equal share of threads.
+         */
+        public static int[] evenGroups(final int threads, final int groups) {
+            final int count = Math.max(1, Math.min(threads, groups));
+            final int[] ret = new int[threads];
+            for (int i = 0; i < threads; ++i) {
+                ret[i] = (int)(((long)i * (long)count) / (long)threads);
+            }
+            return ret;
+        }
+    }
+
+    public static record SchedulerStats(SchedulingMode mode, long executedTicks, long stolenTicks, long stealAttempts,
+                                        long migrations) {}
+
     /**
      * Represents a tickable task that can be scheduled into a {@link SchedulerThreadPool}.
      * <p>
@@ -298,6 +593,13 @@ public class SchedulerThreadPool {
 
         private LinkedSortedSet.Link<SchedulableTick> awaitingLink;
 
+        // only used in work stealing mode, guarded by the queueLock of the runner
+        private volatile StealingTickThreadRunner queuedOn;
+
+        // only written by the thread executing this task
+        private int lastRunnerId = -1;
+        private volatile long migrations;
+
         private boolean tryMarkScheduled() {
             return this.scheduled.compareAndSet(SCHEDULE_STATE_NOT_SCHEDULED, SCHEDULE_STATE_SCHEDULED);
         }
@@ -314,6 +616,28 @@ public class SchedulerThreadPool {
             return this.scheduledStart;
         }
 
+        /**
+         * Returns the number of times this task has been executed by a different scheduler thread than the one
+         * which executed it last.
+         */
+        public final long getMigrationCount() {
+            return this.migrations;
+        }
+
+        /**
+         * Records that the specified runner is about to execute this task.
+         * @return {@code true} if the previous execution was performed by a different runner
+         */
+        private boolean markExecutingOn(final int runnerId) {
+            final int last = this.lastRunnerId;
+            this.lastRunnerId = runnerId;
+            if (last != -1 && last != runnerId) {
+                this.migrations = this.migrations + 1L;
+                return true;
+            }
+            return false;
+        }
+
         /**
          * If this task is scheduled, then this may only be invoked during {@link #runTick()},
          * and {@link #runTasks(BooleanSupplier)}
@@ -382,6 +706,9 @@ public class SchedulerThreadPool {
         public final int id;
         public final SchedulerThreadPool scheduler;
 
+        private final AtomicLong executedTicks = new AtomicLong();
+        private final AtomicLong migrations = new AtomicLong();
+
         private volatile Thread thread;
         private volatile TickThreadRunnerState state = new TickThreadRunnerState(null, STATE_IDLE);
         private static final VarHandle STATE_HANDLE = ConcurrentUtil.getVarHandle(TickThreadRunner.class, "state", TickThreadRunnerState.class);
@@ -521,8 +848,13 @@ public class SchedulerThreadPool {
                             continue main_state_loop;
                         }
 
+                        if (startStateTask.markExecutingOn(this.id)) {
+                            this.migrations.getAndIncrement();
+                        }
+
                         // TODO exception handling
                         final boolean reschedule = startStateTask.runTick();
+                        this.executedTicks.getAndIncrement();
 
                         this.returnTask(startStateTask, reschedule);
 
@@ -540,4 +872,168 @@ public class SchedulerThreadPool {
             }
         }
     }
+
+    private static final class StealingTickThreadRunner implements Runnable {
+
+        public final int id;
+        public final SchedulerThreadPool scheduler;
+
+        private final Object queueLock = new Object();
+        // guarded by queueLock
+        private final PriorityQueue<SchedulableTick> queue = new PriorityQueue<>(TICK_COMPARATOR_BY_TIME);
+
+        // published copies of the queue state, written under queueLock so that peers may scan without locking
+        private volatile int queueSize;
+        private volatile long headDeadline = DEADLINE_NOT_SET;
+
+        private volatile boolean executing;
+        private volatile boolean parked;
+
+        // only accessed by the runner thread
+        private long peerDeadline = DEADLINE_NOT_SET;
+
+        private final AtomicLong executedTicks = new AtomicLong();
+        private final AtomicLong stolenTicks = new AtomicLong();
+        private final AtomicLong stealAttempts = new AtomicLong();
+        private final AtomicLong migrations = new AtomicLong();
+
+        private volatile Thread thread;
+
+        public StealingTickThreadRunner(final int id, final SchedulerThreadPool scheduler) {
+            this.id = id;
+            this.scheduler = scheduler;
+        }
+
+        private Thread getRunnerThread() {
+            return this.thread;
+        }
+
+        // must hold queueLock
+        private void updateHead() {
+            final SchedulableTick head = this.queue.peek();
+            this.queueSize = this.queue.size();
+            this.headDeadline = head == null ? DEADLINE_NOT_SET : head.getScheduledStart();
+        }
+
+        private void insert(final SchedulableTick task) {
+            final boolean newHead;
+            synchronized (this.queueLock) {
+                if (task.queuedOn != null) {
+                    throw new IllegalStateException("Already queued on another runner");
+                }
+                task.queuedOn = this;
+                this.queue.add(task);
+                newHead = this.queue.peek() == task;
+                this.updateHead();
+            }
+
+            if (this.executing) {
+                // we cannot execute the task until our current tick finishes, so allow a peer to steal it
+                this.scheduler.notifyThieves(this);
+            } else if (newHead) {
+                LockSupport.unpark(this.getRunnerThread());
+            }
+        }
+
+        /**
+         * Polls the head of the local queue if it is due, marking this runner as executing. Otherwise, returns
+         * {@code null}, and the deadline of the head is available from {@link #headDeadline}.
+         */
+        private SchedulableTick pollDue(final long now) {
+            synchronized (this.queueLock) {
+                SchedulableTick head;
+                while ((head = this.queue.peek()) != null && !head.isScheduled()) {
+                    // cancelled while queued
+                    this.queue.poll();
+                    head.queuedOn = null;
+                }
+                if (head == null || head.getScheduledStart() - now > 0L) {
+                    this.updateHead();
+                    return null;
+                }
+                this.queue.poll();
+                head.queuedOn = null;
+                this.executing = true;
+                this.updateHead();
+                return head;
+            }
+        }
+
+        private void park(final long deadline) {
+            this.parked = true;
+            try {
+                // re-check after publishing parked, so that a peer which started executing after our steal
+                // attempt and did not see us parked cannot leave its due work stranded
+                if (this.scheduler.halted || this.scheduler.hasStealableWork(this)) {
+                    return;
+                }
+                if (deadline == DEADLINE_NOT_SET) {
+                    LockSupport.park(this);
+                } else {
+                    final long diff = deadline - System.nanoTime();
+                    if (diff > 0L) {
+                        LockSupport.parkNanos(this, diff);
+                    }
+                }
+            } finally {
+                this.parked = false;
+            }
+        }
+
+        @Override
+        public void run() {
+            this.thread = Thread.currentThread();
+
+            for (;;) {
+                if (this.scheduler.halted) {
+                    return;
+                }
+
+                SchedulableTick task = this.pollDue(System.nanoTime());
+                if (task == null) {
+                    task = this.scheduler.trySteal(this);
+                    if (task == null) {
+                        final long ownDeadline = this.headDeadline;
+                        final long peerDeadline = this.peerDeadline;
+                        final long deadline;
+                        if (ownDeadline == DEADLINE_NOT_SET) {
+                            deadline = peerDeadline;
+                        } else if (peerDeadline == DEADLINE_NOT_SET) {
+                            deadline = ownDeadline;
+                        } else {
+                            deadline = TimeUtil.getLeastTime(ownDeadline, peerDeadline);
+                        }
+                        this.park(deadline);
+                        continue;
+                    }
+                    this.executing = true;
+                }
+
+                if (!task.isScheduled()) {
+                    // cancelled after being taken
+                    this.executing = false;
+                    continue;
+                }
+
+                if (this.queueSize != 0) {
+                    // our queue has work which may become due while we tick
+                    this.scheduler.notifyThieves(this);
+                }
+
+                if (task.markExecutingOn(this.id)) {
+                    this.migrations.getAndIncrement();
+                }
+
+                // TODO exception handling
+                final boolean reschedule = task.runTick();
+                this.executedTicks.getAndIncrement();
+
+                this.executing = false;
+
+                if (reschedule && task.isScheduled()) {
+                    this.insert(task);
+                }
+            }
+        }
+    }
 }
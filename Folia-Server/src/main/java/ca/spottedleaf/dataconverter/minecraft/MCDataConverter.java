@@ -8,10 +8,12 @@ import ca.spottedleaf.dataconverter.types.nbt.NBTMapType;
 import com.google.gson.JsonObject;
 import it.unimi.dsi.fastutil.longs.LongArrayList;
 import net.minecraft.nbt.CompoundTag;
+import java.util.concurrent.ConcurrentHashMap;
 
 public final class MCDataConverter {
 
     private static final LongArrayList BREAKPOINTS = MCVersionRegistry.getBreakpoints();
+    private static final ConcurrentHashMap<Long, long[]> PLANS = new ConcurrentHashMap<>();
 
     public static <T> T copy(final T type) {
         if (type instanceof CompoundTag) {
@@ -42,6 +44,40 @@ public final class MCDataConverter {
     public static <T, R> R convert(final DataType<T, R> type, final T data, int fromVersion, final int toVersion) {
         Object ret = data;
 
+        final long[] plan = getConversionPlan(fromVersion, toVersion);
+        for (int i = 0, len = plan.length; i < len; i += 2) {
+            final Object converted = type.convert((T)ret, plan[i], plan[i + 1]);
+            if (converted != null) {
+                ret = converted;
+            }
+        }
+
+        return (R)ret;
+    }
+
+    // the plan only depends on the versions, as the walkers of a type may convert any other type
+    private static long[] getConversionPlan(final int fromVersion, final int toVersion) {
+        final long key = ((long)fromVersion << 32) | (toVersion & 0xFFFFFFFFL);
+        final long[] cached = PLANS.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        final long[] plan = createConversionPlan(fromVersion, toVersion);
+        // racing is fine, the plans are identical
+        PLANS.putIfAbsent(key, plan);
+        return plan;
+    }
+
+    /**
+     * Splits the conversion at the breakpoints, as before. A step that no dataconverter of any type falls into
+     * and that no structure hook applies to is a no-op except for walking the whole structure, so it is left out
+     * of the plan. Hooks (such as enforcing namespaced ids) run on every step, so steps they apply to are kept.
+     * Returns the pairs of (from, to) encoded versions to convert with, in order.
+     */
+    private static long[] createConversionPlan(final int fromVersion, final int toVersion) {
+        final LongArrayList ret = new LongArrayList();
+
         long currentVersion = DataConverter.encodeVersions(fromVersion < 99 ? 99 : fromVersion, Integer.MAX_VALUE);
         final long nextVersion = DataConverter.encodeVersions(toVersion, Integer.MAX_VALUE);
 
@@ -52,10 +88,7 @@ public final class MCDataConverter {
                 continue;
             }
 
-            final Object converted = type.convert((T)ret, currentVersion, Math.min(nextVersion, breakpoint - 1));
-            if (converted != null) {
-                ret = converted;
-            }
+            addStep(ret, currentVersion, Math.min(nextVersion, breakpoint - 1));
 
             currentVersion = Math.min(nextVersion, breakpoint - 1);
 
@@ -65,13 +98,17 @@ public final class MCDataConverter {
         }
 
         if (currentVersion != nextVersion) {
-            final Object converted = type.convert((T)ret, currentVersion, nextVersion);
-            if (converted != null) {
-                ret = converted;
-            }
+            addStep(ret, currentVersion, nextVersion);
         }
 
-        return (R)ret;
+        return ret.toLongArray();
+    }
+
+    private static void addStep(final LongArrayList plan, final long fromVersion, final long toVersion) {
+        if (fromVersion != toVersion && (MCVersionRegistry.hasDataConverters(fromVersion, toVersion) || MCVersionRegistry.hasDataHooks(toVersion))) {
+            plan.add(fromVersion);
+            plan.add(toVersion);
+        }
     }
 
     private MCDataConverter() {}
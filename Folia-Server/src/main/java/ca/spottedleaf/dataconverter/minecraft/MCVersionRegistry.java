@@ -25,6 +25,7 @@ public final class MCVersionRegistry {
     protected static final IntArrayList DATACONVERTER_VERSIONS_LIST;
     protected static final IntLinkedOpenHashSet DATACONVERTER_VERSIONS_MAJOR = new IntLinkedOpenHashSet();
     protected static final LongLinkedOpenHashSet DATACONVERTER_VERSIONS = new LongLinkedOpenHashSet();
+    protected static final long[] DATACONVERTER_VERSIONS_SORTED;
     protected static final Int2ObjectLinkedOpenHashMap<IntArrayList> SUBVERSIONS = new Int2ObjectLinkedOpenHashMap<>();
     protected static final LongArrayList BREAKPOINTS = new LongArrayList();
     static {
@@ -328,6 +329,9 @@ public final class MCVersionRegistry {
                 DATACONVERTER_VERSIONS.add(DataConverter.encodeVersions(version, step));
             }
         }
+
+        DATACONVERTER_VERSIONS_SORTED = DATACONVERTER_VERSIONS.toLongArray();
+        Arrays.sort(DATACONVERTER_VERSIONS_SORTED);
     }
 
     private static void registerSubVersion(final int version, final int step) {
@@ -352,6 +356,41 @@ public final class MCVersionRegistry {
         return DATACONVERTER_VERSIONS_MAJOR.contains(version);
     }
 
+    // lowest encoded version any structure hook is registered at, only written while the types are registered
+    private static long lowestHookVersion = Long.MAX_VALUE;
+
+    public static void registerHookVersion(final long encodedVersion) {
+        lowestHookVersion = Math.min(lowestHookVersion, encodedVersion);
+    }
+
+    // returns whether a structure hook of some type applies when converting to toVersion, hooks run on every
+    // conversion step, whether or not a dataconverter falls into it
+    public static boolean hasDataHooks(final long toVersion) {
+        return lowestHookVersion <= toVersion;
+    }
+
+    // returns whether any dataconverter has an encoded version in (fromVersion, toVersion]
+    public static boolean hasDataConverters(final long fromVersion, final long toVersion) {
+        if (fromVersion >= toVersion) {
+            return false;
+        }
+
+        final long[] versions = DATACONVERTER_VERSIONS_SORTED;
+        // find the first version > fromVersion
+        int low = 0;
+        int high = versions.length - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            if (versions[mid] <= fromVersion) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        return low < versions.length && versions[low] <= toVersion;
+    }
+
     public String getVersionName(final int version) {
         return VERSION_NAMES.get(version);
     }
@@ -43,6 +43,7 @@ public class MCDataType extends DataType<MapType<String>, MapType<String>> {
     }
 
     public void addStructureHook(final int minVersion, final int versionStep, final DataHook<MapType<String>, MapType<String>> hook) {
+        MCVersionRegistry.registerHookVersion(DataConverter.encodeVersions(minVersion, versionStep));
         this.structureHooks.computeIfAbsent(DataConverter.encodeVersions(minVersion, versionStep), (final long keyInMap) -> {
             return new ArrayList<>();
         }).add(hook);
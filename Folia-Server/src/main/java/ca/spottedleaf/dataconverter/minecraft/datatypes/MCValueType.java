@@ -24,6 +24,7 @@ public class MCValueType extends DataType<Object, Object> {
     }
 
     public void addStructureHook(final int minVersion, final int versionStep, final DataHook<Object, Object> hook) {
+        MCVersionRegistry.registerHookVersion(DataConverter.encodeVersions(minVersion, versionStep));
         this.structureHooks.computeIfAbsent(DataConverter.encodeVersions(minVersion, versionStep), (final long keyInMap) -> {
             return new ArrayList<>();
         }).add(hook);
@@ -52,6 +52,7 @@ public final class ChunkPacketBlockControllerAntiXray extends ChunkPacketBlockCo
     private final boolean[] obfuscateGlobal = new boolean[Block.BLOCK_STATE_REGISTRY.size()];
     private final LevelChunkSection[] emptyNearbyChunkSections = {EMPTY_SECTION, EMPTY_SECTION, EMPTY_SECTION, EMPTY_SECTION};
     private final int maxBlockHeightUpdatePosition;
+    private final ObfuscationCache obfuscationCache; // Folia - anti-xray obfuscation cache
 
     public ChunkPacketBlockControllerAntiXray(Level level, Executor executor) {
         this.executor = executor;
@@ -137,8 +138,41 @@ public final class ChunkPacketBlockControllerAntiXray extends ChunkPacketBlockCo
         }
 
         maxBlockHeightUpdatePosition = maxBlockHeight + updateRadius - 1;
+        obfuscationCache = paperWorldConfig.obfuscationCacheSize > 0 ? new ObfuscationCache(paperWorldConfig.obfuscationCacheSize * 1024L * 1024L) : null; // Folia - anti-xray obfuscation cache
     }
 
+    // Folia start - anti-xray obfuscation cache
+    public ObfuscationCache getObfuscationCache() {
+        return obfuscationCache;
+    }
+
+    private static long getRevision(LevelChunk chunk, int chunkSectionIndex) {
+        LevelChunkSection chunkSection = chunk == null ? EMPTY_SECTION : chunk.getSections()[chunkSectionIndex];
+        return chunkSection == EMPTY_SECTION ? -1L : chunkSection.getStates().getRevision();
+    }
+
+    private static long[] getCacheKey(ChunkPacketInfoAntiXray chunkPacketInfoAntiXray, int chunkSectionIndex) {
+        // The sections of the packet are keyed by their revision when the packet was created, as the buffer holds their data from that time
+        LevelChunk[] nearbyChunks = chunkPacketInfoAntiXray.getNearbyChunks();
+        int sectionsCount = chunkPacketInfoAntiXray.getChunk().getSectionsCount();
+        return new long[]{
+            chunkPacketInfoAntiXray.getRevision(chunkSectionIndex),
+            chunkSectionIndex == 0 ? -1L : chunkPacketInfoAntiXray.getRevision(chunkSectionIndex - 1),
+            chunkSectionIndex == sectionsCount - 1 ? -1L : chunkPacketInfoAntiXray.getRevision(chunkSectionIndex + 1),
+            getRevision(nearbyChunks[0], chunkSectionIndex),
+            getRevision(nearbyChunks[1], chunkSectionIndex),
+            getRevision(nearbyChunks[2], chunkSectionIndex),
+            getRevision(nearbyChunks[3], chunkSectionIndex)
+        };
+    }
+
+    private static int getDataLength(int bits) {
+        // Same layout as SimpleBitStorage
+        int valuesPerLong = 64 / bits;
+        return (4096 + valuesPerLong - 1) / valuesPerLong * 8;
+    }
+    // Folia end - anti-xray obfuscation cache
+
     private int getPresetBlockStatesFullLength() {
         return engineMode == EngineMode.HIDE ? 1 : presetBlockStatesFull.length;
     }
@@ -267,8 +301,27 @@ public final class ChunkPacketBlockControllerAntiXray extends ChunkPacketBlockCo
             }
         };
 
+        // Folia start - anti-xray obfuscation cache
+        ObfuscationCache obfuscationCache = this.obfuscationCache;
+        // Whether the section below was taken from the cache, in which case the state for the current section has not been prepared
+        boolean belowCached = false;
+        // Folia end - anti-xray obfuscation cache
+
         for (int chunkSectionIndex = 0; chunkSectionIndex <= maxChunkSectionIndex; chunkSectionIndex++) {
             if (chunkPacketInfoAntiXray.isWritten(chunkSectionIndex) && chunkPacketInfoAntiXray.getPresetValues(chunkSectionIndex) != null) {
+                // Folia start - anti-xray obfuscation cache
+                long[] cacheKey = null;
+                int dataLength = getDataLength(chunkPacketInfoAntiXray.getBits(chunkSectionIndex));
+
+                if (obfuscationCache != null) {
+                    cacheKey = getCacheKey(chunkPacketInfoAntiXray, chunkSectionIndex);
+
+                    if (obfuscationCache.copyTo(cacheKey, chunkPacketInfoAntiXray.getBuffer(), chunkPacketInfoAntiXray.getIndex(chunkSectionIndex), dataLength)) {
+                        belowCached = true;
+                        continue;
+                    }
+                }
+                // Folia end - anti-xray obfuscation cache
                 int[] presetBlockStateBitsTemp;
 
                 if (chunkPacketInfoAntiXray.getPalette(chunkSectionIndex) instanceof GlobalPalette) {
@@ -296,7 +349,7 @@ public final class ChunkPacketBlockControllerAntiXray extends ChunkPacketBlockCo
                 bitStorageWriter.setIndex(chunkPacketInfoAntiXray.getIndex(chunkSectionIndex));
 
                 // Check if the chunk section below was not obfuscated
-                if (chunkSectionIndex == 0 || !chunkPacketInfoAntiXray.isWritten(chunkSectionIndex - 1) || chunkPacketInfoAntiXray.getPresetValues(chunkSectionIndex - 1) == null) {
+                if (chunkSectionIndex == 0 || !chunkPacketInfoAntiXray.isWritten(chunkSectionIndex - 1) || chunkPacketInfoAntiXray.getPresetValues(chunkSectionIndex - 1) == null || belowCached) { // Folia - anti-xray obfuscation cache
                     // If so, initialize some stuff
                     bitStorageReader.setBits(chunkPacketInfoAntiXray.getBits(chunkSectionIndex));
                     bitStorageReader.setIndex(chunkPacketInfoAntiXray.getIndex(chunkSectionIndex));
@@ -374,6 +427,14 @@ public final class ChunkPacketBlockControllerAntiXray extends ChunkPacketBlockCo
                 }
 
                 bitStorageWriter.flush();
+
+                // Folia start - anti-xray obfuscation cache
+                if (cacheKey != null) {
+                    obfuscationCache.put(cacheKey, chunkPacketInfoAntiXray.getBuffer(), chunkPacketInfoAntiXray.getIndex(chunkSectionIndex), dataLength);
+                }
+
+                belowCached = false;
+                // Folia end - anti-xray obfuscation cache
             }
         }
 
@@ -12,6 +12,7 @@ public class ChunkPacketInfo<T> {
     private final Object[] palettes;
     private final int[] indexes;
     private final Object[][] presetValues;
+    private final long[] revisions; // Folia - anti-xray obfuscation cache
     private byte[] buffer;
 
     public ChunkPacketInfo(ClientboundLevelChunkWithLightPacket chunkPacket, LevelChunk chunk) {
@@ -22,6 +23,7 @@ public class ChunkPacketInfo<T> {
         palettes = new Object[sections];
         indexes = new int[sections];
         presetValues = new Object[sections][];
+        revisions = new long[sections]; // Folia - anti-xray obfuscation cache
     }
 
     public ClientboundLevelChunkWithLightPacket getChunkPacket() {
@@ -74,6 +76,16 @@ public class ChunkPacketInfo<T> {
         this.presetValues[chunkSectionIndex] = presetValues;
     }
 
+    // Folia start - anti-xray obfuscation cache
+    public long getRevision(int chunkSectionIndex) {
+        return revisions[chunkSectionIndex];
+    }
+
+    public void setRevision(int chunkSectionIndex, long revision) {
+        revisions[chunkSectionIndex] = revision;
+    }
+    // Folia end - anti-xray obfuscation cache
+
     public boolean isWritten(int chunkSectionIndex) {
         return bits[chunkSectionIndex] != 0;
     }
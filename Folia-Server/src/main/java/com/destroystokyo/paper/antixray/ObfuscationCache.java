@@ -0,0 +1,88 @@
+package com.destroystokyo.paper.antixray;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Obfuscated block data of chunk sections, so that unchanged sections are not obfuscated again for every chunk packet.
+ * <p>
+ * The obfuscation of a section depends on its own blocks, the sections above and below it and the sections next to it in the
+ * neighbouring chunks. An entry is keyed by the revisions of all of these, see {@link net.minecraft.world.level.chunk.PalettedContainer#getRevision()}.
+ * Revisions are unique, so entries of modified or unloaded sections are never matched again and are evicted (least recently used first)
+ * once the cache is full.
+ */
+public final class ObfuscationCache {
+
+    // rough size of an entry without its data
+    private static final int ENTRY_OVERHEAD = 128;
+
+    private final long maxBytes;
+    // keyed by the revision of the section itself
+    private final Long2ObjectLinkedOpenHashMap<Entry> entries = new Long2ObjectLinkedOpenHashMap<>();
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public ObfuscationCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    // copies the cached data into the buffer at the index, returns false if there is no matching entry
+    public synchronized boolean copyTo(long[] key, byte[] buffer, int index, int length) {
+        Entry entry = entries.getAndMoveToLast(key[0]);
+
+        if (entry == null || entry.data.length != length || !Arrays.equals(entry.key, key) || buffer.length < index + length) {
+            misses++;
+            return false;
+        }
+
+        System.arraycopy(entry.data, 0, buffer, index, length);
+        hits++;
+        return true;
+    }
+
+    public void put(long[] key, byte[] buffer, int index, int length) {
+        if (length + ENTRY_OVERHEAD > maxBytes || buffer.length < index + length) {
+            return;
+        }
+
+        // copy outside the lock
+        Entry entry = new Entry(key, Arrays.copyOfRange(buffer, index, index + length));
+
+        synchronized (this) {
+            Entry previous = entries.putAndMoveToLast(key[0], entry);
+
+            if (previous != null) {
+                bytes -= previous.size();
+            }
+
+            bytes += entry.size();
+
+            while (bytes > maxBytes) {
+                bytes -= entries.removeFirst().size();
+                evictions++;
+            }
+        }
+    }
+
+    public synchronized Statistics getStatistics() {
+        return new Statistics(entries.size(), bytes, maxBytes, hits, misses, evictions);
+    }
+
+    private record Entry(long[] key, byte[] data) {
+
+        public long size() {
+            return ENTRY_OVERHEAD + key.length * 8L + data.length;
+        }
+    }
+
+    public record Statistics(int entries, long bytes, long maxBytes, long hits, long misses, long evictions) {
+
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0L ? 0.0 : (double) hits / (double) total;
+        }
+    }
+}
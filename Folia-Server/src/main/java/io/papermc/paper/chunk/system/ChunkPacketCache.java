@@ -0,0 +1,140 @@
+package io.papermc.paper.chunk.system;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import net.minecraft.network.protocol.game.ClientboundLevelChunkWithLightPacket;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import java.util.Arrays;
+
+/**
+ * Chunk packets built for one player, kept so that the same chunk sent to other players is not built (and encoded) again.
+ * <p>
+ * An entry is keyed by the revisions of the block state and biome containers of the chunk sections, see
+ * {@link net.minecraft.world.level.chunk.PalettedContainer#getRevision()}, and by {@link LevelChunk#packetCacheVersion}, which
+ * counts the light and block entity changes of the chunk. Packets with anti-xray applied also depend on the sections of the
+ * neighbouring chunks, so their revisions are part of the key as well. Revisions are unique, so entries of modified or unloaded
+ * chunks are never matched again and are evicted (least recently used first) once the cache is full.
+ */
+public final class ChunkPacketCache {
+
+    // rough size of an entry without its packet
+    private static final int ENTRY_OVERHEAD = 256;
+    // rough size of a block entity in the packet
+    private static final int BLOCK_ENTITY_SIZE = 256;
+
+    private final long maxBytes;
+    // keyed by chunk key, the least significant bit is set for packets with anti-xray applied
+    private final Long2ObjectLinkedOpenHashMap<Entry> entries = new Long2ObjectLinkedOpenHashMap<>();
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public ChunkPacketCache(final long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public boolean isEnabled() {
+        return this.maxBytes > 0L;
+    }
+
+    public ClientboundLevelChunkWithLightPacket getOrCreate(final ServerLevel world, final LevelChunk chunk, final boolean modifyBlocks) {
+        if (!this.isEnabled()) {
+            return new ClientboundLevelChunkWithLightPacket(chunk, world.getLightEngine(), null, null, modifyBlocks);
+        }
+
+        final long key = (chunk.getPos().toLong() << 1) | (modifyBlocks ? 1L : 0L);
+        final long[] revisions = getRevisions(world, chunk, modifyBlocks);
+
+        synchronized (this) {
+            final Entry entry = this.entries.getAndMoveToLast(key);
+            if (entry != null && Arrays.equals(entry.revisions, revisions)) {
+                ++this.hits;
+                return entry.packet;
+            }
+            ++this.misses;
+        }
+
+        // build outside the lock
+        final ClientboundLevelChunkWithLightPacket packet = new ClientboundLevelChunkWithLightPacket(chunk, world.getLightEngine(), null, null, modifyBlocks);
+        packet.setShared();
+        final Entry entry = new Entry(revisions, packet, getSize(chunk, packet, revisions));
+
+        if (entry.size > this.maxBytes) {
+            return packet;
+        }
+
+        synchronized (this) {
+            final Entry previous = this.entries.putAndMoveToLast(key, entry);
+            if (previous != null) {
+                this.bytes -= previous.size;
+            }
+
+            this.bytes += entry.size;
+
+            while (this.bytes > this.maxBytes) {
+                this.bytes -= this.entries.removeFirst().size;
+                ++this.evictions;
+            }
+        }
+
+        return packet;
+    }
+
+    private static long[] getRevisions(final ServerLevel world, final LevelChunk chunk, final boolean modifyBlocks) {
+        final LevelChunkSection[] sections = chunk.getSections();
+        final int chunkX = chunk.getPos().x;
+        final int chunkZ = chunk.getPos().z;
+        final LevelChunk[] neighbours = modifyBlocks ? new LevelChunk[] {
+            world.getChunkIfLoaded(chunkX - 1, chunkZ), world.getChunkIfLoaded(chunkX + 1, chunkZ),
+            world.getChunkIfLoaded(chunkX, chunkZ - 1), world.getChunkIfLoaded(chunkX, chunkZ + 1)
+        } : null;
+
+        final long[] ret = new long[1 + sections.length * (modifyBlocks ? 6 : 2)];
+        int index = 0;
+        ret[index++] = chunk.packetCacheVersion;
+        for (int i = 0; i < sections.length; ++i) {
+            ret[index++] = sections[i].getStates().getRevision();
+            ret[index++] = sections[i].getBiomes() instanceof net.minecraft.world.level.chunk.PalettedContainer<?> biomes ? biomes.getRevision() : -1L;
+            if (neighbours != null) {
+                for (final LevelChunk neighbour : neighbours) {
+                    ret[index++] = neighbour == null ? -1L : neighbour.getSections()[i].getStates().getRevision();
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    private static long getSize(final LevelChunk chunk, final ClientboundLevelChunkWithLightPacket packet, final long[] revisions) {
+        long size = ENTRY_OVERHEAD + revisions.length * 8L;
+
+        // the section data is held twice, as built and as encoded
+        size += packet.getChunkData().getReadBuffer().readableBytes() * 2L;
+        size += chunk.getBlockEntities().size() * (long)BLOCK_ENTITY_SIZE;
+        // light data is held twice as well
+        for (final byte[] light : packet.getLightData().getSkyUpdates()) {
+            size += light.length * 2L;
+        }
+        for (final byte[] light : packet.getLightData().getBlockUpdates()) {
+            size += light.length * 2L;
+        }
+
+        return size;
+    }
+
+    public synchronized Statistics getStatistics() {
+        return new Statistics(this.entries.size(), this.bytes, this.maxBytes, this.hits, this.misses, this.evictions);
+    }
+
+    private static record Entry(long[] revisions, ClientboundLevelChunkWithLightPacket packet, long size) {}
+
+    public static record Statistics(int entries, long bytes, long maxBytes, long hits, long misses, long evictions) {
+
+        public double hitRate() {
+            final long total = this.hits + this.misses;
+            return total == 0L ? 0.0 : (double)this.hits / (double)total;
+        }
+    }
+}
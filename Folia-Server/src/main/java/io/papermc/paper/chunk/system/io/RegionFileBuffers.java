@@ -0,0 +1,179 @@
+package io.papermc.paper.chunk.system.io;
+
+import io.papermc.paper.configuration.GlobalConfiguration;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Buffers used by regionfiles to read and write chunk data.
+ * <p>
+ * Pooled buffers are handed out on read and returned once the chunk data stream is closed, and handed out
+ * to chunk write buffers and returned once the chunk has been written. A stream that is never closed
+ * simply leaves its buffer to the GC.
+ * </p>
+ */
+public final class RegionFileBuffers {
+
+    public static enum Mode {
+        /**
+         * Allocate a new buffer for every read and write, as vanilla does.
+         */
+        ALLOCATE,
+        /**
+         * Reuse buffers from a shared pool.
+         */
+        POOLED,
+        /**
+         * Read chunk data straight out of a read-only mapping of the regionfile, without copying it. Reads
+         * that cannot be mapped and all writes use pooled buffers.
+         */
+        MEMORY_MAPPED;
+    }
+
+    // covers every chunk stored inside the regionfile, larger ones are saved externally
+    public static final int MAX_POOLED_SIZE = 256 * 4096;
+    private static final int MIN_BUFFER_SIZE = 16 * 4096;
+    private static final int MAX_POOLED_BUFFERS = 64;
+
+    private static final ConcurrentLinkedDeque<byte[]> POOL = new ConcurrentLinkedDeque<>();
+    private static final AtomicInteger POOL_SIZE = new AtomicInteger();
+
+    private static final LongAdder ALLOCATED_BYTES = new LongAdder();
+    private static final LongAdder REUSED_BYTES = new LongAdder();
+    private static final LongAdder MAPPED_READS = new LongAdder();
+
+    public static record Statistics(long allocatedBytes, long reusedBytes, long mappedReads) {}
+
+    public static Statistics getStatistics() {
+        return new Statistics(ALLOCATED_BYTES.sum(), REUSED_BYTES.sum(), MAPPED_READS.sum());
+    }
+
+    public static Mode getMode() {
+        return GlobalConfiguration.get().chunkSystem.regionFileBuffers;
+    }
+
+    public static void recordAllocation(final int bytes) {
+        ALLOCATED_BYTES.add((long)bytes);
+    }
+
+    public static void recordMappedRead() {
+        MAPPED_READS.increment();
+    }
+
+    public static byte[] allocate(final int size) {
+        ALLOCATED_BYTES.add((long)size);
+        return new byte[size];
+    }
+
+    public static byte[] acquire(final int minSize) {
+        if (minSize > MAX_POOLED_SIZE) {
+            return allocate(minSize);
+        }
+
+        final byte[] pooled = POOL.pollFirst();
+        if (pooled != null) {
+            POOL_SIZE.getAndDecrement();
+            if (pooled.length >= minSize) {
+                REUSED_BYTES.add((long)pooled.length);
+                return pooled;
+            }
+            // too small, replace it with one that fits
+        }
+
+        return allocate(Math.max(MIN_BUFFER_SIZE, Integer.highestOneBit(minSize - 1) << 1));
+    }
+
+    public static void release(final byte[] buffer) {
+        if (buffer.length < MIN_BUFFER_SIZE || buffer.length > MAX_POOLED_SIZE) {
+            return;
+        }
+        if (POOL_SIZE.getAndIncrement() >= MAX_POOLED_BUFFERS) {
+            POOL_SIZE.getAndDecrement();
+            return;
+        }
+        POOL.addFirst(buffer);
+    }
+
+    /**
+     * Returns a stream over the specified section of the pooled buffer, which returns the buffer to the pool when closed.
+     */
+    public static ByteArrayInputStream createPooledStream(final byte[] buffer, final int offset, final int length) {
+        return new PooledInputStream(buffer, offset, length);
+    }
+
+    /**
+     * Returns a stream reading the remaining bytes of the specified buffer, without copying them.
+     */
+    public static InputStream createStream(final ByteBuffer buffer) {
+        return new ByteBufferInputStream(buffer);
+    }
+
+    private static final class PooledInputStream extends ByteArrayInputStream {
+
+        private byte[] pooled;
+
+        public PooledInputStream(final byte[] buffer, final int offset, final int length) {
+            super(buffer, offset, length);
+            this.pooled = buffer;
+        }
+
+        @Override
+        public void close() {
+            final byte[] pooled = this.pooled;
+            if (pooled == null) {
+                return;
+            }
+            this.pooled = null;
+            // nothing may read from the buffer once it is back in the pool
+            this.buf = new byte[0];
+            this.pos = this.count = this.mark = 0;
+            release(pooled);
+        }
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        public ByteBufferInputStream(final ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return this.buffer.hasRemaining() ? (this.buffer.get() & 0xFF) : -1;
+        }
+
+        @Override
+        public int read(final byte[] bytes, final int off, final int len) {
+            if (len == 0) {
+                return 0;
+            }
+            final int remaining = this.buffer.remaining();
+            if (remaining == 0) {
+                return -1;
+            }
+            final int toRead = Math.min(len, remaining);
+            this.buffer.get(bytes, off, toRead);
+            return toRead;
+        }
+
+        @Override
+        public long skip(final long n) {
+            final int toSkip = (int)Math.max(0L, Math.min(n, (long)this.buffer.remaining()));
+            this.buffer.position(this.buffer.position() + toSkip);
+            return (long)toSkip;
+        }
+
+        @Override
+        public int available() {
+            return this.buffer.remaining();
+        }
+    }
+
+    private RegionFileBuffers() {}
+}
@@ -212,6 +212,17 @@ public final class RegionFileIOThread extends PrioritisedQueueExecutorThread {
     }
 
     public static void flush() {
+        // Folia start - batched regionfile writes
+        for (int i = 0, len = threads.length; i < len; ++i) {
+            final RegionFileIOThread thread = threads[i];
+            try {
+                // queued last, so that it commits everything written by the tasks before it
+                thread.queueRunnable(thread::commitBatchedWrites, PrioritisedExecutor.Priority.IDLE);
+            } catch (final IllegalStateException ignore) {
+                // shut down, the pending writes are committed when the regionfiles are closed
+            }
+        }
+        // Folia end - batched regionfile writes
         for (int i = 0, len = threads.length; i < len; ++i) {
             threads[i].waitUntilAllExecuted();
         }
@@ -266,6 +277,38 @@ public final class RegionFileIOThread extends PrioritisedQueueExecutorThread {
         });
     }
 
+    // Folia start - batched regionfile writes
+    // regionfiles with writes pending commit, only accessed by this thread
+    private final it.unimi.dsi.fastutil.objects.ReferenceLinkedOpenHashSet<RegionFile> batchedRegionFiles = new it.unimi.dsi.fastutil.objects.ReferenceLinkedOpenHashSet<>();
+
+    public static void addBatchedRegionFile(final RegionFile regionFile) {
+        ((RegionFileIOThread)Thread.currentThread()).batchedRegionFiles.add(regionFile);
+    }
+
+    private void commitBatchedWrites() {
+        for (final java.util.Iterator<RegionFile> iterator = this.batchedRegionFiles.iterator(); iterator.hasNext();) {
+            final RegionFile regionFile = iterator.next();
+            try {
+                regionFile.commitPendingWrites();
+                iterator.remove();
+            } catch (final IOException ex) {
+                // keep it, so that the commit is retried the next time the queue drains
+                LOGGER.error("Failed to commit batched chunk writes to regionfile " + regionFile.regionFile.toAbsolutePath(), ex);
+            }
+        }
+    }
+
+    @Override
+    protected boolean pollTasks() {
+        final boolean ret = super.pollTasks();
+        // the queue is drained, so there is nothing left to batch with
+        if (!this.batchedRegionFiles.isEmpty()) {
+            this.commitBatchedWrites();
+        }
+        return ret;
+    }
+    // Folia end - batched regionfile writes
+
     /**
      * Returns whether the current thread is a regionfile I/O executor.
      * @return Whether the current thread is a regionfile I/O executor.
@@ -1129,13 +1172,13 @@ public final class RegionFileIOThread extends PrioritisedQueueExecutorThread {
         public <T> T computeForRegionFile(final int chunkX, final int chunkZ, final boolean existingOnly, final Function<RegionFile, T> function) {
             final RegionFileStorage cache = this.getCache();
             final RegionFile regionFile;
-            synchronized (cache) {
-                try {
-                    regionFile = cache.getRegionFile(new ChunkPos(chunkX, chunkZ), existingOnly, true);
-                } catch (final IOException ex) {
-                    throw new RuntimeException(ex);
-                }
+            // Folia start - concurrent regionfile cache - the cache returns the file locked
+            try {
+                regionFile = cache.getRegionFile(new ChunkPos(chunkX, chunkZ), existingOnly, true);
+            } catch (final IOException ex) {
+                throw new RuntimeException(ex);
             }
+            // Folia end - concurrent regionfile cache
 
             try {
                 return function.apply(regionFile);
@@ -1150,12 +1193,7 @@ public final class RegionFileIOThread extends PrioritisedQueueExecutorThread {
             final RegionFileStorage cache = this.getCache();
             final RegionFile regionFile;
 
-            synchronized (cache) {
-                regionFile = cache.getRegionFileIfLoaded(new ChunkPos(chunkX, chunkZ));
-                if (regionFile != null) {
-                    regionFile.fileLock.lock();
-                }
-            }
+            regionFile = cache.getRegionFileIfLoaded(new ChunkPos(chunkX, chunkZ), true); // Folia - concurrent regionfile cache
 
             try {
                 return function.apply(regionFile);
@@ -0,0 +1,79 @@
+package io.papermc.paper.chunk.system.io;
+
+import io.papermc.paper.configuration.GlobalConfiguration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics and configuration for batched regionfile writes.
+ * <p>
+ * Chunk writes performed by a regionfile I/O thread are not written to the regionfile immediately. Instead,
+ * the regionfile keeps the serialised chunk and the I/O thread commits all pending chunks of a regionfile at once
+ * when its queue drains or when the batch is full: sectors are allocated, adjacent sectors are written with a single
+ * write, the header is written once and old sectors are only freed after the header has been written.
+ * Reads of a chunk with a pending write are served from the pending data.
+ * </p>
+ */
+public final class RegionFileWriteBatching {
+
+    private static final LongAdder BATCHES = new LongAdder();
+    private static final LongAdder CHUNKS = new LongAdder();
+    private static final LongAdder WRITE_OPERATIONS = new LongAdder();
+    private static final LongAdder COMMIT_TIME = new LongAdder();
+    private static final LongAdder CHUNK_LATENCY = new LongAdder();
+    private static final AtomicLong MAX_CHUNK_LATENCY = new AtomicLong();
+    private static final LongAdder FAILED_BATCHES = new LongAdder();
+    // sampled after every commit, so the ratio is the average fragmentation of the regionfiles being written to
+    private static final LongAdder FREE_SECTORS = new LongAdder();
+    private static final LongAdder FILE_SECTORS = new LongAdder();
+
+    public static record Statistics(long batches, long chunks, long writeOperations, long totalCommitTime,
+                                    long totalChunkLatency, long maxChunkLatency, long failedBatches,
+                                    long freeSectors, long fileSectors) {
+
+        public double getAverageChunkLatency() {
+            return this.chunks == 0L ? 0.0 : (double)this.totalChunkLatency / (double)this.chunks;
+        }
+
+        public double getFragmentation() {
+            return this.fileSectors == 0L ? 0.0 : (double)this.freeSectors / (double)this.fileSectors;
+        }
+    }
+
+    public static Statistics getStatistics() {
+        return new Statistics(
+            BATCHES.sum(), CHUNKS.sum(), WRITE_OPERATIONS.sum(), COMMIT_TIME.sum(),
+            CHUNK_LATENCY.sum(), MAX_CHUNK_LATENCY.get(), FAILED_BATCHES.sum(),
+            FREE_SECTORS.sum(), FILE_SECTORS.sum()
+        );
+    }
+
+    /**
+     * Returns the maximum number of chunk writes kept pending per regionfile, or {@code 0} if writes are not batched.
+     */
+    public static int getMaxBatchSize() {
+        return Math.max(0, GlobalConfiguration.get().chunkSystem.regionFileWriteBatchSize);
+    }
+
+    public static boolean shouldBatchCurrentThread() {
+        return RegionFileIOThread.isRegionFileThread() && getMaxBatchSize() > 0;
+    }
+
+    public static void recordCommit(final int chunks, final int writeOperations, final long commitTime, final long totalLatency,
+                                    final long maxLatency, final int freeSectors, final int fileSectors) {
+        BATCHES.increment();
+        CHUNKS.add((long)chunks);
+        WRITE_OPERATIONS.add((long)writeOperations);
+        COMMIT_TIME.add(commitTime);
+        CHUNK_LATENCY.add(totalLatency);
+        for (long curr = MAX_CHUNK_LATENCY.get(); curr < maxLatency && !MAX_CHUNK_LATENCY.compareAndSet(curr, maxLatency); curr = MAX_CHUNK_LATENCY.get());
+        FREE_SECTORS.add((long)freeSectors);
+        FILE_SECTORS.add((long)fileSectors);
+    }
+
+    public static void recordFailedCommit() {
+        FAILED_BATCHES.increment();
+    }
+
+    private RegionFileWriteBatching() {}
+}
@@ -0,0 +1,956 @@
+package io.papermc.paper.chunk.system.io;
+
+import com.mojang.logging.LogUtils;
+import io.papermc.paper.configuration.GlobalConfiguration;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import net.minecraft.core.Holder;
+import net.minecraft.core.Registry;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.nbt.ByteArrayTag;
+import net.minecraft.nbt.ByteTag;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.DoubleTag;
+import net.minecraft.nbt.EndTag;
+import net.minecraft.nbt.FloatTag;
+import net.minecraft.nbt.IntArrayTag;
+import net.minecraft.nbt.IntTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.LongArrayTag;
+import net.minecraft.nbt.LongTag;
+import net.minecraft.nbt.NbtAccounter;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.NumericTag;
+import net.minecraft.nbt.ShortTag;
+import net.minecraft.nbt.StreamTagVisitor;
+import net.minecraft.nbt.StringTag;
+import net.minecraft.nbt.Tag;
+import net.minecraft.nbt.TagType;
+import net.minecraft.nbt.visitors.CollectToTag;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.biome.Biomes;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.block.state.properties.Property;
+import net.minecraft.world.level.chunk.PalettedContainer;
+import org.slf4j.Logger;
+import java.io.DataInput;
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Decodes chunk data straight from the regionfile stream without building the tag tree of the chunk sections.
+ * <p>
+ * Everything but the {@code sections} list is collected into regular tags. Each section keeps its block states,
+ * biomes and light as the palettes and arrays read from the stream, and only builds its tags once something
+ * accesses them as a {@link CompoundTag} (data conversion, copies that were already modified, plugins).
+ * The chunk serializer reads the decoded data through {@link #getDecoded(CompoundTag)} instead, so a chunk that
+ * does not need conversion never materialises the tags of its sections.
+ * </p>
+ * <p>
+ * Decoding is lossless: anything that is not in the expected shape is kept as a tag and restored on materialisation,
+ * see StreamingChunkDecoderTest. Decoded sections are immutable, so they are shared between copies.
+ * </p>
+ */
+public final class StreamingChunkDecoder {
+
+    private static final Logger LOGGER = LogUtils.getClassLogger();
+
+    public static boolean isEnabled() {
+        return GlobalConfiguration.get().chunkSystem.streamingChunkDecode;
+    }
+
+    /**
+     * Equivalent to {@link NbtIo#read(DataInput)}.
+     */
+    public static CompoundTag read(final DataInput input) throws IOException {
+        final Decoder decoder = new Decoder();
+        NbtIo.parse(input, decoder, NbtAccounter.unlimitedHeap());
+        if (decoder.result == null || !decoder.frames.isEmpty()) {
+            throw new IOException("Root tag must be a named compound tag");
+        }
+        return decoder.result;
+    }
+
+    /**
+     * Returns the decoded data of the specified section, or {@code null} if the section was not decoded by this class,
+     * has been materialised (and may have been modified since) or is not in a shape the decoded data can be used for.
+     */
+    public static DecodedSection getDecoded(final CompoundTag section) {
+        if (!(section instanceof SectionTag sectionTag)) {
+            return null;
+        }
+        final LazyTags tags = (LazyTags)sectionTag.tags;
+        if (tags.isMaterialized()) {
+            return null;
+        }
+        final DecodedSection ret = tags.section;
+        if ((ret.blockStates != null && ret.blockStates.irregular) || (ret.biomes != null && ret.biomes.irregular)) {
+            return null;
+        }
+        return ret;
+    }
+
+    private static boolean isContainer(final TagType<?> type) {
+        return type == CompoundTag.TYPE || type == ListTag.TYPE;
+    }
+
+    private static Map<String, Tag> copyTags(final Map<String, Tag> tags) {
+        final Object2ObjectOpenHashMap<String, Tag> ret = new Object2ObjectOpenHashMap<>(tags.size() + 4, 0.8f);
+        for (final Map.Entry<String, Tag> entry : tags.entrySet()) {
+            ret.put(entry.getKey(), entry.getValue().copy());
+        }
+        return ret;
+    }
+
+    private static Tag copyEntry(final Object entry) {
+        if (entry instanceof String string) {
+            return StringTag.valueOf(string);
+        }
+        if (entry instanceof BlockPaletteEntry blockEntry) {
+            return blockEntry.toTag();
+        }
+        return ((Tag)entry).copy();
+    }
+
+    /**
+     * A palette entry of a block state palette: the block name and properties, plus anything else that was stored.
+     */
+    private static record BlockPaletteEntry(String name, String[] properties, Map<String, Tag> extra, Map<String, Tag> extraProperties) {
+
+        public CompoundTag toTag() {
+            final CompoundTag ret = new CompoundTag();
+            if (this.extra != null) {
+                ret.tags.putAll(copyTags(this.extra));
+            }
+            if (this.name != null) {
+                ret.putString("Name", this.name);
+            }
+            if (this.properties != null) {
+                final CompoundTag properties = new CompoundTag();
+                if (this.extraProperties != null) {
+                    properties.tags.putAll(copyTags(this.extraProperties));
+                }
+                for (int i = 0; i < this.properties.length; i += 2) {
+                    properties.putString(this.properties[i], this.properties[i + 1]);
+                }
+                ret.put("Properties", properties);
+            }
+            return ret;
+        }
+
+        // returns null if the codec would fail to decode the entry, which drops it from the palette
+        public BlockState resolve(final Consumer<String> errors) {
+            final ResourceLocation id = this.name == null ? null : ResourceLocation.tryParse(this.name);
+            if (id == null) {
+                return null;
+            }
+
+            // defaulted registry, unknown blocks are air - same as the codec
+            final Block block = BuiltInRegistries.BLOCK.get(id);
+            BlockState ret = block.defaultBlockState();
+            if (this.properties == null || ret.getValues().isEmpty()) {
+                return ret;
+            }
+
+            // same as the codec, properties that are missing, unknown or cannot be parsed keep their default value
+            for (int i = 0; i < this.properties.length; i += 2) {
+                final Property<?> property = block.getStateDefinition().getProperty(this.properties[i]);
+                if (property == null) {
+                    errors.accept("Unknown property " + this.properties[i] + " of block " + id + ", ignoring it");
+                    continue;
+                }
+                ret = setValue(ret, property, this.properties[i + 1], errors);
+            }
+            return ret;
+        }
+
+        private static <T extends Comparable<T>> BlockState setValue(final BlockState state, final Property<T> property, final String value,
+                                                                     final Consumer<String> errors) {
+            final Optional<T> parsed = property.getValue(value);
+            if (parsed.isEmpty()) {
+                errors.accept("Invalid value " + value + " for property " + property.getName() + " of block " + BuiltInRegistries.BLOCK.getKey(state.getBlock()) + ", using the default value");
+                return state;
+            }
+            return state.setValue(property, parsed.get());
+        }
+    }
+
+    /**
+     * The {@code block_states} or {@code biomes} of a section. Palette entries are block palette entries,
+     * biome names or, for anything else, the tags read.
+     */
+    private static record PalettedData(Object[] palette, long[] data, Map<String, Tag> extra, boolean irregular) {
+
+        public CompoundTag toTag() {
+            final CompoundTag ret = new CompoundTag();
+            ret.tags.putAll(copyTags(this.extra));
+            if (this.palette != null) {
+                final ListTag palette = new ListTag();
+                for (final Object entry : this.palette) {
+                    palette.add(copyEntry(entry));
+                }
+                ret.put("palette", palette);
+            }
+            if (this.data != null) {
+                ret.putLongArray("data", this.data.clone());
+            }
+            return ret;
+        }
+    }
+
+    public static final class DecodedSection {
+
+        private final Map<String, Tag> extra;
+        private final PalettedData blockStates;
+        private final PalettedData biomes;
+        private final byte[] blockLight;
+        private final byte[] skyLight;
+
+        private DecodedSection(final Map<String, Tag> extra, final PalettedData blockStates, final PalettedData biomes,
+                               final byte[] blockLight, final byte[] skyLight) {
+            this.extra = extra;
+            this.blockStates = blockStates;
+            this.biomes = biomes;
+            this.blockLight = blockLight;
+            this.skyLight = skyLight;
+        }
+
+        private Map<String, Tag> toTags() {
+            final Map<String, Tag> ret = copyTags(this.extra);
+            if (this.blockStates != null) {
+                ret.put("block_states", this.blockStates.toTag());
+            }
+            if (this.biomes != null) {
+                ret.put("biomes", this.biomes.toTag());
+            }
+            if (this.blockLight != null) {
+                ret.put("BlockLight", new ByteArrayTag(this.blockLight.clone()));
+            }
+            if (this.skyLight != null) {
+                ret.put("SkyLight", new ByteArrayTag(this.skyLight.clone()));
+            }
+            return ret;
+        }
+
+        // same semantics as CompoundTag#getByte / CompoundTag#getInt
+
+        public byte getByte(final String key) {
+            return this.extra.get(key) instanceof NumericTag numeric ? numeric.getAsByte() : (byte)0;
+        }
+
+        public int getInt(final String key) {
+            return this.extra.get(key) instanceof NumericTag numeric ? numeric.getAsInt() : 0;
+        }
+
+        public boolean hasBlockStates() {
+            return this.blockStates != null;
+        }
+
+        public boolean hasBiomes() {
+            return this.biomes != null;
+        }
+
+        /**
+         * Shared with every copy of the section, must not be modified.
+         */
+        public byte[] getBlockLight() {
+            return this.blockLight;
+        }
+
+        /**
+         * Shared with every copy of the section, must not be modified.
+         */
+        public byte[] getSkyLight() {
+            return this.skyLight;
+        }
+
+        /**
+         * Returns {@code null} if a palette entry cannot be resolved the way the codec would, in which case the
+         * section must be read through the codec.
+         */
+        public PalettedContainer<BlockState> readBlockStates(final BlockState[] presetBlockStates, final Consumer<String> errors) {
+            final Object[] palette = this.blockStates.palette;
+            final List<BlockState> states = new ArrayList<>(palette.length);
+            final List<String> entryErrors = new ArrayList<>(0);
+            for (final Object entry : palette) {
+                // non-compound entries make the section irregular
+                final BlockState state = ((BlockPaletteEntry)entry).resolve(entryErrors::add);
+                if (state == null) {
+                    return null;
+                }
+                states.add(state);
+            }
+            entryErrors.forEach(errors);
+
+            return PalettedContainer.unpack(
+                Block.BLOCK_STATE_REGISTRY, PalettedContainer.Strategy.SECTION_STATES, states,
+                this.blockStates.data == null ? null : this.blockStates.data.clone(), Blocks.AIR.defaultBlockState(), presetBlockStates
+            ).getOrThrow(false, LOGGER::error);
+        }
+
+        /**
+         * Returns {@code null} if a palette entry is not a known biome, in which case the section must be read through
+         * the codec.
+         */
+        public PalettedContainer<Holder<Biome>> readBiomes(final Registry<Biome> registry, final Consumer<String> errors) {
+            final Holder<Biome> plains = registry.getHolderOrThrow(Biomes.PLAINS);
+            final Object[] palette = this.biomes.palette;
+            final List<Holder<Biome>> biomes = new ArrayList<>(palette.length);
+            for (final Object entry : palette) {
+                // non-string entries make the section irregular
+                final ResourceLocation id = ResourceLocation.tryParse((String)entry);
+                final Optional<? extends Holder<Biome>> biome = id == null ? Optional.empty() : registry.getHolder(ResourceKey.create(Registries.BIOME, id));
+                if (biome.isEmpty()) {
+                    // the codec drops the entry from the palette
+                    return null;
+                }
+                biomes.add(biome.get());
+            }
+
+            return PalettedContainer.unpack(
+                registry.asHolderIdMap(), PalettedContainer.Strategy.SECTION_BIOMES, biomes,
+                this.biomes.data == null ? null : this.biomes.data.clone(), plains, null
+            ).getOrThrow(false, LOGGER::error);
+        }
+    }
+
+    /**
+     * Builds the tags of a decoded section on first access.
+     */
+    private static final class LazyTags extends AbstractMap<String, Tag> {
+
+        private final DecodedSection section;
+        private volatile Map<String, Tag> materialized;
+
+        private LazyTags(final DecodedSection section) {
+            this.section = section;
+        }
+
+        public boolean isMaterialized() {
+            return this.materialized != null;
+        }
+
+        private Map<String, Tag> get() {
+            Map<String, Tag> ret = this.materialized;
+            if (ret != null) {
+                return ret;
+            }
+            synchronized (this) {
+                ret = this.materialized;
+                if (ret == null) {
+                    this.materialized = ret = this.section.toTags();
+                }
+                return ret;
+            }
+        }
+
+        @Override
+        public int size() {
+            return this.get().size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return this.get().isEmpty();
+        }
+
+        @Override
+        public boolean containsKey(final Object key) {
+            return this.get().containsKey(key);
+        }
+
+        @Override
+        public boolean containsValue(final Object value) {
+            return this.get().containsValue(value);
+        }
+
+        @Override
+        public Tag get(final Object key) {
+            return this.get().get(key);
+        }
+
+        @Override
+        public Tag put(final String key, final Tag value) {
+            return this.get().put(key, value);
+        }
+
+        @Override
+        public Tag remove(final Object key) {
+            return this.get().remove(key);
+        }
+
+        @Override
+        public void putAll(final Map<? extends String, ? extends Tag> map) {
+            this.get().putAll(map);
+        }
+
+        @Override
+        public void clear() {
+            this.get().clear();
+        }
+
+        @Override
+        public Set<String> keySet() {
+            return this.get().keySet();
+        }
+
+        @Override
+        public Collection<Tag> values() {
+            return this.get().values();
+        }
+
+        @Override
+        public Set<Map.Entry<String, Tag>> entrySet() {
+            return this.get().entrySet();
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            return this.get().equals(other);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.get().hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return this.get().toString();
+        }
+    }
+
+    private static final class SectionTag extends CompoundTag {
+
+        private SectionTag(final DecodedSection section) {
+            super(new LazyTags(section));
+        }
+
+        @Override
+        public CompoundTag copy() {
+            final LazyTags tags = (LazyTags)this.tags;
+            // the decoded data is immutable, so it can be shared as long as nothing has been changed through the tags
+            return tags.isMaterialized() ? super.copy() : new SectionTag(tags.section);
+        }
+    }
+
+    // decoding
+
+    /**
+     * Receives the events of one container. Entries and elements that are containers get their own frame, values
+     * are passed to {@link #value(Tag)} of the container holding them.
+     */
+    private static abstract class Frame {
+
+        // for compounds, returns the frame to handle the entry, or null if it is a value
+        public Frame entry(final TagType<?> type, final String key) {
+            throw new IllegalStateException("Not a compound");
+        }
+
+        public void list(final TagType<?> type, final int length) {}
+
+        // for lists, returns the frame to handle the element, or null if it is a value
+        public Frame element(final TagType<?> type, final int index) {
+            throw new IllegalStateException("Not a list");
+        }
+
+        public abstract void value(final Tag value);
+
+        public abstract void end();
+    }
+
+    /**
+     * Collects a container that is not decoded into its tag.
+     */
+    private static final class CollectFrame extends Frame {
+
+        private final CollectToTag collector = new CollectToTag();
+        private final Consumer<Tag> onComplete;
+        private int depth;
+
+        public CollectFrame(final TagType<?> type, final Consumer<Tag> onComplete) {
+            this.onComplete = onComplete;
+            this.collector.visitRootEntry(type);
+            this.depth = 1;
+        }
+
+        @Override
+        public Frame entry(final TagType<?> type, final String key) {
+            this.collector.visitEntry(type);
+            this.collector.visitEntry(type, key);
+            if (isContainer(type)) {
+                ++this.depth;
+            }
+            return null;
+        }
+
+        @Override
+        public void list(final TagType<?> type, final int length) {
+            this.collector.visitList(type, length);
+        }
+
+        @Override
+        public Frame element(final TagType<?> type, final int index) {
+            this.collector.visitElement(type, index);
+            if (isContainer(type)) {
+                ++this.depth;
+            }
+            return null;
+        }
+
+        @Override
+        public void value(final Tag value) {
+            throw new IllegalStateException();
+        }
+
+        // returns whether the collected container is complete
+        public boolean containerEnd() {
+            this.collector.visitContainerEnd();
+            if (--this.depth == 0) {
+                this.onComplete.accept(this.collector.getResult());
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void end() {
+            throw new IllegalStateException();
+        }
+    }
+
+    private static abstract class CompoundFrame extends Frame {
+
+        protected final Map<String, Tag> extra = new Object2ObjectOpenHashMap<>(8, 0.8f);
+        protected String key;
+
+        @Override
+        public Frame entry(final TagType<?> type, final String key) {
+            this.key = key;
+            return isContainer(type) ? new CollectFrame(type, this::extra) : null;
+        }
+
+        protected void extra(final Tag value) {
+            this.extra.put(this.key, value);
+        }
+
+        @Override
+        public void value(final Tag value) {
+            this.extra(value);
+        }
+    }
+
+    private static final class RootFrame extends CompoundFrame {
+
+        private final CompoundTag root;
+
+        public RootFrame(final CompoundTag root) {
+            this.root = root;
+        }
+
+        @Override
+        public Frame entry(final TagType<?> type, final String key) {
+            if (type == ListTag.TYPE && key.equals("sections")) {
+                return new SectionsFrame((final ListTag sections) -> {
+                    this.root.put(key, sections);
+                });
+            }
+            return super.entry(type, key);
+        }
+
+        @Override
+        public void end() {
+            this.root.tags.putAll(this.extra);
+        }
+    }
+
+    private static final class SectionsFrame extends Frame {
+
+        private final ListTag sections = new ListTag();
+        private final Consumer<ListTag> onComplete;
+
+        public SectionsFrame(final Consumer<ListTag> onComplete) {
+            this.onComplete = onComplete;
+        }
+
+        @Override
+        public Frame element(final TagType<?> type, final int index) {
+            if (type == CompoundTag.TYPE) {
+                return new SectionFrame(this.sections::add);
+            }
+            return isContainer(type) ? new CollectFrame(type, this.sections::add) : null;
+        }
+
+        @Override
+        public void value(final Tag value) {
+            this.sections.add(value);
+        }
+
+        @Override
+        public void end() {
+            this.onComplete.accept(this.sections);
+        }
+    }
+
+    private static final class SectionFrame extends CompoundFrame {
+
+        private final Consumer<Tag> onComplete;
+        private PalettedData blockStates;
+        private PalettedData biomes;
+        private byte[] blockLight;
+        private byte[] skyLight;
+
+        public SectionFrame(final Consumer<Tag> onComplete) {
+            this.onComplete = onComplete;
+        }
+
+        @Override
+        public Frame entry(final TagType<?> type, final String key) {
+            if (type == CompoundTag.TYPE) {
+                switch (key) {
+                    case "block_states":
+                        this.blockStates = null;
+                        return new PalettedFrame(true, (final PalettedData data) -> {
+                            this.blockStates = data;
+                        });
+                    case "biomes":
+                        this.biomes = null;
+                        return new PalettedFrame(false, (final PalettedData data) -> {
+                            this.biomes = data;
+                        });
+                }
+            }
+            return super.entry(type, key);
+        }
+
+        @Override
+        public void value(final Tag value) {
+            if (value instanceof ByteArrayTag array && this.key.equals("BlockLight")) {
+                this.blockLight = array.getAsByteArray();
+            } else if (value instanceof ByteArrayTag array && this.key.equals("SkyLight")) {
+                this.skyLight = array.getAsByteArray();
+            } else {
+                super.value(value);
+            }
+        }
+
+        @Override
+        public void end() {
+            this.onComplete.accept(new SectionTag(new DecodedSection(this.extra, this.blockStates, this.biomes, this.blockLight, this.skyLight)));
+        }
+    }
+
+    private static final class PalettedFrame extends CompoundFrame {
+
+        private final boolean blocks;
+        private final Consumer<PalettedData> onComplete;
+        private Object[] palette;
+        private long[] data;
+        private boolean irregular;
+
+        public PalettedFrame(final boolean blocks, final Consumer<PalettedData> onComplete) {
+            this.blocks = blocks;
+            this.onComplete = onComplete;
+        }
+
+        @Override
+        public Frame entry(final TagType<?> type, final String key) {
+            if (key.equals("palette")) {
+                this.palette = null;
+                if (type == ListTag.TYPE) {
+                    return new PaletteFrame(this.blocks, (final Object[] palette) -> {
+                        this.palette = palette;
+                    });
+                }
+                // let the codec deal with it
+                this.irregular = true;
+            } else if (key.equals("data")) {
+                this.data = null;
+                if (type != LongArrayTag.TYPE) {
+                    this.irregular = true;
+                }
+            }
+            return super.entry(type, key);
+        }
+
+        @Override
+        public void value(final Tag value) {
+            if (value instanceof LongArrayTag array && this.key.equals("data")) {
+                this.data = array.getAsLongArray();
+            } else {
+                super.value(value);
+            }
+        }
+
+        @Override
+        public void end() {
+            // the codec only accepts palettes of 1 up to the section size entries
+            final int maxPaletteSize = (this.blocks ? PalettedContainer.Strategy.SECTION_STATES : PalettedContainer.Strategy.SECTION_BIOMES).size();
+            boolean irregular = this.irregular || this.palette == null || this.palette.length == 0 || this.palette.length > maxPaletteSize;
+            // the codec drops entries it cannot decode, which shifts the indices of all following entries
+            for (int i = 0, len = irregular ? 0 : this.palette.length; i < len; ++i) {
+                final Object entry = this.palette[i];
+                if (this.blocks ? !(entry instanceof BlockPaletteEntry) : !(entry instanceof String)) {
+                    irregular = true;
+                    break;
+                }
+            }
+            this.onComplete.accept(new PalettedData(this.palette, this.data, this.extra, irregular));
+        }
+    }
+
+    private static final class PaletteFrame extends Frame {
+
+        private final boolean blocks;
+        private final Consumer<Object[]> onComplete;
+        private Object[] palette = new Object[0];
+        private int size;
+
+        public PaletteFrame(final boolean blocks, final Consumer<Object[]> onComplete) {
+            this.blocks = blocks;
+            this.onComplete = onComplete;
+        }
+
+        private void add(final Object entry) {
+            if (this.size == this.palette.length) {
+                this.palette = Arrays.copyOf(this.palette, Math.max(4, this.size << 1));
+            }
+            this.palette[this.size++] = entry;
+        }
+
+        @Override
+        public void list(final TagType<?> type, final int length) {
+            this.palette = new Object[length];
+        }
+
+        @Override
+        public Frame element(final TagType<?> type, final int index) {
+            if (this.blocks && type == CompoundTag.TYPE) {
+                return new BlockPaletteEntryFrame(this::add);
+            }
+            return isContainer(type) ? new CollectFrame(type, this::add) : null;
+        }
+
+        @Override
+        public void value(final Tag value) {
+            if (!this.blocks && value instanceof StringTag string) {
+                this.add(string.getAsString());
+            } else {
+                this.add(value);
+            }
+        }
+
+        @Override
+        public void end() {
+            this.onComplete.accept(this.size == this.palette.length ? this.palette : Arrays.copyOf(this.palette, this.size));
+        }
+    }
+
+    private static final class BlockPaletteEntryFrame extends CompoundFrame {
+
+        private final Consumer<Object> onComplete;
+        private String name;
+        private String[] properties;
+        private Map<String, Tag> extraProperties;
+
+        public BlockPaletteEntryFrame(final Consumer<Object> onComplete) {
+            this.onComplete = onComplete;
+        }
+
+        @Override
+        public Frame entry(final TagType<?> type, final String key) {
+            if (type == CompoundTag.TYPE && key.equals("Properties")) {
+                return new PropertiesFrame(this);
+            }
+            return super.entry(type, key);
+        }
+
+        @Override
+        public void value(final Tag value) {
+            if (value instanceof StringTag string && this.key.equals("Name")) {
+                this.name = string.getAsString();
+            } else {
+                super.value(value);
+            }
+        }
+
+        @Override
+        public void end() {
+            this.onComplete.accept(new BlockPaletteEntry(
+                this.name, this.properties, this.extra.isEmpty() ? null : this.extra, this.extraProperties
+            ));
+        }
+    }
+
+    private static final class PropertiesFrame extends CompoundFrame {
+
+        private final BlockPaletteEntryFrame entry;
+        private final List<String> properties = new ArrayList<>();
+
+        public PropertiesFrame(final BlockPaletteEntryFrame entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public void value(final Tag value) {
+            if (value instanceof StringTag string) {
+                this.properties.add(this.key);
+                this.properties.add(string.getAsString());
+            } else {
+                super.value(value);
+            }
+        }
+
+        @Override
+        public void end() {
+            this.entry.properties = this.properties.toArray(new String[0]);
+            this.entry.extraProperties = this.extra.isEmpty() ? null : this.extra;
+        }
+    }
+
+    private static final class Decoder implements StreamTagVisitor {
+
+        private final ArrayDeque<Frame> frames = new ArrayDeque<>();
+        private CompoundTag result;
+
+        private StreamTagVisitor.ValueResult value(final Tag value) {
+            this.frames.peek().value(value);
+            return StreamTagVisitor.ValueResult.CONTINUE;
+        }
+
+        private StreamTagVisitor.ValueResult collect(final CollectFrame frame, final Consumer<StreamTagVisitor> visit) {
+            visit.accept(frame.collector);
+            return StreamTagVisitor.ValueResult.CONTINUE;
+        }
+
+        private StreamTagVisitor.ValueResult visitValue(final Tag value, final Consumer<StreamTagVisitor> visit) {
+            if (this.frames.peek() instanceof CollectFrame collect) {
+                return this.collect(collect, visit);
+            }
+            return this.value(value);
+        }
+
+        @Override
+        public StreamTagVisitor.ValueResult visitEnd() {
+            return this.visitValue(EndTag.INSTANCE, StreamTagVisitor::visitEnd);
+        }
+
+        @Override
+        public StreamTagVisitor.ValueResult visit(final String value) {
+            return this.visitValue(StringTag.valueOf(value), (final StreamTagVisitor visitor) -> visitor.visit(value));
+        }
+
+        @Override
+        public StreamTagVisitor.ValueResult visit(final byte value) {
+            return this.visitValue(ByteTag.valueOf(value), (final StreamTagVisitor visitor) -> visitor.visit(value));
+        }
+
+        @Override
+        public StreamTagVisitor.ValueResult visit(final short value) {
+            return this.visitValue(ShortTag.valueOf(value), (final StreamTagVisitor visitor) -> visitor.visit(value));
+        }
+
+        @Override
+        public StreamTagVisitor.ValueResult visit(final int value) {
+            return this.visitValue(IntTag.valueOf(value), (final StreamTagVisitor visitor) -> visitor.visit(value));
+        }
+
+        @Override
+        public StreamTagVisitor.ValueResult visit(final long value) {
+            return this.visitValue(LongTag.valueOf(value), (final StreamTagVisitor visitor) -> visitor.visit(value));
+        }
+
+        @Override
+        public StreamTagVisitor.ValueResult visit(final float value) {
+            return this.visitValue(FloatTag.valueOf(value), (final StreamTagVisitor visitor) -> visitor.visit(value));
+        }
+
+        @Override
+        public StreamTagVisitor.ValueResult visit(final double value) {
+            return this.visitValue(DoubleTag.valueOf(value), (final StreamTagVisitor visitor) -> visitor.visit(value));
+        }
+
+        @Override
+        public StreamTagVisitor.ValueResult visit(final byte[] value) {
+            return this.visitValue(new ByteArrayTag(value), (final StreamTagVisitor visitor) -> visitor.visit(value));
+        }
+
+        @Override
+        public StreamTagVisitor.ValueResult visit(final int[] value) {
+            return this.visitValue(new IntArrayTag(value), (final StreamTagVisitor visitor) -> visitor.visit(value));
+        }
+
+        @Override
+        public StreamTagVisitor.ValueResult visit(final long[] value) {
+            return this.visitValue(new LongArrayTag(value), (final StreamTagVisitor visitor) -> visitor.visit(value));
+        }
+
+        @Override
+        public StreamTagVisitor.ValueResult visitList(final TagType<?> entryType, final int length) {
+            this.frames.peek().list(entryType, length);
+            return StreamTagVisitor.ValueResult.CONTINUE;
+        }
+
+        @Override
+        public StreamTagVisitor.EntryResult visitEntry(final TagType<?> type) {
+            return StreamTagVisitor.EntryResult.ENTER;
+        }
+
+        @Override
+        public StreamTagVisitor.EntryResult visitEntry(final TagType<?> type, final String key) {
+            final Frame child = this.frames.peek().entry(type, key);
+            if (child != null) {
+                this.frames.push(child);
+            }
+            return StreamTagVisitor.EntryResult.ENTER;
+        }
+
+        @Override
+        public StreamTagVisitor.EntryResult visitElement(final TagType<?> type, final int index) {
+            final Frame child = this.frames.peek().element(type, index);
+            if (child != null) {
+                this.frames.push(child);
+            }
+            return StreamTagVisitor.EntryResult.ENTER;
+        }
+
+        @Override
+        public StreamTagVisitor.ValueResult visitContainerEnd() {
+            final Frame top = this.frames.peek();
+            if (top instanceof CollectFrame collect) {
+                if (collect.containerEnd()) {
+                    this.frames.pop();
+                }
+            } else {
+                top.end();
+                this.frames.pop();
+            }
+            return StreamTagVisitor.ValueResult.CONTINUE;
+        }
+
+        @Override
+        public StreamTagVisitor.ValueResult visitRootEntry(final TagType<?> rootType) {
+            if (rootType != CompoundTag.TYPE) {
+                return StreamTagVisitor.ValueResult.HALT;
+            }
+            this.result = new CompoundTag();
+            this.frames.push(new RootFrame(this.result));
+            return StreamTagVisitor.ValueResult.CONTINUE;
+        }
+    }
+
+    private StreamingChunkDecoder() {}
+}
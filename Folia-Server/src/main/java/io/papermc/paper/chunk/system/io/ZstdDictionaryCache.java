@@ -0,0 +1,67 @@
+package io.papermc.paper.chunk.system.io;
+
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+import com.mojang.logging.LogUtils;
+import org.slf4j.Logger;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the optional trained zstd dictionary for each regionfile directory. The dictionary lives beside the
+ * regionfiles as {@link #DICTIONARY_FILE}, so every dimension (and every kind of regionfile) may have its own.
+ * <p>
+ * Chunks written with a dictionary use their own compression id, so removing or replacing the dictionary
+ * is detected instead of silently producing garbage: zstd verifies the dictionary id stored in each frame.
+ * </p>
+ */
+public final class ZstdDictionaryCache {
+
+    private static final Logger LOGGER = LogUtils.getClassLogger();
+
+    public static final String DICTIONARY_FILE = "zstd.dict";
+    public static final int COMPRESSION_LEVEL = 3;
+
+    public static record Dictionary(byte[] raw, ZstdDictCompress compress, ZstdDictDecompress decompress) {}
+
+    // only dictionaries that were found are cached, so a dictionary added later is picked up by the next regionfile opened
+    private static final ConcurrentHashMap<Path, Dictionary> DICTIONARIES = new ConcurrentHashMap<>();
+
+    private static Path getKey(final Path directory) {
+        return directory.toAbsolutePath().normalize();
+    }
+
+    public static Dictionary getDictionary(final Path directory) {
+        if (directory == null) {
+            return null;
+        }
+        return DICTIONARIES.computeIfAbsent(getKey(directory), ZstdDictionaryCache::load);
+    }
+
+    private static Dictionary load(final Path directory) {
+        final Path file = directory.resolve(DICTIONARY_FILE);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            final byte[] raw = Files.readAllBytes(file);
+            return new Dictionary(raw, new ZstdDictCompress(raw, COMPRESSION_LEVEL), new ZstdDictDecompress(raw));
+        } catch (final IOException ex) {
+            LOGGER.error("Failed to read zstd dictionary " + file.toAbsolutePath(), ex);
+            return null;
+        }
+    }
+
+    /**
+     * Writes the dictionary for the specified directory. Only safe to use while no regionfile in the directory
+     * is open, as chunks already written against a previous dictionary are unreadable with the new one.
+     */
+    public static void writeDictionary(final Path directory, final byte[] raw) throws IOException {
+        Files.write(directory.resolve(DICTIONARY_FILE), raw);
+        DICTIONARIES.remove(getKey(directory));
+    }
+
+    private ZstdDictionaryCache() {}
+}
@@ -1554,6 +1554,51 @@ public final class ChunkHolderManager {
         return ret;
     }
 
+    // Folia start - lock contention profiling
+    private static final int MAX_CONTENTION_SECTIONS = 64;
+
+    private static JsonObject getContentionJson(final ReentrantAreaLock lock) {
+        final JsonObject ret = new JsonObject();
+        final ReentrantAreaLock.ContentionProfiler profiler = lock.getContentionProfiler();
+        ret.addProperty("enabled", Boolean.valueOf(profiler != null));
+        if (profiler == null) {
+            return ret;
+        }
+
+        ret.addProperty("recording_time_ns", Long.valueOf(System.nanoTime() - profiler.getStartTime()));
+        final JsonArray sections = new JsonArray();
+        ret.add("sections", sections);
+        for (final ReentrantAreaLock.ContentionProfiler.SectionReport report : profiler.getReport(MAX_CONTENTION_SECTIONS)) {
+            final JsonObject sectionJson = new JsonObject();
+            sections.add(sectionJson);
+
+            sectionJson.addProperty("sectionX", Integer.valueOf(report.sectionX()));
+            sectionJson.addProperty("sectionZ", Integer.valueOf(report.sectionZ()));
+            sectionJson.addProperty("waits", Long.valueOf(report.waits()));
+            sectionJson.addProperty("total_wait_ns", Long.valueOf(report.totalWaitTime()));
+            sectionJson.addProperty("max_wait_ns", Long.valueOf(report.maxWaitTime()));
+        }
+
+        return ret;
+    }
+    // Folia end - lock contention profiling
+
+    // Folia start - concurrent regionfile cache
+    private static JsonObject getRegionFileCacheJson(final net.minecraft.world.level.chunk.storage.RegionFileStorage storage) {
+        final JsonObject ret = new JsonObject();
+        final net.minecraft.world.level.chunk.storage.RegionFileStorage.CacheStatistics stats = storage.getCacheStatistics();
+
+        ret.addProperty("size", Integer.valueOf(stats.size()));
+        ret.addProperty("hits", Long.valueOf(stats.hits()));
+        ret.addProperty("misses", Long.valueOf(stats.misses()));
+        ret.addProperty("hit_rate", Double.valueOf(stats.hitRate()));
+        ret.addProperty("opened", Long.valueOf(stats.opened()));
+        ret.addProperty("closed", Long.valueOf(stats.closed()));
+
+        return ret;
+    }
+    // Folia end - concurrent regionfile cache
+
     public JsonObject getDebugJsonForWatchdog() {
         return this.getDebugJsonNoLock();
     }
@@ -1567,6 +1612,70 @@ public final class ChunkHolderManager {
         ret.addProperty("lock_shift", Integer.valueOf(ChunkTaskScheduler.getChunkSystemLockShift()));
         ret.addProperty("ticket_shift", Integer.valueOf(ThreadedTicketLevelPropagator.SECTION_SHIFT));
         ret.addProperty("region_shift", Integer.valueOf(TickRegions.getRegionChunkShift()));
+        // Folia start - lock contention profiling
+        ret.add("ticket_lock_contention", getContentionJson(this.ticketLockArea));
+        ret.add("scheduling_lock_contention", getContentionJson(this.taskScheduler.schedulingLockArea));
+        // Folia end - lock contention profiling
+        // Folia start - concurrent regionfile cache
+        final JsonObject regionFileCaches = new JsonObject();
+        ret.add("regionfile_caches", regionFileCaches);
+        regionFileCaches.add("chunk", getRegionFileCacheJson(this.world.chunkDataControllerNew.getCache()));
+        regionFileCaches.add("poi", getRegionFileCacheJson(this.world.poiDataControllerNew.getCache()));
+        regionFileCaches.add("entity", getRegionFileCacheJson(this.world.entityDataControllerNew.getCache()));
+        // Folia end - concurrent regionfile cache
+        // Folia start - pooled/mapped regionfile buffers
+        final JsonObject regionFileBuffers = new JsonObject();
+        ret.add("regionfile_buffers", regionFileBuffers);
+        final io.papermc.paper.chunk.system.io.RegionFileBuffers.Statistics bufferStats = io.papermc.paper.chunk.system.io.RegionFileBuffers.getStatistics();
+        regionFileBuffers.addProperty("mode", io.papermc.paper.chunk.system.io.RegionFileBuffers.getMode().name());
+        regionFileBuffers.addProperty("allocated_bytes", Long.valueOf(bufferStats.allocatedBytes()));
+        regionFileBuffers.addProperty("reused_bytes", Long.valueOf(bufferStats.reusedBytes()));
+        regionFileBuffers.addProperty("mapped_reads", Long.valueOf(bufferStats.mappedReads()));
+        // Folia end - pooled/mapped regionfile buffers
+        // Folia start - batched regionfile writes
+        final JsonObject writeBatching = new JsonObject();
+        ret.add("regionfile_write_batching", writeBatching);
+        final io.papermc.paper.chunk.system.io.RegionFileWriteBatching.Statistics batchStats = io.papermc.paper.chunk.system.io.RegionFileWriteBatching.getStatistics();
+        writeBatching.addProperty("max_batch_size", Integer.valueOf(io.papermc.paper.chunk.system.io.RegionFileWriteBatching.getMaxBatchSize()));
+        writeBatching.addProperty("batches", Long.valueOf(batchStats.batches()));
+        writeBatching.addProperty("failed_batches", Long.valueOf(batchStats.failedBatches()));
+        writeBatching.addProperty("chunks", Long.valueOf(batchStats.chunks()));
+        writeBatching.addProperty("write_operations", Long.valueOf(batchStats.writeOperations()));
+        writeBatching.addProperty("total_commit_time_ns", Long.valueOf(batchStats.totalCommitTime()));
+        writeBatching.addProperty("average_chunk_latency_ns", Double.valueOf(batchStats.getAverageChunkLatency()));
+        writeBatching.addProperty("max_chunk_latency_ns", Long.valueOf(batchStats.maxChunkLatency()));
+        writeBatching.addProperty("sector_fragmentation", Double.valueOf(batchStats.getFragmentation()));
+        // Folia end - batched regionfile writes
+        // Folia start - anti-xray obfuscation cache
+        final JsonObject antiXrayCache = new JsonObject();
+        ret.add("anti_xray_cache", antiXrayCache);
+        final com.destroystokyo.paper.antixray.ObfuscationCache obfuscationCache = this.world.chunkPacketBlockController instanceof com.destroystokyo.paper.antixray.ChunkPacketBlockControllerAntiXray antiXray
+            ? antiXray.getObfuscationCache() : null;
+        antiXrayCache.addProperty("enabled", Boolean.valueOf(obfuscationCache != null));
+        if (obfuscationCache != null) {
+            final com.destroystokyo.paper.antixray.ObfuscationCache.Statistics cacheStats = obfuscationCache.getStatistics();
+            antiXrayCache.addProperty("entries", Integer.valueOf(cacheStats.entries()));
+            antiXrayCache.addProperty("bytes", Long.valueOf(cacheStats.bytes()));
+            antiXrayCache.addProperty("max_bytes", Long.valueOf(cacheStats.maxBytes()));
+            antiXrayCache.addProperty("hits", Long.valueOf(cacheStats.hits()));
+            antiXrayCache.addProperty("misses", Long.valueOf(cacheStats.misses()));
+            antiXrayCache.addProperty("hit_rate", Double.valueOf(cacheStats.hitRate()));
+            antiXrayCache.addProperty("evictions", Long.valueOf(cacheStats.evictions()));
+        }
+        // Folia end - anti-xray obfuscation cache
+        // Folia start - shared chunk packets
+        final JsonObject chunkPacketCache = new JsonObject();
+        ret.add("chunk_packet_cache", chunkPacketCache);
+        final io.papermc.paper.chunk.system.ChunkPacketCache.Statistics packetCacheStats = this.world.chunkPacketCache.getStatistics();
+        chunkPacketCache.addProperty("enabled", Boolean.valueOf(this.world.chunkPacketCache.isEnabled()));
+        chunkPacketCache.addProperty("entries", Integer.valueOf(packetCacheStats.entries()));
+        chunkPacketCache.addProperty("bytes", Long.valueOf(packetCacheStats.bytes()));
+        chunkPacketCache.addProperty("max_bytes", Long.valueOf(packetCacheStats.maxBytes()));
+        chunkPacketCache.addProperty("hits", Long.valueOf(packetCacheStats.hits()));
+        chunkPacketCache.addProperty("misses", Long.valueOf(packetCacheStats.misses()));
+        chunkPacketCache.addProperty("hit_rate", Double.valueOf(packetCacheStats.hitRate()));
+        chunkPacketCache.addProperty("evictions", Long.valueOf(packetCacheStats.evictions()));
+        // Folia end - shared chunk packets
         for (final ChunkQueue.SectionToUnload section : this.unloadQueue.retrieveForAllRegions()) {
             final JsonObject sectionJson = new JsonObject();
             unloadQueue.add(sectionJson);
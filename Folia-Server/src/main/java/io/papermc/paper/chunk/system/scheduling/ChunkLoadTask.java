@@ -295,6 +295,18 @@ public final class ChunkLoadTask extends ChunkProgressionTask {
             return this.scheduler.loadExecutor.createTask(run, priority);
         }
 
+        // Folia start - chunk upgrade stage
+        @Override
+        protected PrioritisedExecutor.PrioritisedTask createOffMainUpgrade(final Runnable run, final PrioritisedExecutor.Priority priority) {
+            return this.scheduler.upgradeExecutor.createTask(run, priority);
+        }
+
+        @Override
+        protected boolean needsUpgrade(final CompoundTag data) {
+            return net.minecraft.world.level.chunk.storage.ChunkStorage.getVersion(data) < SharedConstants.getCurrentVersion().getDataVersion().getVersion();
+        }
+        // Folia end - chunk upgrade stage
+
         @Override
         protected PrioritisedExecutor.PrioritisedTask createOnMain(final Runnable run, final PrioritisedExecutor.Priority priority) {
             throw new UnsupportedOperationException();
@@ -334,6 +346,15 @@ public final class ChunkLoadTask extends ChunkProgressionTask {
                     this.world.getTypeKey(), chunkMap.overworldDataStorage, data, chunkMap.generator.getTypeNameForDataFixer(),
                     chunkPos, this.world
                 );
+                // Folia start - chunk upgrade stage
+                if (ChunkTaskScheduler.rewriteUpgradedChunks && this.needsUpgrade(data)) {
+                    // copy, the save is written while the chunk is deserialised from the converted data
+                    // any save of the loaded chunk is scheduled after this one, so it cannot be overwritten by it
+                    RegionFileIOThread.scheduleSave(
+                        this.world, this.chunkX, this.chunkZ, converted.copy(), RegionFileIOThread.RegionFileType.CHUNK_DATA
+                    );
+                }
+                // Folia end - chunk upgrade stage
                 // deserialize
                 final ChunkSerializer.InProgressChunkHolder chunkHolder = ChunkSerializer.loadChunk(
                     this.world, chunkMap.getPoiManager(), chunkPos, converted, true
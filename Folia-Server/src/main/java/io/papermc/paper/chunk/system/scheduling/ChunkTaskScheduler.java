@@ -46,6 +46,8 @@ public final class ChunkTaskScheduler {
     static int newChunkSystemWorkerThreads;
     static int newChunkSystemGenParallelism;
     static int newChunkSystemLoadParallelism;
+    static int newChunkSystemUpgradeParallelism; // Folia - chunk upgrade stage
+    static boolean rewriteUpgradedChunks; // Folia - chunk upgrade stage
 
     public static ca.spottedleaf.concurrentutil.executor.standard.PrioritisedThreadPool workerThreads;
 
@@ -92,8 +94,13 @@ public final class ChunkTaskScheduler {
             throw new IllegalStateException("Invalid option for gen-parallelism: must be one of [on, off, enabled, disabled, true, false, default]");
         }
 
+        ChunkTaskScheduler.profileLockContention = config.profileLockContention; // Folia - lock contention profiling
         ChunkTaskScheduler.newChunkSystemGenParallelism = useParallelGen ? newChunkSystemWorkerThreads : 1;
         ChunkTaskScheduler.newChunkSystemLoadParallelism = newChunkSystemWorkerThreads;
+        // Folia start - chunk upgrade stage
+        ChunkTaskScheduler.newChunkSystemUpgradeParallelism = config.upgradeParallelism < 0 ? Math.max(1, newChunkSystemWorkerThreads / 2) : Math.max(1, Math.min(newChunkSystemWorkerThreads, config.upgradeParallelism));
+        ChunkTaskScheduler.rewriteUpgradedChunks = config.rewriteUpgradedChunks;
+        // Folia end - chunk upgrade stage
 
         io.papermc.paper.chunk.system.io.RegionFileIOThread.init(newChunkSystemIOThreads);
         workerThreads = new ca.spottedleaf.concurrentutil.executor.standard.PrioritisedThreadPool(
@@ -113,6 +120,7 @@ public final class ChunkTaskScheduler {
     public final PrioritisedThreadPool.PrioritisedPoolExecutor parallelGenExecutor;
     private final PrioritisedThreadPool.PrioritisedPoolExecutor radiusAwareGenExecutor;
     public final PrioritisedThreadPool.PrioritisedPoolExecutor loadExecutor;
+    public final PrioritisedThreadPool.PrioritisedPoolExecutor upgradeExecutor; // Folia - chunk upgrade stage
 
     // Folia - regionised ticking
 
@@ -252,6 +260,8 @@ public final class ChunkTaskScheduler {
     final ReentrantAreaLock schedulingLockArea = new ReentrantAreaLock(getChunkSystemLockShift());
     // Folia end - use area based lock to reduce contention
 
+    private static boolean profileLockContention; // Folia - lock contention profiling
+
     public ChunkTaskScheduler(final ServerLevel world, final PrioritisedThreadPool workers) {
         this.world = world;
         this.workers = workers;
@@ -261,8 +271,13 @@ public final class ChunkTaskScheduler {
         this.radiusAwareGenExecutor =
             newChunkSystemGenParallelism <= 1 ? this.parallelGenExecutor : workers.createExecutor("Chunk radius aware generator for world '" + worldName + "'", newChunkSystemGenParallelism);
         this.loadExecutor = workers.createExecutor("Chunk load executor for world '" + worldName + "'", newChunkSystemLoadParallelism);
+        this.upgradeExecutor = workers.createExecutor("Chunk upgrade executor for world '" + worldName + "'", newChunkSystemUpgradeParallelism); // Folia - chunk upgrade stage
         this.radiusAwareScheduler = new RadiusAwarePrioritisedExecutor(this.radiusAwareGenExecutor, Math.max(1, newChunkSystemGenParallelism));
         this.chunkHolderManager = new ChunkHolderManager(world, this);
+        // Folia start - lock contention profiling
+        this.schedulingLockArea.setContentionProfiling(profileLockContention);
+        this.chunkHolderManager.ticketLockArea.setContentionProfiling(profileLockContention);
+        // Folia end - lock contention profiling
     }
 
     private final AtomicBoolean failedChunkSystem = new AtomicBoolean();
@@ -323,6 +338,29 @@ public final class ChunkTaskScheduler {
 
     private final AtomicLong chunkLoadCounter = new AtomicLong();
 
+    // Folia start - skip the area locks when the chunk is already at the target status
+    // The locked paths invoke the callback after releasing the locks, so they cannot guarantee that the chunk
+    // is still at the target status once the callback runs either. All that is needed is a consistent view of the
+    // holder, and both the full status and the last completion are published with volatile writes.
+    private LevelChunk getChunkAtStatusUnlocked(final long chunkKey, final int minLevel, final FullChunkStatus toStatus) {
+        final NewChunkHolder chunkHolder = this.chunkHolderManager.getChunkHolder(chunkKey);
+        if (chunkHolder == null || chunkHolder.getTicketLevel() > minLevel || !chunkHolder.getChunkStatus().isOrAfter(toStatus)) {
+            return null;
+        }
+        final NewChunkHolder.ChunkCompletion completion = chunkHolder.getLastChunkCompletion();
+        return completion != null && completion.chunk() instanceof LevelChunk levelChunk ? levelChunk : null;
+    }
+
+    private ChunkAccess getChunkAtStatusUnlocked(final long chunkKey, final int minLevel, final ChunkStatus toStatus) {
+        final NewChunkHolder chunkHolder = this.chunkHolderManager.getChunkHolder(chunkKey);
+        if (chunkHolder == null || chunkHolder.getTicketLevel() > minLevel) {
+            return null;
+        }
+        final NewChunkHolder.ChunkCompletion completion = chunkHolder.getLastChunkCompletion();
+        return completion != null && completion.genStatus().isOrAfter(toStatus) ? completion.chunk() : null;
+    }
+    // Folia end - skip the area locks when the chunk is already at the target status
+
     public void scheduleTickingState(final int chunkX, final int chunkZ, final FullChunkStatus toStatus,
                                      final boolean addTicket, final PrioritisedExecutor.Priority priority,
                                      final Consumer<LevelChunk> onComplete) {
@@ -368,6 +406,20 @@ public final class ChunkTaskScheduler {
             }
         };
 
+        // Folia start - skip the area locks when the chunk is already at the target status
+        final LevelChunk loadedChunk = this.getChunkAtStatusUnlocked(chunkKey, minLevel, toStatus);
+        if (loadedChunk != null) {
+            try {
+                loadCallback.accept(loadedChunk);
+            } catch (final ThreadDeath thr) {
+                throw thr;
+            } catch (final Throwable thr) {
+                LOGGER.error("Failed to process chunk full status callback", thr);
+            }
+            return;
+        }
+        // Folia end - skip the area locks when the chunk is already at the target status
+
         final boolean scheduled;
         final LevelChunk chunk;
         final ReentrantAreaLock.Node ticketLock = this.chunkHolderManager.ticketLockArea.lock(chunkX, chunkZ, accessRadius);
@@ -525,6 +577,22 @@ public final class ChunkTaskScheduler {
             }
         };
 
+        // Folia start - skip the area locks when the chunk is already at the target status
+        final ChunkAccess loadedChunk = this.getChunkAtStatusUnlocked(chunkKey, minLevel, toStatus);
+        if (loadedChunk != null) {
+            if (loadCallback != null) {
+                try {
+                    loadCallback.accept(loadedChunk);
+                } catch (final ThreadDeath thr) {
+                    throw thr;
+                } catch (final Throwable thr) {
+                    LOGGER.error("Failed to process chunk status callback", thr);
+                }
+            }
+            return;
+        }
+        // Folia end - skip the area locks when the chunk is already at the target status
+
         final List<ChunkProgressionTask> tasks = new ArrayList<>();
 
         final boolean scheduled;
@@ -804,6 +872,7 @@ public final class ChunkTaskScheduler {
         this.radiusAwareGenExecutor.halt();
         this.parallelGenExecutor.halt();
         this.loadExecutor.halt();
+        this.upgradeExecutor.halt(); // Folia - chunk upgrade stage
         final long time = System.nanoTime();
         if (sync) {
             // start at 10 * 0.5ms -> 5ms
@@ -811,7 +880,8 @@ public final class ChunkTaskScheduler {
                 if (
                         !this.radiusAwareGenExecutor.isActive() &&
                         !this.parallelGenExecutor.isActive() &&
-                        !this.loadExecutor.isActive()
+                        !this.loadExecutor.isActive() &&
+                        !this.upgradeExecutor.isActive() // Folia - chunk upgrade stage
                 ) {
                     return true;
                 }
@@ -36,6 +36,8 @@ public abstract class GenericDataLoadTask<OnMain,FinalCompletion> {
     protected final LoadDataFromDiskTask loadDataFromDiskTask;
     // processing off-main
     protected final PrioritisedExecutor.PrioritisedTask processOffMain;
+    // off-main processing of data that needs to be upgraded first, null if not supported
+    protected final PrioritisedExecutor.PrioritisedTask processOffMainUpgrade; // Folia - chunk upgrade stage
     // processing on-main
     protected final PrioritisedExecutor.PrioritisedTask processOnMain;
 
@@ -67,9 +69,11 @@ public abstract class GenericDataLoadTask<OnMain,FinalCompletion> {
         if (this.hasOffMain()) {
             offMainTask = new ProcessOffMainTask(mainTask);
             this.processOffMain = this.createOffMain(offMainTask, priority);
+            this.processOffMainUpgrade = this.createOffMainUpgrade(offMainTask, priority); // Folia - chunk upgrade stage
         } else {
             offMainTask = null;
             this.processOffMain = null;
+            this.processOffMainUpgrade = null; // Folia - chunk upgrade stage
         }
 
         if (this.processOffMain == null && this.processOnMain == null) {
@@ -89,6 +93,18 @@ public abstract class GenericDataLoadTask<OnMain,FinalCompletion> {
 
     protected abstract PrioritisedExecutor.PrioritisedTask createOnMain(final Runnable run, final PrioritisedExecutor.Priority priority);
 
+    // Folia start - chunk upgrade stage
+    // the task to run the off-main processing with instead of the regular off-main task when needsUpgrade() is true
+    protected PrioritisedExecutor.PrioritisedTask createOffMainUpgrade(final Runnable run, final PrioritisedExecutor.Priority priority) {
+        return null;
+    }
+
+    // called from the I/O callback, so this must be cheap
+    protected boolean needsUpgrade(final CompoundTag data) {
+        return false;
+    }
+    // Folia end - chunk upgrade stage
+
     protected abstract TaskResult<OnMain, Throwable> runOffMain(final CompoundTag data, final Throwable throwable);
 
     protected abstract TaskResult<FinalCompletion, Throwable> runOnMain(final OnMain data, final Throwable throwable);
@@ -117,6 +133,11 @@ public abstract class GenericDataLoadTask<OnMain,FinalCompletion> {
         if (this.processOffMain != null) {
             this.processOffMain.lowerPriority(priority);
         }
+        // Folia start - chunk upgrade stage
+        if (this.processOffMainUpgrade != null) {
+            this.processOffMainUpgrade.lowerPriority(priority);
+        }
+        // Folia end - chunk upgrade stage
         if (this.processOnMain != null) {
             this.processOnMain.lowerPriority(priority);
         }
@@ -128,6 +149,11 @@ public abstract class GenericDataLoadTask<OnMain,FinalCompletion> {
         if (this.processOffMain != null) {
             this.processOffMain.setPriority(priority);
         }
+        // Folia start - chunk upgrade stage
+        if (this.processOffMainUpgrade != null) {
+            this.processOffMainUpgrade.setPriority(priority);
+        }
+        // Folia end - chunk upgrade stage
         if (this.processOnMain != null) {
             this.processOnMain.setPriority(priority);
         }
@@ -139,6 +165,11 @@ public abstract class GenericDataLoadTask<OnMain,FinalCompletion> {
         if (this.processOffMain != null) {
             this.processOffMain.raisePriority(priority);
         }
+        // Folia start - chunk upgrade stage
+        if (this.processOffMainUpgrade != null) {
+            this.processOffMainUpgrade.raisePriority(priority);
+        }
+        // Folia end - chunk upgrade stage
         if (this.processOnMain != null) {
             this.processOnMain.raisePriority(priority);
         }
@@ -216,6 +247,11 @@ public abstract class GenericDataLoadTask<OnMain,FinalCompletion> {
                     if (this.processOffMain != null) {
                         this.processOffMain.cancel();
                     }
+                    // Folia start - chunk upgrade stage
+                    if (this.processOffMainUpgrade != null) {
+                        this.processOffMainUpgrade.cancel();
+                    }
+                    // Folia end - chunk upgrade stage
                     if (this.processOnMain != null) {
                         this.processOnMain.cancel();
                     }
@@ -268,6 +304,13 @@ public abstract class GenericDataLoadTask<OnMain,FinalCompletion> {
                 if (GenericDataLoadTask.this.processOffMain != null) {
                     this.offMainTask.data = compoundTag;
                     this.offMainTask.throwable = throwable;
+                    // Folia start - chunk upgrade stage
+                    if (GenericDataLoadTask.this.processOffMainUpgrade != null && throwable == null && compoundTag != null
+                        && GenericDataLoadTask.this.needsUpgrade(compoundTag)) {
+                        GenericDataLoadTask.this.processOffMainUpgrade.queue();
+                        return;
+                    }
+                    // Folia end - chunk upgrade stage
                     GenericDataLoadTask.this.processOffMain.queue();
                     return;
                 } else {
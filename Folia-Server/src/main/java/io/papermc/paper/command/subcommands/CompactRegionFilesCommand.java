@@ -0,0 +1,78 @@
+package io.papermc.paper.command.subcommands;
+
+import io.papermc.paper.command.CommandUtil;
+import io.papermc.paper.command.PaperSubcommand;
+import io.papermc.paper.world.ThreadedWorldUpgrader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import net.minecraft.server.level.ServerLevel;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.bukkit.craftbukkit.CraftWorld;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.framework.qual.DefaultQualifier;
+
+import static net.kyori.adventure.text.Component.text;
+import static net.kyori.adventure.text.format.NamedTextColor.GREEN;
+import static net.kyori.adventure.text.format.NamedTextColor.RED;
+import static net.kyori.adventure.text.format.NamedTextColor.YELLOW;
+
+@DefaultQualifier(NonNull.class)
+public final class CompactRegionFilesCommand implements PaperSubcommand {
+
+    private static final Set<String> COMPACTING = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public boolean execute(final CommandSender sender, final String subCommand, final String[] args) {
+        if (args.length < 1) {
+            sender.sendMessage(text("Use /paper compactregions <world>", RED));
+            return true;
+        }
+
+        final World bukkitWorld = Bukkit.getWorld(args[0]);
+        if (bukkitWorld == null) {
+            sender.sendMessage(text("No such world '" + args[0] + "'", RED));
+            return true;
+        }
+        final ServerLevel world = ((CraftWorld)bukkitWorld).getHandle();
+        final String worldName = bukkitWorld.getName();
+
+        if (!COMPACTING.add(worldName)) {
+            sender.sendMessage(text("The regionfiles of world " + worldName + " are already being compacted", RED));
+            return true;
+        }
+
+        Command.broadcastCommandMessage(sender, text("Compacting the regionfiles of world " + worldName + "...", YELLOW));
+
+        // keep most of the cores for the regions, chunks of a regionfile being compacted cannot be loaded or saved
+        final int threads = Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() / 4));
+        ThreadedWorldUpgrader.compactRegionFiles(worldName, List.of(
+            world.chunkDataControllerNew.getCache(), world.poiDataControllerNew.getCache(), world.entityDataControllerNew.getCache()
+        ), threads).whenComplete((final ThreadedWorldUpgrader.CompactionStatistics statistics, final Throwable throwable) -> {
+            COMPACTING.remove(worldName);
+            if (throwable != null) {
+                Command.broadcastCommandMessage(sender, text("Failed to compact the regionfiles of world " + worldName + ", see server log for details", RED));
+            } else {
+                Command.broadcastCommandMessage(sender, text("Compacted world " + worldName + ": " + statistics.describe(), GREEN));
+            }
+        });
+        return true;
+    }
+
+    @Override
+    public List<String> tabComplete(final CommandSender sender, final String subCommand, final String[] args) {
+        if (args.length == 1) {
+            final List<String> worldNames = new ArrayList<>();
+            for (final World world : Bukkit.getWorlds()) {
+                worldNames.add(world.getName());
+            }
+            return CommandUtil.getListMatchingLast(sender, args, worldNames);
+        }
+        return Collections.emptyList();
+    }
+}
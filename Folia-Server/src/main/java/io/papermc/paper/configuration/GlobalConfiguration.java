@@ -66,6 +66,9 @@ public class GlobalConfiguration extends ConfigurationPart {
             "Set to 0 to let the server configure it automatically per player, or set it to -1 to disable the limit."
         )
         public int playerMaxConcurrentChunkGenerates = 0;
+
+        @Comment("The maximum size in MiB of the chunk packets kept per world, so that a chunk sent to several players is only built and encoded once. Players whose connection has plugin packet handlers always get a packet of their own. Set to 0 to disable.")
+        public int chunkPacketCacheSize = 32; // Folia - shared chunk packets
     }
     static void set(GlobalConfiguration instance) {
         GlobalConfiguration.instance = instance;
@@ -186,7 +189,11 @@ public class GlobalConfiguration extends ConfigurationPart {
         public enum CompressionFormat {
             GZIP,
             ZLIB,
-            NONE
+            NONE,
+            // Folia start - lz4/zstd region compression
+            LZ4,
+            ZSTD
+            // Folia end - lz4/zstd region compression
         }
     }
 
@@ -219,6 +226,18 @@ public class GlobalConfiguration extends ConfigurationPart {
         public int ioThreads = -1;
         public int workerThreads = -1;
         public String genParallelism = "default";
+        @Comment("Record how long threads wait on each section of the chunk system's ticket and scheduling locks. The results are included in the chunk system debug dump.")
+        public boolean profileLockContention = false; // Folia - lock contention profiling
+        @Comment("How regionfiles buffer chunk data. ALLOCATE creates a new buffer for every read and write, POOLED reuses buffers, MEMORY_MAPPED also reads chunks straight from a memory mapping of the regionfile.")
+        public io.papermc.paper.chunk.system.io.RegionFileBuffers.Mode regionFileBuffers = io.papermc.paper.chunk.system.io.RegionFileBuffers.Mode.POOLED; // Folia - pooled/mapped regionfile buffers
+        @Comment("The maximum number of chunk saves an I/O thread holds per regionfile before writing them together, with one header write (and sync, if sync-chunk-writes is enabled) per batch. Batches are also written whenever the I/O queue is empty. 0 writes every chunk on its own.")
+        public int regionFileWriteBatchSize = 0; // Folia - batched regionfile writes
+        @Comment("Decode chunk sections straight from the regionfile into block state, biome and light storage, instead of building the full NBT tree for them first.")
+        public boolean streamingChunkDecode = true; // Folia - streaming chunk decode
+        @Comment("The maximum number of worker threads upgrading chunks saved by older versions at once. Upgrades run separately from regular chunk loads, so they cannot hold up chunks that need no conversion. -1 uses half of the worker threads.")
+        public int upgradeParallelism = -1; // Folia - chunk upgrade stage
+        @Comment("Write chunks saved by older versions back to disk once they have been upgraded, so that they are only converted once.")
+        public boolean rewriteUpgradedChunks = false; // Folia - chunk upgrade stage
 
         @PostProcess
         private void postProcess() {
@@ -331,6 +350,12 @@ public class GlobalConfiguration extends ConfigurationPart {
         public boolean useDimensionTypeForCustomSpawners = false;
         public boolean strictAdvancementDimensionCheck = false;
         public IntOr.Default compressionLevel = IntOr.Default.USE_DEFAULT;
+        @Comment("Encode and compress packets sent to several players at once, such as entity updates, once for all players with the same protocol state, compression threshold and locale instead of once per player.")
+        public boolean encodeBroadcastsOnce = true; // Folia - compress-once broadcasts
+        @Comment("Flush the packets sent to a player by the region owning it once, after the region ticks its connections and at the end of its tick, instead of once per packet. Keep alives, teleports, disconnects and packets sent from other threads are still flushed immediately.")
+        public boolean batchConnectionFlushes = true; // Folia - tick-end connection flush
+        @Comment("The Netty transport for player connections: default (epoll if use-native-transport is enabled, NIO otherwise), io_uring, epoll or nio. Unavailable transports fall back to epoll, then NIO.")
+        public io.papermc.paper.network.NettyTransport nettyTransport = io.papermc.paper.network.NettyTransport.DEFAULT; // Folia - io_uring transport
     }
 
     public BlockUpdates blockUpdates;
@@ -347,6 +372,21 @@ public class GlobalConfiguration extends ConfigurationPart {
     public class ThreadedRegions extends ConfigurationPart {
 
         public int threads = -1;
+        @Comment("How region ticks are distributed to tick threads. GLOBAL_QUEUE uses a single shared queue, WORK_STEALING gives each tick thread its own queue and lets idle threads steal due ticks from busy ones.")
+        public ca.spottedleaf.concurrentutil.scheduler.SchedulerThreadPool.SchedulingMode schedulerMode = ca.spottedleaf.concurrentutil.scheduler.SchedulerThreadPool.SchedulingMode.GLOBAL_QUEUE;
+        @Comment("WORK_STEALING only: how late, in milliseconds, a region's tick must be before a tick thread other than the one that last ticked the region may take it.")
+        public double affinitySlack = 2.0;
+        @Comment("WORK_STEALING only: split the tick threads into this many equally sized groups of consecutive threads, and let ticks move to another group only once they are late by the cross-group affinity slack. Threads are not pinned to CPUs, so the groups do not follow the hardware topology. 0 or 1 uses a single group.")
+        public int stealGroups = 0;
+        @Comment("WORK_STEALING with steal-groups only: how late, in milliseconds, a region's tick must be before a tick thread in another group may take it. Has no effect with the default scheduler mode, GLOBAL_QUEUE.")
+        public double crossGroupAffinitySlack = 10.0;
+        @Comment("Regions whose average tick time exceeds this many milliseconds remove their dead sections and check whether they can be split once per second, instead of waiting for the dead section threshold. -1 disables this, 40 is a reasonable starting value.")
+        public double overloadedRegionMspt = -1.0;
+        @Comment("Share tick thread time between regions by weight while every tick thread is busy, instead of letting lagging regions tick back-to-back. While ticks are starting late, regions over their budget skip random ticks, natural spawning and pathfinding refreshes and have their next tick delayed. Regions are never held back while tick threads are idle.")
+        public boolean budgetedTicking = false;
+        @Comment("Budgeted ticking only: the weight of a region is region-weight + player-weight * (players in the region).")
+        public int regionWeight = 1;
+        public int playerWeight = 4;
 
         @PostProcess
         public void postProcess() {
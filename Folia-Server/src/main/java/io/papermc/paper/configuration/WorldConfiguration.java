@@ -54,6 +54,7 @@ import org.slf4j.Logger;
 import org.spigotmc.SpigotWorldConfig;
 import org.spigotmc.TrackingRange;
 import org.spongepowered.configurate.objectmapping.ConfigSerializable;
+import org.spongepowered.configurate.objectmapping.meta.Comment;
 import org.spongepowered.configurate.objectmapping.meta.PostProcess;
 import org.spongepowered.configurate.objectmapping.meta.Required;
 import org.spongepowered.configurate.objectmapping.meta.Setting;
@@ -105,6 +106,7 @@ public class WorldConfiguration extends ConfigurationPart {
                 "coal_ore", "deepslate_coal_ore", "lapis_ore", "deepslate_lapis_ore", "mossy_cobblestone", "obsidian", "chest", "diamond_ore", "deepslate_diamond_ore",
                 "redstone_ore", "deepslate_redstone_ore", "clay", "emerald_ore", "deepslate_emerald_ore", "ender_chest"); // TODO update type to List<Block>
             public List<String> replacementBlocks = List.of("stone", "oak_planks", "deepslate"); // TODO update type to List<Block>
+            public int obfuscationCacheSize = 32; // Folia - anti-xray obfuscation cache - in MiB, 0 disables the cache
         }
     }
 
@@ -307,6 +309,16 @@ public class WorldConfiguration extends ConfigurationPart {
             }
         }
 
+        @Comment("Send the movement of mobs to distant players at a lower rate. Players beyond the n-th of the increasing distances (in blocks) receive every 2^n-th movement update, and an absolute position whenever they receive an update after skipping some. Players, passengers and vehicles are not tiered.")
+        public TrackingTiers trackingTiers; // Folia - distance tiered entity tracking
+
+        // Folia start - distance tiered entity tracking
+        public class TrackingTiers extends ConfigurationPart {
+            public boolean enabled = false;
+            public List<Integer> distances = List.of(32, 64);
+        }
+        // Folia end - distance tiered entity tracking
+
         public TrackingRangeY trackingRangeY;
 
         public class TrackingRangeY extends ConfigurationPart {
@@ -0,0 +1,98 @@
+package io.papermc.paper.entity;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.LivingEntity;
+import net.minecraft.world.entity.player.Player;
+
+/**
+ * Statistics and helpers for distance tiered entity tracking.
+ * <p>
+ * Viewers of a tracked entity are put into tiers by their distance to it. Viewers in tier {@code n} receive the movement
+ * updates (relative moves, rotation, head rotation and motion) of every {@code 2^n}-th movement tick of the entity only.
+ * A viewer that skipped an update receives an absolute position, head rotation and motion at its next update instead of the
+ * relative move, so it is resynchronised no matter which tier it is in by then. All other packets are sent to every viewer.
+ * </p>
+ */
+public final class EntityTrackingTiers {
+
+    public static final int MAX_TIERS = 8;
+
+    private static final LongAdder[] SENT = createCounters();
+    private static final LongAdder[] SKIPPED = createCounters();
+    private static final LongAdder[] RESYNCED = createCounters();
+
+    private static LongAdder[] createCounters() {
+        final LongAdder[] ret = new LongAdder[MAX_TIERS];
+        for (int i = 0; i < ret.length; ++i) {
+            ret[i] = new LongAdder();
+        }
+        return ret;
+    }
+
+    /**
+     * Packet counts per tier: packets sent as usual, packets skipped, and packets sent to resynchronise viewers which
+     * skipped updates.
+     */
+    public static record Statistics(long[] sent, long[] skipped, long[] resynced) {}
+
+    public static Statistics getStatistics() {
+        return new Statistics(sum(SENT), sum(SKIPPED), sum(RESYNCED));
+    }
+
+    private static long[] sum(final LongAdder[] counters) {
+        final long[] ret = new long[counters.length];
+        for (int i = 0; i < counters.length; ++i) {
+            ret[i] = counters[i].sum();
+        }
+        return ret;
+    }
+
+    /**
+     * Returns whether the movement updates of the entity are sent by tier, otherwise they are sent to every viewer
+     * in vanilla order.
+     */
+    public static boolean isTiered(final ServerLevel level, final Entity entity) {
+        return level.paperConfig().entities.trackingTiers.enabled && canTier(entity);
+    }
+
+    public static boolean canTier(final Entity entity) {
+        // players see vehicles and passengers move through their own packets, which cannot be resynchronised this way
+        return entity instanceof LivingEntity && !(entity instanceof Player) && !entity.isPassenger() && !entity.isVehicle();
+    }
+
+    /**
+     * Returns the tier of a viewer at the squared distance, for the tier distances in increasing order.
+     */
+    public static int getTier(final double distanceSquared, final List<Integer> distances) {
+        int tier = 0;
+        for (int i = 0, len = Math.min(distances.size(), MAX_TIERS - 1); i < len; ++i) {
+            final double distance = (double)distances.get(i).intValue();
+            if (distanceSquared < distance * distance) {
+                break;
+            }
+            ++tier;
+        }
+        return tier;
+    }
+
+    public static boolean isUpdateFor(final int tier, final int movementUpdate) {
+        return (movementUpdate & ((1 << tier) - 1)) == 0;
+    }
+
+    public static void recordSent(final int tier, final int packets) {
+        SENT[tier].add((long)packets);
+    }
+
+    public static void recordSkipped(final int tier, final int packets) {
+        SKIPPED[tier].add((long)packets);
+    }
+
+    public static void recordResynced(final int tier, final int packets) {
+        RESYNCED[tier].add((long)packets);
+    }
+
+    private EntityTrackingTiers() {}
+}
@@ -0,0 +1,61 @@
+package io.papermc.paper.network;
+
+import io.papermc.paper.configuration.GlobalConfiguration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import net.minecraft.network.protocol.BundlePacket;
+import net.minecraft.network.protocol.Packet;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A packet sent to several connections at once, such as the updates of an entity sent to every player tracking it.
+ * <p>
+ * The first connection writing the packet encodes and compresses it into a frame, which connections with the same protocol,
+ * compression threshold and locale then write as is, so that only encryption is left to be done per connection.
+ * Connections synchronise on this object while looking up or creating a frame.
+ * </p>
+ */
+public final class BroadcastPacket {
+
+    private final Packet<?> packet;
+    // usually there is a single frame, so a list is fine
+    private final List<Frame> frames = new ArrayList<>(1);
+
+    private BroadcastPacket(final Packet<?> packet) {
+        this.packet = packet;
+    }
+
+    /**
+     * Returns the broadcast to send the packet to the recipients with, or {@code null} if the packet should be encoded
+     * by every connection on its own.
+     */
+    public static @Nullable BroadcastPacket create(final Packet<?> packet, final int recipients) {
+        // bundles are split into their packets after encoding
+        if (recipients < 2 || packet instanceof BundlePacket<?> || !GlobalConfiguration.get().misc.encodeBroadcastsOnce) {
+            return null;
+        }
+        return new BroadcastPacket(packet);
+    }
+
+    public Packet<?> getPacket() {
+        return this.packet;
+    }
+
+    public byte @Nullable [] getFrame(final Object protocol, final int compressionThreshold, final @Nullable Locale locale) {
+        for (int i = 0, len = this.frames.size(); i < len; ++i) {
+            final Frame frame = this.frames.get(i);
+            if (frame.protocol == protocol && frame.compressionThreshold == compressionThreshold && Objects.equals(frame.locale, locale)) {
+                return frame.data;
+            }
+        }
+        return null;
+    }
+
+    public void addFrame(final Object protocol, final int compressionThreshold, final @Nullable Locale locale, final byte[] data) {
+        this.frames.add(new Frame(protocol, compressionThreshold, locale, data));
+    }
+
+    private static record Frame(Object protocol, int compressionThreshold, @Nullable Locale locale, byte[] data) {}
+}
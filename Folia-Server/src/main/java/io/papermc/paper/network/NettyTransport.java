@@ -0,0 +1,63 @@
+package io.papermc.paper.network;
+
+import com.mojang.logging.LogUtils;
+import io.netty.channel.epoll.Epoll;
+import io.netty.incubator.channel.uring.IOUring;
+import java.net.SocketAddress;
+import org.slf4j.Logger;
+
+/**
+ * The Netty transport used by the server channels.
+ * <p>
+ * Transports which are not available on this platform fall back to the next one: io_uring to epoll, epoll to NIO.
+ * io_uring requires Linux 5.9 or newer and does not support unix domain sockets.
+ * </p>
+ */
+public enum NettyTransport {
+
+    /**
+     * epoll if {@code use-native-transport} is enabled in the server.properties, NIO otherwise.
+     */
+    DEFAULT,
+    IO_URING,
+    EPOLL,
+    NIO;
+
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    /**
+     * Returns the transport to bind the address with.
+     *
+     * @param configured The configured transport.
+     * @param nativeTransportEnabled Whether {@code use-native-transport} is enabled in the server.properties.
+     * @param address The address to bind.
+     */
+    public static NettyTransport select(final NettyTransport configured, final boolean nativeTransportEnabled, final SocketAddress address) {
+        switch (configured) {
+            case IO_URING: {
+                if (address instanceof io.netty.channel.unix.DomainSocketAddress) {
+                    LOGGER.warn("io_uring does not support unix domain sockets, falling back to epoll");
+                    return select(EPOLL, nativeTransportEnabled, address);
+                }
+                if (!IOUring.isAvailable()) {
+                    LOGGER.warn("io_uring is not available, falling back to epoll", IOUring.unavailabilityCause());
+                    return select(EPOLL, nativeTransportEnabled, address);
+                }
+                return IO_URING;
+            }
+            case EPOLL: {
+                if (!Epoll.isAvailable()) {
+                    LOGGER.warn("epoll is not available, falling back to NIO", Epoll.unavailabilityCause());
+                    return NIO;
+                }
+                return EPOLL;
+            }
+            case NIO: {
+                return NIO;
+            }
+            default: {
+                return nativeTransportEnabled && Epoll.isAvailable() ? EPOLL : NIO;
+            }
+        }
+    }
+}
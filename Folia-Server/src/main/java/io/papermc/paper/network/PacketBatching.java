@@ -0,0 +1,62 @@
+package io.papermc.paper.network;
+
+import io.papermc.paper.configuration.GlobalConfiguration;
+import java.util.concurrent.atomic.LongAdder;
+import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.common.ClientboundDisconnectPacket;
+import net.minecraft.network.protocol.common.ClientboundKeepAlivePacket;
+import net.minecraft.network.protocol.common.ClientboundPingPacket;
+import net.minecraft.network.protocol.game.ClientboundPlayerPositionPacket;
+
+/**
+ * Statistics and configuration for batched connection flushes.
+ * <p>
+ * Packets sent to a player from the region owning it are written to its channel without flushing it. That region
+ * flushes every connection with pending packets after ticking its connections and at the end of its tick, so that the
+ * packets of a tick leave with a single gathering write instead of one write per packet. Latency sensitive packets, such as
+ * keep alives and teleports, packets with a send listener and packets sent from any other thread are still flushed immediately.
+ * </p>
+ */
+public final class PacketBatching {
+
+    private static final LongAdder BATCHED_FLUSHES = new LongAdder();
+    private static final LongAdder BATCHED_PACKETS = new LongAdder();
+    private static final LongAdder BATCHED_BYTES = new LongAdder();
+    private static final LongAdder IMMEDIATE_FLUSHES = new LongAdder();
+
+    public static record Statistics(long batchedFlushes, long batchedPackets, long batchedBytes, long immediateFlushes) {
+
+        public double getAveragePacketsPerFlush() {
+            return this.batchedFlushes == 0L ? 0.0 : (double)this.batchedPackets / (double)this.batchedFlushes;
+        }
+
+        public double getAverageBytesPerFlush() {
+            return this.batchedFlushes == 0L ? 0.0 : (double)this.batchedBytes / (double)this.batchedFlushes;
+        }
+    }
+
+    public static Statistics getStatistics() {
+        return new Statistics(BATCHED_FLUSHES.sum(), BATCHED_PACKETS.sum(), BATCHED_BYTES.sum(), IMMEDIATE_FLUSHES.sum());
+    }
+
+    public static boolean isEnabled() {
+        return GlobalConfiguration.get().misc.batchConnectionFlushes;
+    }
+
+    public static boolean isLatencySensitive(final Packet<?> packet) {
+        return packet instanceof ClientboundKeepAlivePacket || packet instanceof ClientboundPingPacket
+            || packet instanceof ClientboundPlayerPositionPacket || packet instanceof ClientboundDisconnectPacket;
+    }
+
+    public static void recordBatchedFlush(final int packets, final long bytes) {
+        BATCHED_FLUSHES.increment();
+        BATCHED_PACKETS.add((long)packets);
+        BATCHED_BYTES.add(bytes);
+    }
+
+    public static void recordImmediateFlush() {
+        IMMEDIATE_FLUSHES.increment();
+    }
+
+    private PacketBatching() {}
+}
@@ -6,15 +6,19 @@ import ca.spottedleaf.concurrentutil.map.SWMRLong2ObjectHashTable;
 import ca.spottedleaf.concurrentutil.util.ConcurrentUtil;
 import io.papermc.paper.chunk.system.scheduling.ChunkHolderManager;
 import io.papermc.paper.util.CoordinateUtils;
+import it.unimi.dsi.fastutil.longs.Long2ReferenceMap;
 import it.unimi.dsi.fastutil.longs.Long2ReferenceOpenHashMap;
 import it.unimi.dsi.fastutil.objects.Reference2ReferenceMap;
 import it.unimi.dsi.fastutil.objects.Reference2ReferenceOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.TicketType;
 import net.minecraft.util.Unit;
 import java.lang.invoke.VarHandle;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -66,6 +70,33 @@ public final class RegionizedTaskQueue {
         return ret;
     }
 
+    /**
+     * Queues all of the provided tasks. The tasks must have been created by one of the {@code create} methods
+     * on this class for the specified world.
+     * <p>
+     * This is equivalent to invoking {@link PrioritisedExecutor.PrioritisedTask#queue()} on each task, except that
+     * the ticket reference count is acquired once per section and the task queue of a region is locked once for each
+     * run of consecutive tasks belonging to it, which is considerably cheaper when queueing many tasks at once. Tasks
+     * should therefore be grouped by region where possible.
+     * </p>
+     * <p>
+     * The order tasks with the same priority are executed in for the same region is the order they appear in the
+     * provided array.
+     * </p>
+     * @return The number of tasks queued, which excludes tasks that were already queued or were cancelled.
+     */
+    public int queueTasks(final ServerLevel world, final PrioritisedExecutor.PrioritisedTask[] tasks) {
+        final PrioritisedQueue.ChunkBasedPriorityTask[] casted = new PrioritisedQueue.ChunkBasedPriorityTask[tasks.length];
+        for (int i = 0; i < tasks.length; ++i) {
+            if (!(tasks[i] instanceof PrioritisedQueue.ChunkBasedPriorityTask task) || task.world != world.taskQueueRegionData) {
+                throw new IllegalArgumentException("Task " + tasks[i] + " does not belong to the task queue of world " + world.getWorld().getName());
+            }
+            casted[i] = task;
+        }
+
+        return world.taskQueueRegionData.queueTasks(casted);
+    }
+
     public static final class WorldRegionTaskData {
         private final ServerLevel world;
         private final MultiThreadedQueue<Runnable> globalChunkTask = new MultiThreadedQueue<>();
@@ -141,6 +172,10 @@ public final class RegionizedTaskQueue {
         }
 
         private AtomicLong incrementReference(final long coord) {
+            return this.incrementReference(coord, 1L);
+        }
+
+        private AtomicLong incrementReference(final long coord, final long count) {
             final io.papermc.paper.chunk.system.io.RegionFileIOThread.ChunkCoordinate key = new io.papermc.paper.chunk.system.io.RegionFileIOThread.ChunkCoordinate(coord); // Folia - use area based lock to reduce contention
             final AtomicLong ret = this.referenceCounters.get(key); // Folia - use area based lock to reduce contention
             if (ret != null) {
@@ -156,7 +191,7 @@ public final class RegionizedTaskQueue {
                         ConcurrentUtil.backoff();
                     }
 
-                    if (curr == (curr = ret.compareAndExchange(curr, curr + 1L))) {
+                    if (curr == (curr = ret.compareAndExchange(curr, curr + count))) {
                         return ret;
                     }
 
@@ -171,7 +206,7 @@ public final class RegionizedTaskQueue {
             final AtomicLong ret2;
             final boolean processTicketUpdates;
             try {
-                final AtomicLong replace = new AtomicLong(1L);
+                final AtomicLong replace = new AtomicLong(count);
                 final AtomicLong valueInMap = this.referenceCounters.putIfAbsent(key, replace); // Folia - use area based lock to reduce contention
                 if (valueInMap == null) {
                     // replaced, we should usually be here
@@ -195,7 +230,7 @@ public final class RegionizedTaskQueue {
                             ConcurrentUtil.backoff();
                         }
 
-                        if (curr == (curr = valueInMap.compareAndExchange(curr, curr + 1L))) {
+                        if (curr == (curr = valueInMap.compareAndExchange(curr, curr + count))) {
                             // acquired
                             ret2 = valueInMap;
                             break;
@@ -214,6 +249,114 @@ public final class RegionizedTaskQueue {
 
             return ret2;
         }
+
+        private int queueTasks(final PrioritisedQueue.ChunkBasedPriorityTask[] tasks) {
+            // group by section, so that we acquire the reference count (and the ticket) once per section
+            final Long2ReferenceOpenHashMap<ArrayList<PrioritisedQueue.ChunkBasedPriorityTask>> bySection = new Long2ReferenceOpenHashMap<>();
+            for (final PrioritisedQueue.ChunkBasedPriorityTask task : tasks) {
+                if (task.getReferenceCounterVolatile() != PrioritisedQueue.ChunkBasedPriorityTask.REFERENCE_COUNTER_NOT_SET) {
+                    // already queued or cancelled
+                    continue;
+                }
+                bySection.computeIfAbsent(task.sectionLowerLeftCoord, (final long keyInMap) -> {
+                    return new ArrayList<>();
+                }).add(task);
+            }
+
+            final ReferenceOpenHashSet<PrioritisedQueue.ChunkBasedPriorityTask> acquired = new ReferenceOpenHashSet<>(tasks.length);
+            for (final Iterator<Long2ReferenceMap.Entry<ArrayList<PrioritisedQueue.ChunkBasedPriorityTask>>> iterator = bySection.long2ReferenceEntrySet().fastIterator();
+                 iterator.hasNext();) {
+                final Long2ReferenceMap.Entry<ArrayList<PrioritisedQueue.ChunkBasedPriorityTask>> entry = iterator.next();
+                final long coord = entry.getLongKey();
+                final ArrayList<PrioritisedQueue.ChunkBasedPriorityTask> sectionTasks = entry.getValue();
+
+                final AtomicLong referenceCounter = this.incrementReference(coord, (long)sectionTasks.size());
+                for (int i = 0, len = sectionTasks.size(); i < len; ++i) {
+                    final PrioritisedQueue.ChunkBasedPriorityTask task = sectionTasks.get(i);
+                    if (task.compareAndExchangeReferenceCounter(PrioritisedQueue.ChunkBasedPriorityTask.REFERENCE_COUNTER_NOT_SET, referenceCounter) != PrioritisedQueue.ChunkBasedPriorityTask.REFERENCE_COUNTER_NOT_SET) {
+                        // queued or cancelled by another thread, see ChunkBasedPriorityTask#queue
+                        this.decrementReference(referenceCounter, coord);
+                        continue;
+                    }
+                    acquired.add(task);
+                }
+            }
+
+            // push runs of consecutive tasks with the same target queue under one lock, in the given order. this keeps
+            // the result identical to queueing the tasks one by one, even if a lookup fails or regions merge or split
+            // concurrently: pushing by queue instead could move tasks of a destroyed queue behind later tasks
+            // the lookups are only cached per section, as regions cannot change within a section
+            final Long2ReferenceOpenHashMap<PrioritisedQueue> chunkQueueBySection = new Long2ReferenceOpenHashMap<>();
+            final Long2ReferenceOpenHashMap<PrioritisedQueue> tickQueueBySection = new Long2ReferenceOpenHashMap<>();
+            final ArrayList<PrioritisedQueue.ChunkBasedPriorityTask> run = new ArrayList<>();
+            PrioritisedQueue runQueue = null;
+            int queued = 0;
+            for (final PrioritisedQueue.ChunkBasedPriorityTask task : tasks) {
+                if (!acquired.remove(task)) {
+                    // not acquired by us, or a duplicate
+                    continue;
+                }
+                final Long2ReferenceOpenHashMap<PrioritisedQueue> queueBySection = task.isChunkTask ? chunkQueueBySection : tickQueueBySection;
+                PrioritisedQueue queue = queueBySection.get(task.sectionLowerLeftCoord);
+                if (queue == null) {
+                    queue = this.getQueue(false, task.chunkX, task.chunkZ, task.isChunkTask);
+                    if (queue != null) {
+                        queueBySection.put(task.sectionLowerLeftCoord, queue);
+                    }
+                }
+                if (queue == runQueue && queue != null) {
+                    run.add(task);
+                    continue;
+                }
+
+                final int pushed = this.pushRun(runQueue, run);
+                run.clear();
+                if (pushed < 0) {
+                    // the regions changed, so the other cached lookups may be stale as well
+                    chunkQueueBySection.clear();
+                    tickQueueBySection.clear();
+                    queue = null;
+                }
+                queued += pushed < 0 ? -(pushed + 1) : pushed;
+
+                if (queue == null) {
+                    // may be incorrectly null when unsynchronised
+                    runQueue = null;
+                    if (task.pushToQueue(true)) {
+                        ++queued;
+                    }
+                    continue;
+                }
+                runQueue = queue;
+                run.add(task);
+            }
+            final int pushed = this.pushRun(runQueue, run);
+            queued += pushed < 0 ? -(pushed + 1) : pushed;
+
+            return queued;
+        }
+
+        /**
+         * returns the number of tasks queued, or {@code -(queued + 1)} if the queue was destroyed and the tasks were
+         * queued through the slow path instead
+         */
+        private int pushRun(final PrioritisedQueue queue, final ArrayList<PrioritisedQueue.ChunkBasedPriorityTask> run) {
+            if (run.isEmpty()) {
+                return 0;
+            }
+            final int pushed = queue.tryPushAll(run);
+            if (pushed >= 0) {
+                return pushed;
+            }
+            // queue was destroyed by a merge or split, so the tasks need to find their new queue
+            int queued = 0;
+            for (int i = 0, len = run.size(); i < len; ++i) {
+                if (run.get(i).pushToQueue(true)) {
+                    ++queued;
+                }
+            }
+            return -(queued + 1);
+        }
     }
 
     public static final class RegionTaskQueueData {
@@ -405,6 +548,30 @@ public final class RegionizedTaskQueue {
             }
         }
 
+        /**
+         * returns -1 if this task queue is dead, otherwise returns the number of tasks added. Tasks which
+         * could not be added were cancelled.
+         */
+        private int tryPushAll(final List<ChunkBasedPriorityTask> tasks) {
+            final ArrayDeque<ChunkBasedPriorityTask>[] queues = this.queues;
+            synchronized (this) {
+                if (this.isDestroyed) {
+                    return -1;
+                }
+                int ret = 0;
+                for (int i = 0, len = tasks.size(); i < len; ++i) {
+                    final ChunkBasedPriorityTask task = tasks.get(i);
+                    final PrioritisedExecutor.Priority priority = task.getPriority();
+                    if (priority == PrioritisedExecutor.Priority.COMPLETING) {
+                        continue;
+                    }
+                    queues[priority.priority].addLast(task);
+                    ++ret;
+                }
+                return ret;
+            }
+        }
+
         private boolean executeTask() {
             final ArrayDeque<ChunkBasedPriorityTask>[] queues = this.queues;
             final int max = PrioritisedExecutor.Priority.IDLE.priority;
@@ -559,11 +726,15 @@ public final class RegionizedTaskQueue {
                     return false;
                 }
 
-                boolean synchronise = false;
+                return this.pushToQueue(false);
+            }
+
+            // must only be invoked once the reference counter has been set
+            private boolean pushToQueue(boolean synchronise) {
                 for (;;) {
                     // we need to synchronise for repeated operations so that we guarantee that we do not retrieve
-                    // the same queue again, as the region lock will be given to us only when the merge/split operation
-                    // is done
+                    // the same queue again, as the synchronised lookup will not return a section's old region once
+                    // its queue has been destroyed by the merge/split operation
                     final PrioritisedQueue queue = this.world.getQueue(synchronise, this.chunkX, this.chunkZ, this.isChunkTask);
 
                     if (queue == null) {
@@ -646,8 +817,8 @@ public final class RegionizedTaskQueue {
                     }
 
                     // we need to synchronise for repeated operations so that we guarantee that we do not retrieve
-                    // the same queue again, as the region lock will be given to us only when the merge/split operation
-                    // is done
+                    // the same queue again, as the synchronised lookup will not return a section's old region once
+                    // its queue has been destroyed by the merge/split operation
                     final PrioritisedQueue queue = this.world.getQueue(synchronise, this.chunkX, this.chunkZ, this.isChunkTask);
 
                     if (queue == null) {
@@ -535,8 +535,17 @@ public final class RegionizedWorldData {
                 continue;
             }
         }
+        this.flushConnections(); // Folia - tick-end connection flush
     }
 
+    // Folia start - tick-end connection flush
+    public void flushConnections() {
+        for (int i = 0, len = this.connections.size(); i < len; ++i) {
+            this.connections.get(i).flushBatched();
+        }
+    }
+    // Folia end - tick-end connection flush
+
     // entities hooks
     public int getEntityCount() {
         return this.allEntities.size();
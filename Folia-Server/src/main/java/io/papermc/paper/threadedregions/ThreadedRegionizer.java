@@ -5,6 +5,7 @@ import ca.spottedleaf.concurrentutil.util.ConcurrentUtil;
 import com.destroystokyo.paper.util.SneakyThrow;
 import com.mojang.logging.LogUtils;
 import io.papermc.paper.util.CoordinateUtils;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
 import it.unimi.dsi.fastutil.longs.Long2ReferenceOpenHashMap;
 import it.unimi.dsi.fastutil.longs.LongArrayList;
 import it.unimi.dsi.fastutil.longs.LongComparator;
@@ -30,6 +31,9 @@ public final class ThreadedRegionizer<R extends ThreadedRegionizer.ThreadedRegio
 
     private static final Logger LOGGER = LogUtils.getLogger();
 
+    // number of times a lookup will spin waiting for a section to be assigned a region before acquiring the read lock
+    private static final int MAX_LOOKUP_SPIN_FAILURES = 16;
+
     public final int regionSectionChunkSize;
     public final int sectionChunkShift;
     public final int minSectionRecalcCount;
@@ -237,23 +241,39 @@ public final class ThreadedRegionizer<R extends ThreadedRegionizer.ThreadedRegio
         return section == null ? null : section.getRegion();
     }
 
+    /**
+     * Returns the region owning the specified chunk's section, without blocking on the region lock in the common case.
+     * <p>
+     * Unlike {@link #getRegionAtUnsynchronised(int, int)}, this never returns {@code null} for a section which exists
+     * but is in the middle of being moved between regions. The returned region may be concurrently merged or split,
+     * but the section to region mapping is always updated before the old region's data is merged or split. So, once the
+     * caller observes that the region's data was merged or split (i.e a destroyed task queue), a subsequent call
+     * is guaranteed to return a different region.
+     * </p>
+     */
     public ThreadedRegion<R, S> getRegionAtSynchronised(final int chunkX, final int chunkZ) {
         final int sectionX = chunkX >> this.sectionChunkShift;
         final int sectionZ = chunkZ >> this.sectionChunkShift;
         final long sectionKey = CoordinateUtils.getChunkKey(sectionX, sectionZ);
 
-        // try an optimistic read
-        {
-            final long readAttempt = this.regionLock.tryOptimisticRead();
-            final ThreadedRegionSection<R, S> optimisticSection = this.sections.get(sectionKey);
-            final ThreadedRegion<R, S> optimisticRet =
-                optimisticSection == null ? null : optimisticSection.getRegionPlain();
-            if (this.regionLock.validate(readAttempt)) {
-                return optimisticRet;
+        // the section map is a SWMR table and the section's region is written with release semantics, so we only
+        // need to retry while the section is between regions, which only happens while a writer holds the lock
+        for (int failures = 0; failures < MAX_LOOKUP_SPIN_FAILURES; ++failures) {
+            final ThreadedRegionSection<R, S> section = this.sections.get(sectionKey);
+            if (section == null) {
+                return null;
+            }
+            final ThreadedRegion<R, S> region = section.getRegionAcquire();
+            if (region != null) {
+                return region;
+            }
+
+            for (int i = 0; i < failures; ++i) {
+                ConcurrentUtil.backoff();
             }
         }
 
-        // failed, fall back to acquiring the lock
+        // the writer is taking a while, fall back to acquiring the lock
         this.regionLock.readLock();
         try {
             final ThreadedRegionSection<R, S> section = this.sections.get(sectionKey);
@@ -529,8 +549,11 @@ public final class ThreadedRegionizer<R extends ThreadedRegionizer.ThreadedRegio
 
         // now check whether we need to recalculate regions
         final boolean removeDeadSections = hasExpectingMerges || region.hasNoAliveSections()
-            || (region.sectionByKey.size() >= this.minSectionRecalcCount && region.getDeadSectionPercent() >= this.maxDeadRegionPercent);
+            || (region.sectionByKey.size() >= this.minSectionRecalcCount && region.getDeadSectionPercent() >= this.maxDeadRegionPercent)
+            // an overloaded region should split as soon as it is disconnected, rather than waiting for the threshold
+            || (!region.deadSections.isEmpty() && region.data != null && region.data.shouldRecalculateSections());
         final boolean removedDeadSections = removeDeadSections && !region.deadSections.isEmpty();
+        final List<ThreadedRegionSection<R, S>> removedSections = removedDeadSections ? new ArrayList<>(region.deadSections) : null;
         if (removeDeadSections) {
             // kill dead sections
             for (final ThreadedRegionSection<R, S> deadSection : region.deadSections) {
@@ -564,19 +587,83 @@ public final class ThreadedRegionizer<R extends ThreadedRegionizer.ThreadedRegio
             return;
         }
 
-        // first, we need to build copy of coordinate->section map of all sections in recalculate
-        final Long2ReferenceOpenHashMap<ThreadedRegionSection<R, S>> recalculateSections = region.sectionByKey.clone();
-
-        if (recalculateSections.isEmpty()) {
+        if (region.sectionByKey.isEmpty()) {
             // looks like the region's sections were all dead, and now there is no region at all
             region.state = ThreadedRegion.STATE_DEAD;
             region.onRemove(true);
             return;
         }
 
-        // merge radius is max, since recalculateSections includes the dead or empty sections
+        // merge radius is max, since the region's sections include the dead or empty sections
         final int mergeRadius = Math.max(this.regionSectionMergeRadius, this.emptySectionCreateRadius);
 
+        // A region which did not merge during this release was connected when it was last released, as sections
+        // are only ever added to a region when they are adjacent to it. So, only the removed sections may have
+        // disconnected it, and we only need to search from their neighbours.
+        final List<List<ThreadedRegionSection<R, S>>> newRegions = hasExpectingMerges
+            ? this.findConnectedSections(region, mergeRadius)
+            : this.findConnectedSectionsAfterRemoval(region, removedSections, mergeRadius);
+
+        // now we have split the regions into separate parts, we can split recalculate
+
+        if (newRegions == null || newRegions.size() == 1) {
+            // no need to split anything, we're done here
+            region.state = ThreadedRegion.STATE_READY;
+            if (!region.expectingMergeFrom.isEmpty() || !region.mergeIntoLater.isEmpty()) {
+                throw new IllegalStateException("Illegal state " + region);
+            }
+            return;
+        }
+
+        final List<ThreadedRegion<R, S>> newRegionObjects = new ArrayList<>(newRegions.size());
+        for (int i = 0, len = newRegions.size(); i < len; ++i) {
+            newRegionObjects.add(new ThreadedRegion<>(this));
+        }
+
+        this.callbacks.preSplit(region, newRegionObjects);
+
+        // need to split the region, so we need to kill the old one first
+        region.state = ThreadedRegion.STATE_DEAD;
+        region.onRemove(true);
+
+        // create new regions
+        final Long2ReferenceOpenHashMap<ThreadedRegion<R, S>> newRegionsMap = new Long2ReferenceOpenHashMap<>();
+        final ReferenceOpenHashSet<ThreadedRegion<R, S>> newRegionsSet = new ReferenceOpenHashSet<>(newRegionObjects);
+
+        for (int i = 0, len = newRegions.size(); i < len; i++) {
+            final List<ThreadedRegionSection<R, S>> sections = newRegions.get(i);
+            final ThreadedRegion<R, S> newRegion = newRegionObjects.get(i);
+
+            for (final ThreadedRegionSection<R, S> section : sections) {
+                section.setRegionRelease(null);
+                newRegion.addSection(section);
+                final ThreadedRegion<R, S> curr = newRegionsMap.putIfAbsent(section.sectionKey, newRegion);
+                if (curr != null) {
+                    throw new IllegalStateException("Expected no region at " + section + ", but got " + curr + ", should have put " + newRegion);
+                }
+            }
+        }
+
+        region.split(newRegionsMap, newRegionsSet);
+
+        // only after invoking data callbacks
+
+        for (final ThreadedRegion<R, S> newRegion : newRegionsSet) {
+            newRegion.state = ThreadedRegion.STATE_READY;
+            if (!newRegion.expectingMergeFrom.isEmpty() || !newRegion.mergeIntoLater.isEmpty()) {
+                throw new IllegalStateException("Illegal state " + newRegion);
+            }
+            newRegion.onCreate();
+            this.callbacks.onRegionActive(newRegion);
+        }
+    }
+
+    // must hold regionLock
+    // returns the connected components of all sections in the region
+    private List<List<ThreadedRegionSection<R, S>>> findConnectedSections(final ThreadedRegion<R, S> region, final int mergeRadius) {
+        // first, we need to build copy of coordinate->section map of all sections in recalculate
+        final Long2ReferenceOpenHashMap<ThreadedRegionSection<R, S>> recalculateSections = region.sectionByKey.clone();
+
         final List<List<ThreadedRegionSection<R, S>>> newRegions = new ArrayList<>();
         while (!recalculateSections.isEmpty()) {
             // select any section, then BFS around it to find all of its neighbours to form a region
@@ -617,58 +704,161 @@ public final class ThreadedRegionizer<R extends ThreadedRegionizer.ThreadedRegio
             newRegions.add(currRegion);
         }
 
-        // now we have split the regions into separate parts, we can split recalculate
+        return newRegions;
+    }
 
-        if (newRegions.size() == 1) {
-            // no need to split anything, we're done here
-            region.state = ThreadedRegion.STATE_READY;
-            if (!region.expectingMergeFrom.isEmpty() || !region.mergeIntoLater.isEmpty()) {
-                throw new IllegalStateException("Illegal state " + region);
+    // must hold regionLock
+    // returns the connected components of the region's sections, given that the region was connected before the
+    // specified sections were removed from it, or null if the region is still connected
+    private List<List<ThreadedRegionSection<R, S>>> findConnectedSectionsAfterRemoval(final ThreadedRegion<R, S> region,
+                                                                                       final List<ThreadedRegionSection<R, S>> removed,
+                                                                                       final int mergeRadius) {
+        // Any path between two remaining sections that went through a removed section must enter and leave it
+        // through one of the removed section's remaining neighbours. So, the region is still connected iff all of
+        // those neighbours are connected to each other.
+        // To determine this, we run one BFS per neighbour in lockstep and union searches which meet. Once at most one
+        // search has not exhausted its component, the exhausted searches are exactly the parts which split off, and
+        // the remaining search is the rest of the region. The work done is proportional to the size of the parts
+        // split off (multiplied by the number of searches), rather than the size of the region.
+        final Long2ReferenceOpenHashMap<ThreadedRegionSection<R, S>> sections = region.sectionByKey;
+
+        final List<ThreadedRegionSection<R, S>> seeds = new ArrayList<>();
+        final Long2IntOpenHashMap searchByKey = new Long2IntOpenHashMap();
+        searchByKey.defaultReturnValue(-1);
+        for (final ThreadedRegionSection<R, S> removedSection : removed) {
+            for (int dz = -mergeRadius; dz <= mergeRadius; ++dz) {
+                for (int dx = -mergeRadius; dx <= mergeRadius; ++dx) {
+                    final long key = CoordinateUtils.getChunkKey(dx + removedSection.sectionX, dz + removedSection.sectionZ);
+                    final ThreadedRegionSection<R, S> section = sections.get(key);
+                    if (section == null || searchByKey.containsKey(key)) {
+                        continue;
+                    }
+                    searchByKey.put(key, seeds.size());
+                    seeds.add(section);
+                }
             }
-            return;
         }
 
-        final List<ThreadedRegion<R, S>> newRegionObjects = new ArrayList<>(newRegions.size());
-        for (int i = 0, len = newRegions.size(); i < len; ++i) {
-            newRegionObjects.add(new ThreadedRegion<>(this));
-        }
+        if (seeds.size() <= 1) {
+            // the removed sections were only connected to at most one remaining section, so nothing can be disconnected
+            return null;
+        }
+
+        final int searchCount = seeds.size();
+        // union-find over searches, the root owns the merged queue and the merged set of found sections
+        final int[] parent = new int[searchCount];
+        final List<List<ThreadedRegionSection<R, S>>> queues = new ArrayList<>(searchCount);
+        final List<List<ThreadedRegionSection<R, S>>> found = new ArrayList<>(searchCount);
+        final int[] queueIndex = new int[searchCount];
+        final boolean[] exhausted = new boolean[searchCount];
+        int activeSearches = searchCount;
+        for (int i = 0; i < searchCount; ++i) {
+            parent[i] = i;
+            final List<ThreadedRegionSection<R, S>> queue = new ArrayList<>();
+            queue.add(seeds.get(i));
+            queues.add(queue);
+            final List<ThreadedRegionSection<R, S>> foundSections = new ArrayList<>();
+            foundSections.add(seeds.get(i));
+            found.add(foundSections);
+        }
+
+        while (activeSearches > 1) {
+            for (int search = 0; search < searchCount && activeSearches > 1; ++search) {
+                if (parent[search] != search || exhausted[search]) {
+                    // merged into another search or complete
+                    continue;
+                }
 
-        this.callbacks.preSplit(region, newRegionObjects);
+                final List<ThreadedRegionSection<R, S>> queue = queues.get(search);
+                final List<ThreadedRegionSection<R, S>> foundSections = found.get(search);
+                if (queueIndex[search] >= queue.size()) {
+                    exhausted[search] = true;
+                    --activeSearches;
+                    continue;
+                }
 
-        // need to split the region, so we need to kill the old one first
-        region.state = ThreadedRegion.STATE_DEAD;
-        region.onRemove(true);
+                final ThreadedRegionSection<R, S> curr = queue.get(queueIndex[search]++);
+                for (int dz = -mergeRadius; dz <= mergeRadius; ++dz) {
+                    for (int dx = -mergeRadius; dx <= mergeRadius; ++dx) {
+                        if ((dx | dz) == 0) {
+                            continue;
+                        }
+                        final long key = CoordinateUtils.getChunkKey(dx + curr.sectionX, dz + curr.sectionZ);
+                        final ThreadedRegionSection<R, S> section = sections.get(key);
+                        if (section == null) {
+                            continue;
+                        }
 
-        // create new regions
-        final Long2ReferenceOpenHashMap<ThreadedRegion<R, S>> newRegionsMap = new Long2ReferenceOpenHashMap<>();
-        final ReferenceOpenHashSet<ThreadedRegion<R, S>> newRegionsSet = new ReferenceOpenHashSet<>(newRegionObjects);
+                        final int owner = searchByKey.get(key);
+                        if (owner == -1) {
+                            searchByKey.put(key, search);
+                            queue.add(section);
+                            foundSections.add(section);
+                            continue;
+                        }
 
-        for (int i = 0, len = newRegions.size(); i < len; i++) {
-            final List<ThreadedRegionSection<R, S>> sections = newRegions.get(i);
-            final ThreadedRegion<R, S> newRegion = newRegionObjects.get(i);
+                        final int ownerRoot = findRoot(parent, owner);
+                        if (ownerRoot == search) {
+                            continue;
+                        }
 
-            for (final ThreadedRegionSection<R, S> section : sections) {
-                section.setRegionRelease(null);
-                newRegion.addSection(section);
-                final ThreadedRegion<R, S> curr = newRegionsMap.putIfAbsent(section.sectionKey, newRegion);
-                if (curr != null) {
-                    throw new IllegalStateException("Expected no region at " + section + ", but got " + curr + ", should have put " + newRegion);
+                        // the searches met, so they are the same component: fold the other search into this one
+                        // note: the other search cannot be exhausted, as it would have found this section
+                        parent[ownerRoot] = search;
+                        final List<ThreadedRegionSection<R, S>> ownerQueue = queues.get(ownerRoot);
+                        queue.addAll(ownerQueue.subList(queueIndex[ownerRoot], ownerQueue.size()));
+                        foundSections.addAll(found.get(ownerRoot));
+                        queues.set(ownerRoot, null);
+                        found.set(ownerRoot, null);
+                        --activeSearches;
+                    }
                 }
             }
         }
 
-        region.split(newRegionsMap, newRegionsSet);
+        // collect the exhausted searches, which are complete components
+        // note: the search loop never marks the last active search as exhausted
+        final List<List<ThreadedRegionSection<R, S>>> ret = new ArrayList<>();
+        int remainingSearch = -1;
+        for (int search = 0; search < searchCount; ++search) {
+            if (parent[search] != search) {
+                continue;
+            }
+            if (!exhausted[search]) {
+                if (remainingSearch != -1) {
+                    throw new IllegalStateException("Multiple active searches remain for region " + region);
+                }
+                remainingSearch = search;
+                continue;
+            }
+            ret.add(found.get(search));
+        }
 
-        // only after invoking data callbacks
+        if (ret.isEmpty()) {
+            // all searches met: nothing was disconnected
+            return null;
+        }
 
-        for (final ThreadedRegion<R, S> newRegion : newRegionsSet) {
-            newRegion.state = ThreadedRegion.STATE_READY;
-            if (!newRegion.expectingMergeFrom.isEmpty() || !newRegion.mergeIntoLater.isEmpty()) {
-                throw new IllegalStateException("Illegal state " + newRegion);
+        // the rest of the region is the component of the remaining search
+        final List<ThreadedRegionSection<R, S>> rest = new ArrayList<>(sections.size());
+        for (final ThreadedRegionSection<R, S> section : sections.values()) {
+            final int owner = searchByKey.get(section.sectionKey);
+            if (owner == -1 || findRoot(parent, owner) == remainingSearch) {
+                rest.add(section);
             }
-            newRegion.onCreate();
-            this.callbacks.onRegionActive(newRegion);
         }
+        ret.add(rest);
+
+        return ret;
+    }
+
+    private static int findRoot(final int[] parent, int search) {
+        while (parent[search] != search) {
+            // path halving
+            parent[search] = parent[parent[search]];
+            search = parent[search];
+        }
+        return search;
     }
 
     public static final class ThreadedRegion<R extends ThreadedRegionData<R, S>, S extends ThreadedRegionSectionData> {
@@ -1276,6 +1466,22 @@ public final class ThreadedRegionizer<R extends ThreadedRegionizer.ThreadedRegio
          * @param into Specified region.
          */
         public void mergeInto(final ThreadedRegion<R, S> into);
+
+        /**
+         * Returns whether the regioniser should remove the dead sections of this region and check whether it
+         * can be split when it is next released from ticking, regardless of the regioniser's dead section thresholds.
+         * <p>
+         * <b>Note:</b>
+         * </p>
+         * <p>
+         * This function is always called while holding critical locks and as such should not attempt to block on anything, and
+         * should NOT retrieve or modify ANY world state.
+         * </p>
+         * @return {@code true} to force section recalculation on release.
+         */
+        public default boolean shouldRecalculateSections() {
+            return false;
+        }
     }
 
     public static interface ThreadedRegionSectionData {}
@@ -14,6 +14,7 @@ import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BooleanSupplier;
 
 public final class TickRegionScheduler {
@@ -32,10 +33,28 @@ public final class TickRegionScheduler {
 
     public static final int TICK_RATE = 20;
     public static final long TIME_BETWEEN_TICKS = 1_000_000_000L / TICK_RATE; // ns
+    // a tick starting this late was not just woken up late, it had to wait for a tick thread
+    private static final long LATE_TICK_START = TimeUnit.MILLISECONDS.toNanos(2L);
+    // how long the tick threads are considered saturated after a tick started late
+    private static final long SATURATION_WINDOW = TimeUnit.SECONDS.toNanos(1L);
 
     private final SchedulerThreadPool scheduler;
+    private volatile BudgetPolicy budgetPolicy = BudgetPolicy.DISABLED;
+    // sum of the weights of all scheduled regions, only maintained while budgeting is enabled
+    private final AtomicLong totalBudgetWeight = new AtomicLong();
+    // last time a tick started late because no tick thread was free to run it, only maintained while budgeting is enabled
+    private volatile long lastLateTickStart = SchedulerThreadPool.DEADLINE_NOT_SET;
 
     public TickRegionScheduler(final int threads) {
+        this(threads, SchedulerThreadPool.SchedulingMode.GLOBAL_QUEUE);
+    }
+
+    public TickRegionScheduler(final int threads, final SchedulerThreadPool.SchedulingMode mode) {
+        this(threads, mode, SchedulerThreadPool.AffinityPolicy.NONE);
+    }
+
+    public TickRegionScheduler(final int threads, final SchedulerThreadPool.SchedulingMode mode,
+                               final SchedulerThreadPool.AffinityPolicy affinity) {
         this.scheduler = new SchedulerThreadPool(threads, new ThreadFactory() {
             private final AtomicInteger idGenerator = new AtomicInteger();
 
@@ -45,13 +64,47 @@ public final class TickRegionScheduler {
                 ret.setUncaughtExceptionHandler(TickRegionScheduler.this::uncaughtException);
                 return ret;
             }
-        });
+        }, mode, affinity);
     }
 
     public int getTotalThreadCount() {
         return this.scheduler.getThreads().length;
     }
 
+    public SchedulerThreadPool.SchedulerStats getSchedulerStats() {
+        return this.scheduler.getStats();
+    }
+
+    public BudgetPolicy getBudgetPolicy() {
+        return this.budgetPolicy;
+    }
+
+    public void setBudgetPolicy(final BudgetPolicy policy) {
+        this.budgetPolicy = policy == null ? BudgetPolicy.DISABLED : policy;
+    }
+
+    /**
+     * Returns whether the tick threads have recently been unable to start a tick on time, that is, whether
+     * some region was recently behind schedule because every tick thread was busy.
+     */
+    public boolean isSaturated(final long now) {
+        final long lastLateTickStart = this.lastLateTickStart;
+        return lastLateTickStart != SchedulerThreadPool.DEADLINE_NOT_SET && now - lastLateTickStart <= SATURATION_WINDOW;
+    }
+
+    /**
+     * Returns whether the current ticking region is over its tick budget while the tick threads are saturated, and
+     * should skip optional work for this tick, such as random ticks, natural spawning and pathfinding refreshes.
+     * Returns {@code false} if budgeting is disabled or if there is no ticking region.
+     */
+    public static boolean shouldSkipOptionalWork() {
+        final Thread currThread = Thread.currentThread();
+        if (!(currThread instanceof TickThreadRunner tickThreadRunner)) {
+            return false;
+        }
+        return tickThreadRunner.currentTickingTask instanceof RegionScheduleHandle handle && handle.degraded;
+    }
+
     private static void setTickingRegion(final ThreadedRegionizer.ThreadedRegion<TickRegions.TickRegionData, TickRegions.TickRegionSectionData> region) {
         final Thread currThread = Thread.currentThread();
         if (!(currThread instanceof TickThreadRunner tickThreadRunner)) {
@@ -155,6 +208,8 @@ public final class TickRegionScheduler {
         // To avoid acquiring any of the locks the scheduler may be using, we
         // simply cancel the next action.
         region.markNonSchedulable();
+        // must be done after cancelling, see RegionScheduleHandle#updateTickBudget
+        region.releaseBudgetWeight();
     }
 
     /**
@@ -208,6 +263,26 @@ public final class TickRegionScheduler {
         MinecraftServer.getServer().stopServer();
     }
 
+    /**
+     * Describes how the tick threads' time is shared between regions. Each region is given a weight of
+     * {@code baseWeight + playerWeight * players}, and its tick budget is its share of the total weight of all
+     * scheduled regions multiplied by the time all tick threads have per tick, capped at {@link #TIME_BETWEEN_TICKS}.
+     * <p>
+     * The budget is only enforced while the tick threads are saturated (see {@link #isSaturated(long)}), so that
+     * time other regions do not need is left to the busy ones. While saturated, a region whose average tick length
+     * exceeds its budget skips optional work (see {@link #shouldSkipOptionalWork()}), and a region that overruns
+     * its budget has its next tick delayed by the overrun instead of being allowed to tick back-to-back.
+     * </p>
+     */
+    public static record BudgetPolicy(boolean enabled, long baseWeight, long playerWeight) {
+
+        public static final BudgetPolicy DISABLED = new BudgetPolicy(false, 1L, 0L);
+
+        public long getWeight(final int players) {
+            return Math.max(1L, this.baseWeight + this.playerWeight * (long)players);
+        }
+    }
+
     // By using our own thread object, we can use a field for the current region rather than a ThreadLocal.
     // This is much faster than a thread local, since the thread local has to use a map lookup.
     private static final class TickThreadRunner extends TickThread {
@@ -226,6 +301,8 @@ public final class TickRegionScheduler {
 
     public static abstract class RegionScheduleHandle extends SchedulerThreadPool.SchedulableTick {
 
+        private static final double TICK_LENGTH_AVERAGE_WEIGHT = 1.0 / (double)TICK_RATE;
+
         protected long currentTick;
         protected long lastTickStart;
 
@@ -236,6 +313,18 @@ public final class TickRegionScheduler {
         protected final TickData tickTimes15m;
         protected TickTime currentTickData;
         protected Thread currentTickingThread;
+        // exponential moving average of tick length, in ns
+        private volatile double averageTickLength;
+
+        // this region's contribution to the scheduler's total budget weight
+        private final AtomicLong budgetWeight = new AtomicLong();
+        // budget for the current tick, only written by the ticking thread
+        private volatile long tickBudget = TIME_BETWEEN_TICKS;
+        // whether optional work is skipped for the current tick, only accessed by the ticking thread
+        private boolean degraded;
+        // only written by the ticking thread
+        private volatile long budgetOverruns;
+        private volatile long degradedTicks;
 
         public final TickRegions.TickRegionData region;
         private final AtomicBoolean cancelled = new AtomicBoolean();
@@ -390,6 +479,16 @@ public final class TickRegionScheduler {
             final long scheduledStart = this.getScheduledStart();
             final long scheduledEnd = scheduledStart + TIME_BETWEEN_TICKS;
 
+            final BudgetPolicy budgetPolicy = this.scheduler.budgetPolicy;
+            final boolean budgeted = budgetPolicy.enabled() && this.region != null;
+            if (budgetPolicy.enabled() && tickStart - scheduledStart > LATE_TICK_START) {
+                this.scheduler.lastLateTickStart = tickStart;
+            }
+            if (budgeted) {
+                this.updateTickBudget(budgetPolicy);
+                this.degraded = this.averageTickLength > (double)this.tickBudget && this.scheduler.isSaturated(tickStart);
+            }
+
             synchronized (this) {
                 this.currentTickData = new TickTime(
                     lastTickStart, scheduledStart, tickStart, cpuStart,
@@ -417,7 +516,22 @@ public final class TickRegionScheduler {
                 // that exceed the max tick time are not always prioritised over everything else. Thus, we use the greatest
                 // of the current time and "ideal" next tick start.
                 this.tickSchedule.advanceBy(tickCount, TIME_BETWEEN_TICKS);
-                this.setScheduledStart(TimeUtil.getGreatestTime(tickEnd, this.tickSchedule.getDeadline(TIME_BETWEEN_TICKS)));
+                long nextStart = TimeUtil.getGreatestTime(tickEnd, this.tickSchedule.getDeadline(TIME_BETWEEN_TICKS));
+                if (budgeted) {
+                    final long overrun = (tickEnd - tickStart) - this.tickBudget;
+                    if (overrun > 0L) {
+                        ++this.budgetOverruns;
+                        // only yield while other regions are waiting for a tick thread, otherwise nothing else needs the time
+                        if (this.tickBudget < TIME_BETWEEN_TICKS && this.scheduler.isSaturated(tickEnd)) {
+                            nextStart = TimeUtil.getGreatestTime(nextStart, tickEnd + overrun);
+                        }
+                    }
+                }
+                if (this.degraded) {
+                    ++this.degradedTicks;
+                    this.degraded = false;
+                }
+                this.setScheduledStart(nextStart);
 
                 final TickTime time = new TickTime(
                     lastTickStart, scheduledStart, tickStart, cpuStart, tickEnd, cpuEnd, MEASURE_CPU_TIME, true
@@ -446,9 +560,60 @@ public final class TickRegionScheduler {
                 this.tickTimes1m.addDataFrom(time);
                 this.tickTimes5m.addDataFrom(time);
                 this.tickTimes15m.addDataFrom(time);
+                if (time.isTickExecution()) {
+                    this.averageTickLength += ((double)time.tickLength() - this.averageTickLength) * TICK_LENGTH_AVERAGE_WEIGHT;
+                }
             }
         }
 
+        private void updateTickBudget(final BudgetPolicy policy) {
+            final long weight = policy.getWeight(this.region.getRegionStats().getPlayerCount());
+            final long totalWeight = this.scheduler.totalBudgetWeight.addAndGet(weight - this.budgetWeight.getAndSet(weight));
+            if (this.cancelled.get()) {
+                // descheduleRegion may have released the weight before we set it
+                this.releaseBudgetWeight();
+            }
+
+            final long capacity = TIME_BETWEEN_TICKS * (long)this.scheduler.getTotalThreadCount();
+            this.tickBudget = Math.min(TIME_BETWEEN_TICKS, (long)((double)capacity * ((double)weight / (double)Math.max(weight, totalWeight))));
+        }
+
+        private void releaseBudgetWeight() {
+            final long weight = this.budgetWeight.getAndSet(0L);
+            if (weight != 0L) {
+                this.scheduler.totalBudgetWeight.addAndGet(-weight);
+            }
+        }
+
+        /**
+         * Returns the tick budget of this region, in ns, as of its last tick.
+         */
+        public final long getTickBudget() {
+            return this.tickBudget;
+        }
+
+        /**
+         * Returns the number of ticks of this region which took longer than the region's tick budget.
+         */
+        public final long getBudgetOverruns() {
+            return this.budgetOverruns;
+        }
+
+        /**
+         * Returns the number of ticks of this region which skipped optional work due to being over budget.
+         */
+        public final long getDegradedTicks() {
+            return this.degradedTicks;
+        }
+
+        /**
+         * Returns an exponential moving average of the tick length of this region, weighted towards roughly the last
+         * second of ticks. Unlike the tick reports, this is cheap enough to query every tick.
+         */
+        public final double getAverageTickLength() {
+            return this.averageTickLength;
+        }
+
         private TickTime adjustCurrentTickData(final long tickEnd) {
             final TickTime currentTickData = this.currentTickData;
             if (currentTickData == null) {
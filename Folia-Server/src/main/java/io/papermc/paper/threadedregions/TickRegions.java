@@ -29,6 +29,7 @@ public final class TickRegions implements ThreadedRegionizer.RegionCallbacks<Tic
 
     private static boolean initialised;
     private static TickRegionScheduler scheduler;
+    private static long overloadedTickLength = -1L;
 
     public static TickRegionScheduler getScheduler() {
         return scheduler;
@@ -52,8 +53,20 @@ public final class TickRegions implements ThreadedRegionizer.RegionCallbacks<Tic
             tickThreads = config.threads;
         }
 
-        scheduler = new TickRegionScheduler(tickThreads);
-        LOGGER.info("Regionised ticking is enabled with " + tickThreads + " tick threads");
+        final long affinitySlack = (long)(Math.max(0.0, config.affinitySlack) * 1.0E6);
+        final int[] runnerGroups = config.stealGroups > 1 ? SchedulerThreadPool.AffinityPolicy.evenGroups(tickThreads, config.stealGroups) : null;
+        final SchedulerThreadPool.AffinityPolicy affinity = new SchedulerThreadPool.AffinityPolicy(
+            affinitySlack,
+            runnerGroups == null ? affinitySlack : Math.max(affinitySlack, (long)(config.crossGroupAffinitySlack * 1.0E6)),
+            runnerGroups
+        );
+
+        scheduler = new TickRegionScheduler(tickThreads, config.schedulerMode, affinity);
+        scheduler.setBudgetPolicy(new TickRegionScheduler.BudgetPolicy(
+            config.budgetedTicking, Math.max(0, config.regionWeight), Math.max(0, config.playerWeight)
+        ));
+        overloadedTickLength = config.overloadedRegionMspt <= 0.0 ? -1L : (long)(config.overloadedRegionMspt * 1.0E6);
+        LOGGER.info("Regionised ticking is enabled with " + tickThreads + " tick threads using " + config.schedulerMode + " scheduling" + (config.budgetedTicking ? " and budgeted ticking" : ""));
     }
 
     @Override
@@ -179,6 +192,9 @@ public final class TickRegions implements ThreadedRegionizer.RegionCallbacks<Tic
 
         public volatile ca.spottedleaf.leafprofiler.RegionizedProfiler.Handle profiler; // Folia - profiler
 
+        // tick at which an overloaded region last forced a section recalculation
+        private long lastOverloadRecalculateTick = Long.MIN_VALUE;
+
         private TickRegionData(final ThreadedRegionizer.ThreadedRegion<TickRegionData, TickRegionSectionData> region) {
             this.region = region;
             this.world = region.regioniser.world;
@@ -292,6 +308,23 @@ public final class TickRegions implements ThreadedRegionizer.RegionCallbacks<Tic
             this.taskQueueData.split(regioniser, into);
         }
 
+        @Override
+        public boolean shouldRecalculateSections() {
+            // note: only invoked when releasing this region, so the tick handle is not scheduled
+            if (overloadedTickLength < 0L || this.tickHandle.getAverageTickLength() < (double)overloadedTickLength) {
+                return false;
+            }
+
+            // the recalculation is proportional to the region size, so limit it to once per second
+            final long currentTick = this.getCurrentTick();
+            if (this.lastOverloadRecalculateTick != Long.MIN_VALUE
+                && (currentTick - this.lastOverloadRecalculateTick) < (long)TickRegionScheduler.TICK_RATE) {
+                return false;
+            }
+            this.lastOverloadRecalculateTick = currentTick;
+            return true;
+        }
+
         @Override
         public void mergeInto(final ThreadedRegionizer.ThreadedRegion<TickRegionData, TickRegionSectionData> into) {
             // Note: merge target is always a region being released from ticking
@@ -120,8 +120,14 @@ public final class CommandServerHealth extends Command {
                 formatRegionInfo("1m: ", util1m, mspt1m, tps1m, true)
             )
             .append(
-                formatRegionStats(region.getData().getRegionStats(), false)
+                formatRegionStats(region.getData().getRegionStats(), true)
             )
+            .append(Component.text("线程迁移: ", PRIMARY))
+            .append(Component.text(NO_DECIMAL_PLACES.get().format(region.getData().getRegionSchedulingHandle().getMigrationCount()), INFORMATION))
+            .append(Component.text(", 预算超支: ", PRIMARY))
+            .append(Component.text(NO_DECIMAL_PLACES.get().format(region.getData().getRegionSchedulingHandle().getBudgetOverruns()), INFORMATION))
+            .append(Component.text(", 降级刻: ", PRIMARY))
+            .append(Component.text(NO_DECIMAL_PLACES.get().format(region.getData().getRegionSchedulingHandle().getDegradedTicks()), INFORMATION))
 
             .build();
 
@@ -159,12 +165,37 @@ public final class CommandServerHealth extends Command {
         final DoubleArrayList tpsByRegion = new DoubleArrayList();
         final List<TickData.TickReportData> reportsByRegion = new ArrayList<>();
         final int maxThreadCount = TickRegions.getScheduler().getTotalThreadCount();
+        final ca.spottedleaf.concurrentutil.scheduler.SchedulerThreadPool.SchedulerStats schedulerStats = TickRegions.getScheduler().getSchedulerStats();
+        final io.papermc.paper.network.PacketBatching.Statistics batchingStats = io.papermc.paper.network.PacketBatching.getStatistics(); // Folia - tick-end connection flush
+        // Folia start - distance tiered entity tracking
+        final io.papermc.paper.entity.EntityTrackingTiers.Statistics trackingTierStats = io.papermc.paper.entity.EntityTrackingTiers.getStatistics();
+        final StringBuilder trackingTiers = new StringBuilder();
+        for (int i = 0; i < io.papermc.paper.entity.EntityTrackingTiers.MAX_TIERS; ++i) {
+            final long sent = trackingTierStats.sent()[i];
+            final long skipped = trackingTierStats.skipped()[i];
+            final long resynced = trackingTierStats.resynced()[i];
+            if ((sent | skipped | resynced) == 0L) {
+                continue;
+            }
+            if (!trackingTiers.isEmpty()) {
+                trackingTiers.append(", ");
+            }
+            trackingTiers.append('#').append(i).append(' ').append(NO_DECIMAL_PLACES.get().format(sent))
+                .append('/').append(NO_DECIMAL_PLACES.get().format(skipped))
+                .append('/').append(NO_DECIMAL_PLACES.get().format(resynced));
+        }
+        // Folia end - distance tiered entity tracking
+
+        long budgetOverruns = 0L;
+        long degradedTicks = 0L;
 
         final long currTime = System.nanoTime();
         final TickData.TickReportData globalTickReport = RegionizedServer.getGlobalTickData().getTickReport15s(currTime);
 
         for (final ThreadedRegionizer.ThreadedRegion<TickRegions.TickRegionData, TickRegions.TickRegionSectionData> region : regions) {
             final TickData.TickReportData report = region.getData().getRegionSchedulingHandle().getTickReport15s(currTime);
+            budgetOverruns += region.getData().getRegionSchedulingHandle().getBudgetOverruns();
+            degradedTicks += region.getData().getRegionSchedulingHandle().getDegradedTicks();
             tpsByRegion.add(report == null ? 20.0 : report.tpsData().segmentAll().average());
             reportsByRegion.add(report);
             totalUtil += (report == null ? 0.0 : report.utilisation());
@@ -293,6 +324,38 @@ public final class CommandServerHealth extends Command {
                 .append(Component.text("发电率: ", PRIMARY))
                 .append(Component.text(TWO_DECIMAL_PLACES.get().format(genRate) + "\n", INFORMATION))
 
+                .append(Component.text(" - ", LIST, TextDecoration.BOLD))
+                .append(Component.text("调度: ", PRIMARY))
+                .append(Component.text(schedulerStats.mode().toString(), INFORMATION))
+                .append(Component.text(", 窃取: ", PRIMARY))
+                .append(Component.text(NO_DECIMAL_PLACES.get().format(schedulerStats.stolenTicks()), INFORMATION))
+                .append(Component.text(", 线程迁移: ", PRIMARY))
+                .append(Component.text(NO_DECIMAL_PLACES.get().format(schedulerStats.migrations()) + "\n", INFORMATION))
+
+                .append(Component.text(" - ", LIST, TextDecoration.BOLD))
+                .append(Component.text("预算超支: ", PRIMARY))
+                .append(Component.text(NO_DECIMAL_PLACES.get().format(budgetOverruns), INFORMATION))
+                .append(Component.text(", 降级刻: ", PRIMARY))
+                .append(Component.text(NO_DECIMAL_PLACES.get().format(degradedTicks) + "\n", INFORMATION))
+
+                // Folia start - tick-end connection flush
+                .append(Component.text(" - ", LIST, TextDecoration.BOLD))
+                .append(Component.text("批量刷新: ", PRIMARY))
+                .append(Component.text(NO_DECIMAL_PLACES.get().format(batchingStats.batchedFlushes()), INFORMATION))
+                .append(Component.text(", 包/刷新: ", PRIMARY))
+                .append(Component.text(ONE_DECIMAL_PLACES.get().format(batchingStats.getAveragePacketsPerFlush()), INFORMATION))
+                .append(Component.text(", 字节/刷新: ", PRIMARY))
+                .append(Component.text(NO_DECIMAL_PLACES.get().format(batchingStats.getAverageBytesPerFlush()), INFORMATION))
+                .append(Component.text(", 立即刷新: ", PRIMARY))
+                .append(Component.text(NO_DECIMAL_PLACES.get().format(batchingStats.immediateFlushes()) + "\n", INFORMATION))
+                // Folia end - tick-end connection flush
+
+                // Folia start - distance tiered entity tracking
+                .append(Component.text(" - ", LIST, TextDecoration.BOLD))
+                .append(Component.text("分层追踪 (发送/跳过/重同步): ", PRIMARY))
+                .append(Component.text((trackingTiers.isEmpty() ? "无" : trackingTiers.toString()) + "\n", INFORMATION))
+                // Folia end - distance tiered entity tracking
+
                 .append(Component.text(" - ", LIST, TextDecoration.BOLD))
                 .append(Component.text("最低TPS区域 : ", PRIMARY))
                 .append(Component.text(TWO_DECIMAL_PLACES.get().format(minTps) + "\n", CommandUtil.getColourForTPS(minTps)))
@@ -71,6 +71,29 @@ public final class FoliaRegionScheduler implements RegionScheduler {
         );
     }
 
+    @Override
+    public void executeAll(final Plugin plugin, final World world, final int[] chunkX, final int[] chunkZ, final Runnable[] run) {
+        Validate.notNull(plugin, "Plugin may not be null");
+        Validate.notNull(world, "World may not be null");
+        Validate.notNull(chunkX, "Chunk X coordinates may not be null");
+        Validate.notNull(chunkZ, "Chunk Z coordinates may not be null");
+        Validate.notNull(run, "Runnables may not be null");
+        if (chunkX.length != run.length || chunkZ.length != run.length) {
+            throw new IllegalArgumentException("Coordinate and task arrays must be of the same length");
+        }
+
+        final ServerLevel handle = ((CraftWorld) world).getHandle();
+        final io.papermc.paper.threadedregions.RegionizedTaskQueue taskQueue = RegionizedServer.getInstance().taskQueue;
+        final ca.spottedleaf.concurrentutil.executor.standard.PrioritisedExecutor.PrioritisedTask[] tasks
+            = new ca.spottedleaf.concurrentutil.executor.standard.PrioritisedExecutor.PrioritisedTask[run.length];
+        for (int i = 0; i < run.length; ++i) {
+            Validate.notNull(run[i], "Runnable may not be null");
+            tasks[i] = taskQueue.createTickTaskQueue(handle, chunkX[i], chunkZ[i], wrap(plugin, world, chunkX[i], chunkZ[i], run[i]));
+        }
+
+        taskQueue.queueTasks(handle, tasks);
+    }
+
     @Override
     public ScheduledTask run(final Plugin plugin, final World world, final int chunkX, final int chunkZ, final Consumer<ScheduledTask> task) {
         return this.runDelayed(plugin, world, chunkX, chunkZ, task, 1);
@@ -0,0 +1,197 @@
+package io.papermc.paper.world;
+
+import com.github.luben.zstd.ZstdDictTrainer;
+import io.papermc.paper.chunk.system.io.ZstdDictionaryCache;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.chunk.storage.RegionFile;
+import net.minecraft.world.level.chunk.storage.RegionFileStorage;
+import net.minecraft.world.level.chunk.storage.RegionFileVersion;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Offline helpers for region compression: sampling real chunk data, training the zstd dictionary
+ * and benchmarking the available {@link RegionFileVersion}s against each other.
+ */
+public final class RegionFileCompression {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    // default dictionary size used by the zstd cli
+    private static final int DICTIONARY_SIZE = 110 * 1024;
+    private static final int MAX_SAMPLE_BYTES = 64 * 1024 * 1024;
+    private static final int MAX_SAMPLES = 8192;
+    private static final int SAMPLES_PER_REGION = 64;
+
+    /**
+     * Reads the uncompressed data of up to {@link #MAX_SAMPLES} chunks, spread over the given regionfiles.
+     */
+    public static List<byte[]> sampleChunks(final Path regionFolder, final File[] regionFiles) {
+        final List<byte[]> ret = new ArrayList<>();
+        long totalBytes = 0L;
+
+        final int regionStride = Math.max(1, regionFiles.length / Math.max(1, MAX_SAMPLES / SAMPLES_PER_REGION));
+        for (int fileIndex = 0; fileIndex < regionFiles.length; fileIndex += regionStride) {
+            final File file = regionFiles[fileIndex];
+            final ChunkPos regionPos = RegionFileStorage.getRegionFileCoordinates(file.toPath());
+            if (regionPos == null) {
+                continue;
+            }
+
+            try (final RegionFile regionFile = new RegionFile(file.toPath(), regionFolder, false)) {
+                int sampled = 0;
+                // prime stride, so that the samples are not all taken from the same rows
+                for (int i = 0; i < 32 * 32 && sampled < SAMPLES_PER_REGION; ++i) {
+                    final int index = (i * 97) & (32 * 32 - 1);
+                    final ChunkPos chunkPos = new ChunkPos(regionPos.x + (index & 31), regionPos.z + (index >>> 5));
+                    try (final DataInputStream in = regionFile.getChunkDataInputStream(chunkPos)) {
+                        if (in == null) {
+                            continue;
+                        }
+                        final byte[] data = in.readAllBytes();
+                        ret.add(data);
+                        ++sampled;
+                        totalBytes += data.length;
+                    }
+
+                    if (ret.size() >= MAX_SAMPLES || totalBytes >= MAX_SAMPLE_BYTES) {
+                        return ret;
+                    }
+                }
+            } catch (final IOException ex) {
+                LOGGER.error("Failed to sample chunks from regionfile " + file.getAbsolutePath(), ex);
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Trains a zstd dictionary from the given samples and stores it beside the regionfiles. Existing
+     * dictionaries are never replaced, as chunks written with them would become unreadable.
+     */
+    public static boolean trainDictionary(final String worldName, final Path regionFolder, final List<byte[]> samples) {
+        if (ZstdDictionaryCache.getDictionary(regionFolder) != null) {
+            LOGGER.warn("World " + worldName + " already has a zstd dictionary, not replacing it");
+            return false;
+        }
+        if (samples.isEmpty()) {
+            LOGGER.warn("No chunks to train a zstd dictionary with for world " + worldName);
+            return false;
+        }
+
+        long totalBytes = 0L;
+        for (final byte[] sample : samples) {
+            totalBytes += sample.length;
+        }
+
+        final ZstdDictTrainer trainer = new ZstdDictTrainer((int)Math.min((long)MAX_SAMPLE_BYTES, totalBytes), DICTIONARY_SIZE);
+        for (final byte[] sample : samples) {
+            if (!trainer.addSample(sample)) {
+                break;
+            }
+        }
+
+        try {
+            final byte[] dictionary = trainer.trainSamples();
+            ZstdDictionaryCache.writeDictionary(regionFolder, dictionary);
+            LOGGER.info("Trained zstd dictionary ({} bytes) for world {} from {} chunks", dictionary.length, worldName, samples.size());
+            return true;
+        } catch (final Exception ex) {
+            LOGGER.error("Failed to train zstd dictionary for world " + worldName, ex);
+            return false;
+        }
+    }
+
+    /**
+     * Compresses and decompresses every sample with each available compression type and logs the throughput
+     * and resulting size. Sizes are of the compressed chunk data only, without regionfile sector padding.
+     */
+    public static void benchmark(final String worldName, final Path regionFolder, final List<byte[]> samples) {
+        if (samples.isEmpty()) {
+            LOGGER.warn("No chunks to benchmark region compression with for world " + worldName);
+            return;
+        }
+
+        long rawBytes = 0L;
+        for (final byte[] sample : samples) {
+            rawBytes += sample.length;
+        }
+
+        final List<RegionFileVersion> versions = new ArrayList<>();
+        versions.add(RegionFileVersion.VERSION_DEFLATE);
+        versions.add(RegionFileVersion.VERSION_GZIP);
+        versions.add(RegionFileVersion.VERSION_LZ4);
+        versions.add(RegionFileVersion.VERSION_ZSTD);
+        if (ZstdDictionaryCache.getDictionary(regionFolder) != null) {
+            versions.add(RegionFileVersion.VERSION_ZSTD_DICTIONARY);
+        }
+
+        final DecimalFormat format = new DecimalFormat("#0.00");
+        LOGGER.info("Benchmarking region compression for world {} with {} chunks ({} MiB uncompressed)",
+            worldName, samples.size(), format.format((double)rawBytes / (1024.0 * 1024.0)));
+
+        for (final RegionFileVersion version : versions) {
+            try {
+                // first pass warms up the codec
+                runPass(version, regionFolder, samples);
+                final BenchmarkResult result = runPass(version, regionFolder, samples);
+
+                LOGGER.info("  id {}: ratio {}%, compress {} MiB/s, decompress {} MiB/s",
+                    version.getId(),
+                    format.format((double)result.compressedBytes / (double)rawBytes * 100.0),
+                    format.format(toMiBPerSecond(rawBytes, result.compressTime)),
+                    format.format(toMiBPerSecond(rawBytes, result.decompressTime))
+                );
+            } catch (final IOException ex) {
+                LOGGER.error("Failed to benchmark compression id " + version.getId(), ex);
+            }
+        }
+    }
+
+    private static double toMiBPerSecond(final long bytes, final long nanos) {
+        return ((double)bytes / (1024.0 * 1024.0)) / ((double)Math.max(1L, nanos) * 1.0E-9);
+    }
+
+    private static record BenchmarkResult(long compressedBytes, long compressTime, long decompressTime) {}
+
+    private static BenchmarkResult runPass(final RegionFileVersion version, final Path regionFolder, final List<byte[]> samples) throws IOException {
+        final byte[][] compressed = new byte[samples.size()][];
+        long compressedBytes = 0L;
+
+        final long compressStart = System.nanoTime();
+        for (int i = 0, len = samples.size(); i < len; ++i) {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (final OutputStream out = version.wrap(bytes, regionFolder)) {
+                out.write(samples.get(i));
+            }
+            compressed[i] = bytes.toByteArray();
+            compressedBytes += compressed[i].length;
+        }
+        final long compressEnd = System.nanoTime();
+
+        final byte[] buffer = new byte[8192];
+        final long decompressStart = System.nanoTime();
+        for (final byte[] data : compressed) {
+            try (final InputStream in = version.wrap(new ByteArrayInputStream(data), regionFolder)) {
+                while (in.read(buffer) >= 0);
+            }
+        }
+        final long decompressEnd = System.nanoTime();
+
+        return new BenchmarkResult(compressedBytes, compressEnd - compressStart, decompressEnd - decompressStart);
+    }
+
+    private RegionFileCompression() {}
+}
@@ -10,6 +10,7 @@ import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.level.chunk.ChunkGenerator;
 import net.minecraft.world.level.chunk.storage.ChunkStorage;
+import net.minecraft.world.level.chunk.storage.RegionFile;
 import net.minecraft.world.level.chunk.storage.RegionFileStorage;
 import net.minecraft.world.level.dimension.DimensionType;
 import net.minecraft.world.level.dimension.LevelStem;
@@ -40,20 +41,54 @@ public class ThreadedWorldUpgrader {
     private final DataFixer dataFixer;
     private final Optional<ResourceKey<Codec<? extends ChunkGenerator>>> generatorKey;
     private final boolean removeCaches;
+    private final CompressionOptions compressionOptions; // Folia - region recompression
+
+    // Folia start - region recompression
+    public static record CompressionOptions(boolean recompress, boolean trainDictionary, boolean benchmark, boolean compact) { // Folia - regionfile compaction
+
+        public static final CompressionOptions NONE = new CompressionOptions(false, false, false, false); // Folia - regionfile compaction
+
+        public static CompressionOptions fromOptions(final joptsimple.OptionSet options) {
+            return new CompressionOptions(
+                options.has("recompressRegionFiles"), options.has("trainZstdDictionary"), options.has("benchmarkRegionCompression"),
+                options.has("compactRegionFiles") // Folia - regionfile compaction
+            );
+        }
+
+        public boolean any() {
+            return this.recompress || this.trainDictionary || this.benchmark || this.compact; // Folia - regionfile compaction
+        }
+    }
 
     public ThreadedWorldUpgrader(final ResourceKey<LevelStem> dimensionType, final String worldName, final File worldDir, final int threads,
                                  final DataFixer dataFixer, final Optional<ResourceKey<Codec<? extends ChunkGenerator>>> generatorKey, final boolean removeCaches) {
+        this(dimensionType, worldName, worldDir, threads, dataFixer, generatorKey, removeCaches, CompressionOptions.NONE);
+    }
+    // Folia end - region recompression
+
+    public ThreadedWorldUpgrader(final ResourceKey<LevelStem> dimensionType, final String worldName, final File worldDir, final int threads,
+                                 final DataFixer dataFixer, final Optional<ResourceKey<Codec<? extends ChunkGenerator>>> generatorKey, final boolean removeCaches,
+                                 final CompressionOptions compressionOptions) { // Folia - region recompression
         this.dimensionType = dimensionType;
         this.worldName = worldName;
         this.worldDir = worldDir;
-        this.threadPool = Executors.newFixedThreadPool(Math.max(1, threads), new ThreadFactory() {
+        this.threadPool = createThreadPool(worldName, threads); // Folia - regionfile compaction - moved to createThreadPool
+        this.dataFixer = dataFixer;
+        this.generatorKey = generatorKey;
+        this.removeCaches = removeCaches;
+        this.compressionOptions = compressionOptions; // Folia - region recompression
+    }
+
+    // Folia start - regionfile compaction
+    private static ExecutorService createThreadPool(final String worldName, final int threads) {
+        return Executors.newFixedThreadPool(Math.max(1, threads), new ThreadFactory() {
             private final AtomicInteger threadCounter = new AtomicInteger();
 
             @Override
             public Thread newThread(final Runnable run) {
                 final Thread ret = new Thread(run);
 
-                ret.setName("World upgrader thread for world " + ThreadedWorldUpgrader.this.worldName + " #" + this.threadCounter.getAndIncrement());
+                ret.setName("World upgrader thread for world " + worldName + " #" + this.threadCounter.getAndIncrement());
                 ret.setUncaughtExceptionHandler((thread, throwable) -> {
                     LOGGER.fatal("Error upgrading world", throwable);
                 });
@@ -61,11 +96,92 @@ public class ThreadedWorldUpgrader {
                 return ret;
             }
         });
-        this.dataFixer = dataFixer;
-        this.generatorKey = generatorKey;
-        this.removeCaches = removeCaches;
     }
 
+    public static final class CompactionStatistics {
+
+        public final AtomicLong regionFiles = new AtomicLong();
+        public final AtomicLong chunks = new AtomicLong();
+        public final AtomicLong foldedExternalChunks = new AtomicLong();
+        public final AtomicLong failedRegionFiles = new AtomicLong();
+        public final AtomicLong sizeBefore = new AtomicLong();
+        public final AtomicLong sizeAfter = new AtomicLong();
+
+        private void add(final RegionFile.CompactionResult result) {
+            if (result == null) {
+                return;
+            }
+            this.regionFiles.getAndIncrement();
+            this.chunks.getAndAdd((long)result.chunks());
+            this.foldedExternalChunks.getAndAdd((long)result.foldedExternalChunks());
+            this.sizeBefore.getAndAdd(result.sizeBefore());
+            this.sizeAfter.getAndAdd(result.sizeAfter());
+        }
+
+        public String describe() {
+            final DecimalFormat format = new DecimalFormat("#0.00");
+            return this.regionFiles.get() + " regionfiles (" + this.chunks.get() + " chunks, " + this.foldedExternalChunks.get()
+                + " external chunks folded back) went from " + format.format((double)this.sizeBefore.get() / (1024.0 * 1024.0))
+                + " MiB to " + format.format((double)this.sizeAfter.get() / (1024.0 * 1024.0)) + " MiB"
+                + (this.failedRegionFiles.get() == 0L ? "" : ", " + this.failedRegionFiles.get() + " regionfiles failed to compact");
+        }
+    }
+
+    private static File[] listRegionFiles(final File folder) {
+        final File[] ret = folder.listFiles((final File dir, final String name) -> {
+            return WorldUpgrader.REGEX.matcher(name).matches();
+        });
+        return ret == null ? new File[0] : ret;
+    }
+
+    private static void compact(final RegionFileStorage storage, final File file, final CompactionStatistics statistics) {
+        final ChunkPos regionPos = RegionFileStorage.getRegionFileCoordinates(file.toPath());
+        if (regionPos == null) {
+            return;
+        }
+        try {
+            statistics.add(storage.compactRegionFile(regionPos.x >> 5, regionPos.z >> 5));
+        } catch (final Exception ex) {
+            statistics.failedRegionFiles.getAndIncrement();
+            LOGGER.error("Failed to compact regionfile " + file.getAbsolutePath(), ex);
+        }
+    }
+
+    private static void compactUnopened(final File file, final CompactionStatistics statistics) {
+        try {
+            statistics.add(RegionFile.compact(file.toPath(), file.getParentFile().toPath()));
+        } catch (final Exception ex) {
+            statistics.failedRegionFiles.getAndIncrement();
+            LOGGER.error("Failed to compact regionfile " + file.getAbsolutePath(), ex);
+        }
+    }
+
+    /**
+     * Compacts every regionfile of the specified storages on a new upgrader thread pool. The storages may be in use,
+     * each regionfile is unavailable only while it is compacted.
+     */
+    public static java.util.concurrent.CompletableFuture<CompactionStatistics> compactRegionFiles(final String worldName, final java.util.List<RegionFileStorage> storages,
+                                                                                                   final int threads) {
+        final ExecutorService threadPool = createThreadPool(worldName, threads);
+        final CompactionStatistics statistics = new CompactionStatistics();
+
+        final java.util.List<java.util.concurrent.CompletableFuture<Void>> tasks = new java.util.ArrayList<>();
+        for (final RegionFileStorage storage : storages) {
+            for (final File file : listRegionFiles(storage.getFolder().toFile())) {
+                tasks.add(java.util.concurrent.CompletableFuture.runAsync(() -> {
+                    compact(storage, file, statistics);
+                }, threadPool));
+            }
+        }
+        threadPool.shutdown();
+
+        return java.util.concurrent.CompletableFuture.allOf(tasks.toArray(new java.util.concurrent.CompletableFuture[0]))
+            .thenApply((final Void ignore) -> {
+                return statistics;
+            });
+    }
+    // Folia end - regionfile compaction
+
     public void convert() {
         final File worldFolder = LevelStorageSource.getStorageFolder(this.worldDir.toPath(), this.dimensionType).toFile();
         final DimensionDataStorage worldPersistentData = new DimensionDataStorage(new File(worldFolder, "data"), this.dataFixer);
@@ -82,10 +198,31 @@ public class ThreadedWorldUpgrader {
             return;
         }
         LOGGER.info("Found " + regionFiles.length + " regionfiles to convert");
+
+        // Folia start - region recompression
+        // must run before any regionfile is opened by the chunk storage, as they pick their compression type when opened
+        if (this.compressionOptions.trainDictionary() || this.compressionOptions.benchmark()) {
+            LOGGER.info("Sampling chunks for world " + this.worldName);
+            final java.util.List<byte[]> samples = RegionFileCompression.sampleChunks(regionFolder.toPath(), regionFiles);
+            if (this.compressionOptions.trainDictionary()) {
+                if (net.minecraft.world.level.chunk.storage.RegionFileVersion.getCompressionFormat() != net.minecraft.world.level.chunk.storage.RegionFileVersion.VERSION_ZSTD) {
+                    LOGGER.warn("Not training a zstd dictionary for world " + this.worldName + ", the configured compression format is not zstd");
+                } else {
+                    RegionFileCompression.trainDictionary(this.worldName, regionFolder.toPath(), samples);
+                }
+            }
+            if (this.compressionOptions.benchmark()) {
+                RegionFileCompression.benchmark(this.worldName, regionFolder.toPath(), samples);
+            }
+        }
+        final long sizeBefore = getTotalSize(regionFolder);
+        // Folia end - region recompression
         LOGGER.info("Starting conversion now for world " + this.worldName);
 
         final WorldInfo info = new WorldInfo(() -> worldPersistentData,
                 new ChunkStorage(regionFolder.toPath(), this.dataFixer, false), this.removeCaches, this.dimensionType, this.generatorKey);
+        info.recompress = this.compressionOptions.recompress(); // Folia - region recompression
+        info.compact = this.compressionOptions.compact(); // Folia - regionfile compaction
 
         long expectedChunks = (long)regionFiles.length * (32L * 32L);
 
@@ -98,6 +235,17 @@ public class ThreadedWorldUpgrader {
 
             this.threadPool.execute(new ConvertTask(info, regionPos.x >> 5, regionPos.z >> 5));
         }
+        // Folia start - regionfile compaction - nothing opens these during the conversion
+        if (info.compact) {
+            for (final String folder : new String[] { "poi", "entities" }) {
+                for (final File regionFile : listRegionFiles(new File(worldFolder, folder))) {
+                    this.threadPool.execute(() -> {
+                        compactUnopened(regionFile, info.compaction);
+                    });
+                }
+            }
+        }
+        // Folia end - regionfile compaction
         this.threadPool.shutdown();
 
         final DecimalFormat format = new DecimalFormat("#0.00");
@@ -123,8 +271,34 @@ public class ThreadedWorldUpgrader {
         }
         LOGGER.info("Completed conversion. Took {}s, {} out of {} chunks needed to be converted/modified ({}%)",
                 (int)Math.ceil((end - start) * 1.0e-9), info.modifiedChunks.get(), expectedChunks, format.format((double)info.modifiedChunks.get() / (double)expectedChunks * 100.0));
+        // Folia start - region recompression
+        if (info.recompress) {
+            final long sizeAfter = getTotalSize(regionFolder);
+            // rewritten chunks reuse free sectors, but regionfiles never shrink without being compacted
+            LOGGER.info("Regionfiles for world {} went from {} MiB to {} MiB", this.worldName,
+                format.format((double)sizeBefore / (1024.0 * 1024.0)), format.format((double)sizeAfter / (1024.0 * 1024.0)));
+        }
+        // Folia end - region recompression
+        // Folia start - regionfile compaction
+        if (info.compact) {
+            LOGGER.info("Compacted world {}: {}", this.worldName, info.compaction.describe());
+        }
+        // Folia end - regionfile compaction
     }
 
+    // Folia start - region recompression
+    private static long getTotalSize(final File regionFolder) {
+        final File[] files = regionFolder.listFiles();
+        long ret = 0L;
+        if (files != null) {
+            for (final File file : files) {
+                ret += file.length();
+            }
+        }
+        return ret;
+    }
+    // Folia end - region recompression
+
     private static final class WorldInfo {
 
         public final Supplier<DimensionDataStorage> persistentDataSupplier;
@@ -134,6 +308,11 @@ public class ThreadedWorldUpgrader {
         public final Optional<ResourceKey<Codec<? extends ChunkGenerator>>> generatorKey;
         public final AtomicLong convertedChunks = new AtomicLong();
         public final AtomicLong modifiedChunks = new AtomicLong();
+        public boolean recompress; // Folia - region recompression
+        // Folia start - regionfile compaction
+        public boolean compact;
+        public final CompactionStatistics compaction = new CompactionStatistics();
+        // Folia end - regionfile compaction
 
         private WorldInfo(final Supplier<DimensionDataStorage> persistentDataSupplier, final ChunkStorage loader, final boolean removeCaches,
                           final ResourceKey<LevelStem> worldKey, Optional<ResourceKey<Codec<? extends ChunkGenerator>>> generatorKey) {
@@ -184,6 +363,7 @@ public class ThreadedWorldUpgrader {
                         chunkNBT = loader.upgradeChunkTag(worldKey, persistentDataSupplier, chunkNBT, this.worldInfo.generatorKey, chunkPos, null);
 
                         boolean modified = versionBefore < SharedConstants.getCurrentVersion().getDataVersion().getVersion();
+                        modified |= this.worldInfo.recompress; // Folia - region recompression
 
                         if (removeCaches) {
                             final CompoundTag level = chunkNBT.getCompound("Level");
@@ -204,6 +384,17 @@ public class ThreadedWorldUpgrader {
                     }
                 }
             }
+
+            // Folia start - regionfile compaction - all chunks of this region have been written
+            if (this.worldInfo.compact) {
+                try {
+                    this.worldInfo.compaction.add(loader.regionFileCache.compactRegionFile(this.regionX, this.regionZ));
+                } catch (final Exception ex) {
+                    this.worldInfo.compaction.failedRegionFiles.getAndIncrement();
+                    LOGGER.error("Failed to compact regionfile ({}, {})", this.regionX, this.regionZ, ex);
+                }
+            }
+            // Folia end - regionfile compaction
         }
     }
 }
@@ -33,7 +33,7 @@ public class CompressionDecoder extends ByteToMessageDecoder {
         if (byteBuf.readableBytes() != 0) {
             int i = VarInt.read(byteBuf);
             if (i == 0) {
-                list.add(byteBuf.readBytes(byteBuf.readableBytes()));
+                list.add(byteBuf.readRetainedSlice(byteBuf.readableBytes())); // Folia - compress without heap copies - the cumulation is not modified while retained
             } else {
                 if (this.validateDecompressed) {
                     if (i < this.threshold) {
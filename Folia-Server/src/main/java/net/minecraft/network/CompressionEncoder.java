@@ -6,7 +6,7 @@ import io.netty.handler.codec.MessageToByteEncoder;
 import java.util.zip.Deflater;
 
 public class CompressionEncoder extends MessageToByteEncoder<ByteBuf> {
-    private final byte[] encodeBuf; // Paper
+    private static final int MIN_DEFLATE_OUTPUT = 8192; // Folia - compress without heap copies
     private final Deflater deflater;
     private final com.velocitypowered.natives.compression.VelocityCompressor compressor; // Paper
     private int threshold;
@@ -17,13 +17,7 @@ public class CompressionEncoder extends MessageToByteEncoder<ByteBuf> {
     }
     public CompressionEncoder(com.velocitypowered.natives.compression.VelocityCompressor compressor, int compressionThreshold) {
         this.threshold = compressionThreshold;
-        if (compressor == null) {
-            this.encodeBuf = new byte[8192];
-            this.deflater = new Deflater();
-        } else {
-            this.encodeBuf = null;
-            this.deflater = null;
-        }
+        this.deflater = compressor == null ? new Deflater() : null; // Folia - compress without heap copies
         this.compressor = compressor;
         // Paper end
     }
@@ -36,16 +30,19 @@ public class CompressionEncoder extends MessageToByteEncoder<ByteBuf> {
         } else {
             // Paper start
             if (this.deflater != null) {
-            byte[] bs = new byte[i];
-            byteBuf.readBytes(bs);
-            VarInt.write(byteBuf2, bs.length);
-            this.deflater.setInput(bs, 0, i);
+            // Folia start - compress without heap copies
+            VarInt.write(byteBuf2, i);
+            this.deflater.setInput(byteBuf.nioBuffer());
+            byteBuf.skipBytes(i);
             this.deflater.finish();
 
             while(!this.deflater.finished()) {
-                int j = this.deflater.deflate(this.encodeBuf);
-                byteBuf2.writeBytes(this.encodeBuf, 0, j);
+                byteBuf2.ensureWritable(MIN_DEFLATE_OUTPUT);
+                int writerIndex = byteBuf2.writerIndex();
+                int j = this.deflater.deflate(byteBuf2.nioBuffer(writerIndex, byteBuf2.writableBytes()));
+                byteBuf2.writerIndex(writerIndex + j);
             }
+            // Folia end - compress without heap copies
 
             this.deflater.reset();
                 return;
@@ -66,6 +63,13 @@ public class CompressionEncoder extends MessageToByteEncoder<ByteBuf> {
     // Paper start
     @Override
     protected ByteBuf allocateBuffer(ChannelHandlerContext ctx, ByteBuf msg, boolean preferDirect) throws Exception{
+        // Folia start - compress without heap copies
+        if (this.compressor == null) {
+            // same sizing as below, the deflater output is usually smaller than its input
+            int initialBufferSize = msg.readableBytes() + 1;
+            return preferDirect ? ctx.alloc().ioBuffer(initialBufferSize) : ctx.alloc().heapBuffer(initialBufferSize);
+        }
+        // Folia end - compress without heap copies
         if (this.compressor != null) {
             // We allocate bytes to be compressed plus 1 byte. This covers two cases:
             //
@@ -405,6 +405,12 @@ public class Connection extends SimpleChannelInboundHandler<Packet<?>> {
     }
 
     public void send(Packet<?> packet, @Nullable PacketSendListener callbacks, boolean flush) {
+        // Folia start - compress-once broadcasts
+        this.send(packet, callbacks, flush, null);
+    }
+
+    public void send(Packet<?> packet, @Nullable PacketSendListener callbacks, boolean flush, @Nullable io.papermc.paper.network.BroadcastPacket broadcast) {
+        // Folia end - compress-once broadcasts
         // Paper start - Optimize network: Handle oversized packets better
         final boolean connected = this.isConnected();
         if (!connected && !this.preparing) {
@@ -412,6 +418,14 @@ public class Connection extends SimpleChannelInboundHandler<Packet<?>> {
         }
 
         packet.onPacketDispatch(this.getPlayer());
+        // Folia start - tick-end connection flush
+        final boolean batched = flush && callbacks == null && connected && this.shouldBatchFlush(packet);
+        if (batched) {
+            flush = false;
+        } else if (flush) {
+            io.papermc.paper.network.PacketBatching.recordImmediateFlush();
+        }
+        // Folia end - tick-end connection flush
         if (false && connected && (InnerUtil.canSendImmediate(this, packet) // Folia - region threading - connection fixes
             || (io.papermc.paper.util.MCUtil.isMainThread() && packet.isReady() && this.pendingActions.isEmpty()
             && (packet.getExtraPackets() == null || packet.getExtraPackets().isEmpty())))) {
@@ -421,20 +435,27 @@ public class Connection extends SimpleChannelInboundHandler<Packet<?>> {
             final java.util.List<Packet<?>> extraPackets = InnerUtil.buildExtraPackets(packet);
             final boolean hasExtraPackets = extraPackets != null && !extraPackets.isEmpty();
             if (!hasExtraPackets) {
-                this.pendingActions.add(new PacketSendAction(packet, callbacks, flush));
+                this.pendingActions.add(new PacketSendAction(packet, callbacks, flush, broadcast)); // Folia - compress-once broadcasts
             } else {
                 final java.util.List<PacketSendAction> actions = new java.util.ArrayList<>(1 + extraPackets.size());
-                actions.add(new PacketSendAction(packet, null, false)); // Delay the future listener until the end of the extra packets
+                actions.add(new PacketSendAction(packet, null, false, broadcast)); // Folia - compress-once broadcasts // Delay the future listener until the end of the extra packets
 
                 for (int i = 0, len = extraPackets.size(); i < len;) {
                     final Packet<?> extraPacket = extraPackets.get(i);
                     final boolean end = ++i == len;
-                    actions.add(new PacketSendAction(extraPacket, end ? callbacks : null, end)); // Append listener to the end
+                    actions.add(new PacketSendAction(extraPacket, end ? callbacks : null, end && !batched)); // Append listener to the end // Folia - tick-end connection flush
                 }
 
                 this.pendingActions.addAll(actions);
             }
 
+            // Folia start - tick-end connection flush
+            if (batched) {
+                this.batchedPackets.getAndIncrement();
+                // only set once the packet is queued, so that the flush cannot be queued before it
+                this.needsBatchedFlush = true;
+            }
+            // Folia end - tick-end connection flush
             this.flushQueue();
             // Paper end - Optimize network
         }
@@ -452,18 +473,24 @@ public class Connection extends SimpleChannelInboundHandler<Packet<?>> {
     }
 
     private void sendPacket(Packet<?> packet, @Nullable PacketSendListener callbacks, boolean flush) {
+        // Folia start - compress-once broadcasts
+        this.sendPacket(packet, callbacks, flush, null);
+    }
+
+    private void sendPacket(Packet<?> packet, @Nullable PacketSendListener callbacks, boolean flush, @Nullable io.papermc.paper.network.BroadcastPacket broadcast) {
+        // Folia end - compress-once broadcasts
         ++this.sentPackets;
         if (this.channel.eventLoop().inEventLoop()) {
-            this.doSendPacket(packet, callbacks, flush);
+            this.doSendPacket(packet, callbacks, flush, broadcast); // Folia - compress-once broadcasts
         } else {
             this.channel.eventLoop().execute(() -> {
-                this.doSendPacket(packet, callbacks, flush);
+                this.doSendPacket(packet, callbacks, flush, broadcast); // Folia - compress-once broadcasts
             });
         }
 
     }
 
-    private void doSendPacket(Packet<?> packet, @Nullable PacketSendListener callbacks, boolean flush) {
+    private void doSendPacket(Packet<?> packet, @Nullable PacketSendListener callbacks, boolean flush, @Nullable io.papermc.paper.network.BroadcastPacket broadcast) { // Folia - compress-once broadcasts
         // Paper start - Optimize network
         final net.minecraft.server.level.ServerPlayer player = this.getPlayer();
         if (!this.isConnected()) {
@@ -472,7 +499,12 @@ public class Connection extends SimpleChannelInboundHandler<Packet<?>> {
         }
         try {
         // Paper end - Optimize network
-        ChannelFuture channelfuture = flush ? this.channel.writeAndFlush(packet) : this.channel.write(packet);
+        // Folia start - compress-once broadcasts
+        ChannelFuture channelfuture = broadcast == null ? null : this.writeBroadcast(broadcast, flush);
+        if (channelfuture == null) {
+            channelfuture = flush ? this.channel.writeAndFlush(packet) : this.channel.write(packet);
+        }
+        // Folia end - compress-once broadcasts
 
         if (callbacks != null) {
             channelfuture.addListener((future) -> {
@@ -504,6 +536,131 @@ public class Connection extends SimpleChannelInboundHandler<Packet<?>> {
         // Paper end - Optimize network
     }
 
+    // Folia start - compress-once broadcasts
+    // whether the outbound handlers from the encoder to the prepender are the vanilla ones, so that already encoded and
+    // compressed frames can be written in their place. plugins may add handlers at any time, so this is checked for every
+    // broadcast, which is still far cheaper than encoding the packet
+    private static boolean canWriteFrames(ChannelPipeline pipeline) {
+        boolean afterPrepender = false;
+        for (java.util.Map.Entry<String, ChannelHandler> entry : pipeline) {
+            ChannelHandler handler = entry.getValue();
+            if (!afterPrepender) {
+                afterPrepender = entry.getKey().equals("prepender");
+                continue;
+            }
+            if (!(handler instanceof io.netty.channel.ChannelOutboundHandler) || handler.getClass() == CompressionEncoder.class
+                || handler.getClass() == PacketEncoder.class || handler instanceof PacketBundleUnpacker || handler instanceof FlowControlHandler) {
+                continue;
+            }
+            // a plugin handler, which may need to see every packet
+            return false;
+        }
+        return afterPrepender;
+    }
+
+    // Folia start - shared chunk packets
+    // whether no plugin handler is in the pipeline, so that packet objects and their encoded bodies can be shared with
+    // other connections without a plugin rewriting them for this connection
+    public boolean canShareEncodedPackets() {
+        Channel channel = this.channel;
+        return channel != null && canWriteFrames(channel.pipeline());
+    }
+    // Folia end - shared chunk packets
+
+    // returns null if the packet has to be written through the pipeline instead
+    @Nullable
+    private ChannelFuture writeBroadcast(io.papermc.paper.network.BroadcastPacket broadcast, boolean flush) {
+        ConnectionProtocol.CodecData<?> protocol = this.channel.attr(Connection.ATTRIBUTE_CLIENTBOUND_PROTOCOL).get();
+        ChannelHandlerContext encoderContext = this.channel.pipeline().context("encoder");
+        if (protocol == null || protocol.protocol() != ConnectionProtocol.PLAY || encoderContext == null || !canWriteFrames(this.channel.pipeline())) {
+            return null;
+        }
+        ChannelHandlerContext compressContext = this.channel.pipeline().context("compress");
+        int threshold = compressContext == null ? -1 : ((CompressionEncoder) compressContext.handler()).getThreshold();
+        java.util.Locale locale = this.channel.attr(io.papermc.paper.adventure.PaperAdventure.LOCALE_ATTRIBUTE).get();
+
+        byte[] frame;
+        synchronized (broadcast) {
+            frame = broadcast.getFrame(protocol, threshold, locale);
+            if (frame == null) {
+                try {
+                    frame = encodeFrame(broadcast.getPacket(), encoderContext, compressContext);
+                } catch (Exception ex) {
+                    // let the pipeline handle (and report) it
+                    return null;
+                }
+                broadcast.addFrame(protocol, threshold, locale, frame);
+            }
+        }
+
+        // the frame is written as if it came out of the compressor (or the encoder), the remaining handlers are per connection
+        io.netty.buffer.ByteBuf buffer = io.netty.buffer.Unpooled.wrappedBuffer(frame);
+        ChannelHandlerContext context = compressContext == null ? encoderContext : compressContext;
+        return flush ? context.writeAndFlush(buffer) : context.write(buffer);
+    }
+
+    private static byte[] encodeFrame(Packet<?> packet, ChannelHandlerContext encoderContext, @Nullable ChannelHandlerContext compressContext) throws Exception {
+        io.netty.buffer.ByteBuf encoded = encoderContext.alloc().buffer();
+        try {
+            ((PacketEncoder) encoderContext.handler()).encode(encoderContext, packet, encoded);
+            if (compressContext == null) {
+                return io.netty.buffer.ByteBufUtil.getBytes(encoded);
+            }
+            CompressionEncoder compressor = (CompressionEncoder) compressContext.handler();
+            io.netty.buffer.ByteBuf compressed = compressor.allocateBuffer(compressContext, encoded, true);
+            try {
+                compressor.encode(compressContext, encoded, compressed);
+                return io.netty.buffer.ByteBufUtil.getBytes(compressed);
+            } finally {
+                compressed.release();
+            }
+        } finally {
+            encoded.release();
+        }
+    }
+    // Folia end - compress-once broadcasts
+
+    // Folia start - tick-end connection flush
+    private volatile boolean needsBatchedFlush;
+    private final java.util.concurrent.atomic.AtomicInteger batchedPackets = new java.util.concurrent.atomic.AtomicInteger();
+
+    private boolean shouldBatchFlush(Packet<?> packet) {
+        // the connections of players are flushed by the region owning them, see flushBatched(). packets sent from any other
+        // thread, including the global region and regions not owning the player, are flushed immediately as there may be
+        // no region to flush them, e.g. while the player moves between regions
+        if (!io.papermc.paper.network.PacketBatching.isEnabled() || io.papermc.paper.network.PacketBatching.isLatencySensitive(packet)
+            || io.papermc.paper.threadedregions.TickRegionScheduler.getCurrentRegion() == null) {
+            return false;
+        }
+        final net.minecraft.server.level.ServerPlayer player = this.getPlayer();
+        return player != null && io.papermc.paper.util.TickThread.isTickThreadFor(player);
+    }
+
+    public void flushBatched() {
+        if (!this.needsBatchedFlush) {
+            return;
+        }
+        this.needsBatchedFlush = false;
+        final int packets = this.batchedPackets.getAndSet(0);
+        this.pendingActions.add(new WrappedConsumer((Connection connection) -> {
+            connection.doBatchedFlush(packets);
+        }));
+        this.flushQueue();
+    }
+
+    private void doBatchedFlush(int packets) {
+        if (!this.channel.eventLoop().inEventLoop()) {
+            this.channel.eventLoop().execute(() -> {
+                this.doBatchedFlush(packets);
+            });
+            return;
+        }
+        io.netty.channel.ChannelOutboundBuffer outboundBuffer = this.channel.unsafe().outboundBuffer();
+        io.papermc.paper.network.PacketBatching.recordBatchedFlush(packets, outboundBuffer == null ? 0L : outboundBuffer.totalPendingWriteBytes());
+        this.channel.flush();
+    }
+    // Folia end - tick-end connection flush
+
     public void flushChannel() {
         if (false && this.isConnected()) { // Folia - region threading - connection fixes
             this.flush();
@@ -607,6 +764,7 @@ public class Connection extends SimpleChannelInboundHandler<Packet<?>> {
     private static int currTick; // Paper
     public void tick() {
         this.flushQueue();
+        this.flushBatched(); // Folia - tick-end connection flush - in case the connection is not owned by a region right now
         // Folia start - region threading
         // handle disconnect requests, but only after flushQueue()
         DisconnectReq disconnectReq;
@@ -1035,7 +1193,13 @@ public class Connection extends SimpleChannelInboundHandler<Packet<?>> {
         private final Packet<?> packet;
 
         private PacketSendAction(final Packet<?> packet, @Nullable final PacketSendListener packetSendListener, final boolean flush) {
-            super(connection -> connection.sendPacket(packet, packetSendListener, flush));
+            // Folia start - compress-once broadcasts
+            this(packet, packetSendListener, flush, null);
+        }
+
+        private PacketSendAction(final Packet<?> packet, @Nullable final PacketSendListener packetSendListener, final boolean flush, @Nullable final io.papermc.paper.network.BroadcastPacket broadcast) {
+            super(connection -> connection.sendPacket(packet, packetSendListener, flush, broadcast));
+            // Folia end - compress-once broadcasts
             this.packet = packet;
         }
     }
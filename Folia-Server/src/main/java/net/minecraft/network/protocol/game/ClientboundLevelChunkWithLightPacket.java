@@ -25,6 +25,15 @@ public class ClientboundLevelChunkWithLightPacket implements Packet<ClientGamePa
         this.ready = ready;
     }
     // Paper end
+    // Folia start - shared chunk packets
+    // set for packets sent to multiple players, which are encoded once
+    private boolean shared;
+    private volatile byte[] encoded;
+
+    public void setShared() {
+        this.shared = true;
+    }
+    // Folia end - shared chunk packets
 
     // Paper start - Anti-Xray - Add chunk packet info
     @Deprecated @io.papermc.paper.annotation.DoNotUse public ClientboundLevelChunkWithLightPacket(LevelChunk chunk, LevelLightEngine lightProvider, @Nullable BitSet skyBits, @Nullable BitSet blockBits) { this(chunk, lightProvider, skyBits, blockBits, true); }
@@ -48,6 +57,29 @@ public class ClientboundLevelChunkWithLightPacket implements Packet<ClientGamePa
 
     @Override
     public void write(FriendlyByteBuf buf) {
+        // Folia start - shared chunk packets
+        if (this.shared) {
+            byte[] encoded = this.encoded;
+            if (encoded == null) {
+                synchronized (this) {
+                    if ((encoded = this.encoded) == null) {
+                        // only written once ready, so anti-xray has already been applied
+                        FriendlyByteBuf encodeBuffer = new FriendlyByteBuf(io.netty.buffer.Unpooled.buffer());
+                        this.writeUncached(encodeBuffer);
+                        encoded = new byte[encodeBuffer.readableBytes()];
+                        encodeBuffer.readBytes(encoded);
+                        this.encoded = encoded;
+                    }
+                }
+            }
+            buf.writeBytes(encoded);
+            return;
+        }
+        this.writeUncached(buf);
+    }
+
+    private void writeUncached(FriendlyByteBuf buf) {
+        // Folia end - shared chunk packets
         buf.writeInt(this.x);
         buf.writeInt(this.z);
         this.chunkData.write(buf);
@@ -588,9 +588,10 @@ public abstract class MinecraftServer extends ReentrantBlockableEventLoop<TickTa
             }
 
             // Paper start - fix and optimise world upgrading
-            if (options.has("forceUpgrade")) {
+            final io.papermc.paper.world.ThreadedWorldUpgrader.CompressionOptions compressionOptions = io.papermc.paper.world.ThreadedWorldUpgrader.CompressionOptions.fromOptions(options); // Folia - region recompression
+            if (options.has("forceUpgrade") || compressionOptions.any()) { // Folia - region recompression
                 net.minecraft.server.Main.convertWorldButItWorks(
-                    dimensionKey, worldSession, DataFixers.getDataFixer(), worlddimension.generator().getTypeNameForDataFixer(), options.has("eraseCache")
+                    dimensionKey, worldSession, DataFixers.getDataFixer(), worlddimension.generator().getTypeNameForDataFixer(), options.has("eraseCache"), compressionOptions // Folia - region recompression
                 );
             }
             // Paper end - fix and optimise world upgrading
@@ -1568,6 +1569,7 @@ public abstract class MinecraftServer extends ReentrantBlockableEventLoop<TickTa
         long remaining = scheduledEnd - endTime; // Folia - region ticking
         new com.destroystokyo.paper.event.server.ServerTickEndEvent((int)io.papermc.paper.threadedregions.RegionizedServer.getCurrentTick(), ((double)(endTime - startTime) / 1000000D), remaining).callEvent(); // Folia - region ticking
         // Paper end
+        if (region != null) region.world.getCurrentWorldData().flushConnections(); // Folia - tick-end connection flush
         this.profiler.push("tallying");
         // Folia - region threading
         this.profiler.pop();
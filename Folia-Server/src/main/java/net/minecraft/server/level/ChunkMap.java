@@ -1234,7 +1234,7 @@ public class ChunkMap extends ChunkStorage implements ChunkHolder.PlayerProvider
         public final Set<ServerPlayerConnection> seenBy = new it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet<>(); // Paper - optimise map impl
 
         public TrackedEntity(Entity entity, int i, int j, boolean flag) {
-            this.serverEntity = new ServerEntity(ChunkMap.this.level, entity, j, flag, this::broadcast, this.seenBy); // CraftBukkit
+            this.serverEntity = new ServerEntity(ChunkMap.this.level, entity, j, flag, this::broadcast, this::broadcastMovement, this.seenBy); // CraftBukkit // Folia - distance tiered entity tracking
             this.entity = entity;
             this.range = i;
             this.lastSectionPos = SectionPos.of((EntityAccess) entity);
@@ -1285,21 +1285,117 @@ public class ChunkMap extends ChunkStorage implements ChunkHolder.PlayerProvider
         }
 
         public void broadcast(Packet<?> packet) {
+            // Folia start - compress-once broadcasts
+            this.broadcast(packet, io.papermc.paper.network.BroadcastPacket.create(packet, this.seenBy.size()));
+        }
+
+        private void broadcast(Packet<?> packet, @Nullable io.papermc.paper.network.BroadcastPacket broadcast) {
+            // Folia end - compress-once broadcasts
             Iterator iterator = this.seenBy.iterator();
 
             while (iterator.hasNext()) {
                 ServerPlayerConnection serverplayerconnection = (ServerPlayerConnection) iterator.next();
 
-                serverplayerconnection.send(packet);
+                this.send(serverplayerconnection, packet, broadcast); // Folia - compress-once broadcasts
+            }
+
+        }
+
+        // Folia start - compress-once broadcasts
+        private void send(ServerPlayerConnection conn, Packet<?> packet, @Nullable io.papermc.paper.network.BroadcastPacket broadcast) {
+            // plugins replace the listener with subclasses overriding send(Packet), which must see every packet
+            if (broadcast != null && conn.getClass() == net.minecraft.server.network.ServerGamePacketListenerImpl.class) {
+                ((net.minecraft.server.network.ServerGamePacketListenerImpl) conn).send(packet, null, broadcast);
+            } else {
+                conn.send(packet);
+            }
+        }
+        // Folia end - compress-once broadcasts
+
+        // Folia start - distance tiered entity tracking
+        private int movementUpdates;
+        private final Set<ServerPlayerConnection> staleMovement = new it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet<>();
+
+        // only called for tiered entities, see EntityTrackingTiers#isTiered
+        private void broadcastMovement(java.util.List<Packet<?>> packets) {
+            final io.papermc.paper.configuration.WorldConfiguration.Entities.TrackingTiers config = ChunkMap.this.level.paperConfig().entities.trackingTiers;
+
+            final int update = this.movementUpdates++;
+            java.util.List<ServerPlayerConnection> current = null;
+            java.util.List<ServerPlayerConnection> resync = null;
+
+            for (ServerPlayerConnection conn : this.seenBy) {
+                final int tier = io.papermc.paper.entity.EntityTrackingTiers.getTier(conn.getPlayer().distanceToSqr(this.entity), config.distances);
+                if (!io.papermc.paper.entity.EntityTrackingTiers.isUpdateFor(tier, update)) {
+                    if (!packets.isEmpty()) {
+                        // the relative moves build on each other, so the viewer needs an absolute position once it is updated again
+                        this.staleMovement.add(conn);
+                        io.papermc.paper.entity.EntityTrackingTiers.recordSkipped(tier, packets.size());
+                    }
+                    continue;
+                }
+                if (this.staleMovement.remove(conn)) {
+                    if (resync == null) {
+                        resync = new java.util.ArrayList<>();
+                    }
+                    resync.add(conn);
+                    io.papermc.paper.entity.EntityTrackingTiers.recordResynced(tier, 3);
+                    continue;
+                }
+                if (!packets.isEmpty()) {
+                    if (current == null) {
+                        current = new java.util.ArrayList<>();
+                    }
+                    current.add(conn);
+                    io.papermc.paper.entity.EntityTrackingTiers.recordSent(tier, packets.size());
+                }
+            }
+
+            if (current != null) {
+                for (int i = 0, len = packets.size(); i < len; ++i) {
+                    this.broadcastTo(packets.get(i), current);
+                }
+            }
+            if (resync != null) {
+                this.resyncMovement(resync);
+            }
+        }
+
+        private void resyncMovement(java.util.List<ServerPlayerConnection> connections) {
+            this.broadcastTo(new net.minecraft.network.protocol.game.ClientboundTeleportEntityPacket(this.entity), connections);
+            this.broadcastTo(new net.minecraft.network.protocol.game.ClientboundRotateHeadPacket(this.entity, (byte)Mth.floor(this.entity.getYHeadRot() * 256.0F / 360.0F)), connections);
+            this.broadcastTo(new net.minecraft.network.protocol.game.ClientboundSetEntityMotionPacket(this.entity), connections);
+        }
+
+        // viewers which skipped updates would apply the vanilla relative moves on a wrong base once tiering stops for the
+        // entity, e.g. because it became a passenger or tiering was disabled
+        private void resyncUntieredMovement() {
+            if (this.staleMovement.isEmpty() || io.papermc.paper.entity.EntityTrackingTiers.isTiered(ChunkMap.this.level, this.entity)) {
+                return;
             }
+            final java.util.List<ServerPlayerConnection> stale = new java.util.ArrayList<>(this.staleMovement);
+            this.staleMovement.clear();
+            this.resyncMovement(stale);
+            io.papermc.paper.entity.EntityTrackingTiers.recordResynced(0, 3 * stale.size());
+        }
 
+        private void broadcastTo(Packet<?> packet, java.util.List<ServerPlayerConnection> connections) {
+            final io.papermc.paper.network.BroadcastPacket broadcast = io.papermc.paper.network.BroadcastPacket.create(packet, connections.size());
+            for (int i = 0, len = connections.size(); i < len; ++i) {
+                this.send(connections.get(i), packet, broadcast);
+            }
         }
+        // Folia end - distance tiered entity tracking
 
         public void broadcastAndSend(Packet<?> packet) {
-            this.broadcast(packet);
-            if (this.entity instanceof ServerPlayer) {
-                ((ServerPlayer) this.entity).connection.send(packet);
+            // Folia start - compress-once broadcasts
+            final boolean sendToSelf = this.entity instanceof ServerPlayer;
+            final io.papermc.paper.network.BroadcastPacket broadcast = io.papermc.paper.network.BroadcastPacket.create(packet, this.seenBy.size() + (sendToSelf ? 1 : 0));
+            this.broadcast(packet, broadcast);
+            if (sendToSelf) {
+                this.send(((ServerPlayer) this.entity).connection, packet, broadcast);
             }
+            // Folia end - compress-once broadcasts
 
         }
 
@@ -1317,6 +1413,7 @@ public class ChunkMap extends ChunkStorage implements ChunkHolder.PlayerProvider
         public void removePlayer(ServerPlayer player) {
             org.spigotmc.AsyncCatcher.catchOp("player tracker clear"); // Spigot
             if (this.seenBy.remove(player.connection)) {
+                this.staleMovement.remove(player.connection); // Folia - distance tiered entity tracking
                 this.serverEntity.removePairing(player);
             }
 
@@ -1325,6 +1422,7 @@ public class ChunkMap extends ChunkStorage implements ChunkHolder.PlayerProvider
         private int lastChunkUpdate = -1;
         private io.papermc.paper.util.player.NearbyPlayers.TrackedChunk lastTrackedChunk;
         public void tick(io.papermc.paper.util.player.NearbyPlayers.TrackedChunk chunk) {
+            this.resyncUntieredMovement(); // Folia - distance tiered entity tracking
             if (chunk == null) {
                 this.clearPlayers();
                 return;
@@ -1432,6 +1530,7 @@ public class ChunkMap extends ChunkStorage implements ChunkHolder.PlayerProvider
                         // Paper end
                     }
                 } else if (this.seenBy.remove(player.connection)) {
+                    this.staleMovement.remove(player.connection); // Folia - distance tiered entity tracking
                     // Paper start - entity tracking events
                     if (io.papermc.paper.event.player.PlayerUntrackEntityEvent.getHandlerList().getRegisteredListeners().length > 0) {
                         new io.papermc.paper.event.player.PlayerUntrackEntityEvent(player.getBukkitEntity(), this.entity.getBukkitEntity()).callEvent();
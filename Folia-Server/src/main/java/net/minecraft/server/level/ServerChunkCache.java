@@ -522,6 +522,12 @@ public class ServerChunkCache extends ChunkSource {
 
             gameprofilerfiller.popPush("spawnAndTick");
             boolean flag2 = this.level.getGameRules().getBoolean(GameRules.RULE_DOMOBSPAWNING) && !regionizedWorldData.getLocalPlayers().isEmpty(); // CraftBukkit // Folia - region threading
+            // Folia start - budgeted ticking
+            if (io.papermc.paper.threadedregions.TickRegionScheduler.shouldSkipOptionalWork()) {
+                flag2 = false;
+                k = 0;
+            }
+            // Folia end - budgeted ticking
 
             // Paper start - optimise chunk tick iteration
             ChunkMap playerChunkMap = this.chunkMap;
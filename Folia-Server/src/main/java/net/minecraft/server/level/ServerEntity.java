@@ -60,6 +60,7 @@ public class ServerEntity {
     private final int updateInterval;
     private final boolean trackDelta;
     private final Consumer<Packet<?>> broadcast;
+    @Nullable private final Consumer<List<Packet<?>>> broadcastMovement; // Folia - distance tiered entity tracking
     private final VecDeltaCodec positionCodec = new VecDeltaCodec();
     private int yRotp;
     private int xRotp;
@@ -76,6 +77,13 @@ public class ServerEntity {
     final Set<ServerPlayerConnection> trackedPlayers; // Paper - private -> package
 
     public ServerEntity(ServerLevel worldserver, Entity entity, int i, boolean flag, Consumer<Packet<?>> consumer, Set<ServerPlayerConnection> trackedPlayers) {
+        // Folia start - distance tiered entity tracking
+        this(worldserver, entity, i, flag, consumer, null, trackedPlayers);
+    }
+
+    public ServerEntity(ServerLevel worldserver, Entity entity, int i, boolean flag, Consumer<Packet<?>> consumer, @Nullable Consumer<List<Packet<?>>> broadcastMovement, Set<ServerPlayerConnection> trackedPlayers) {
+        this.broadcastMovement = broadcastMovement;
+        // Folia end - distance tiered entity tracking
         this.trackedPlayers = trackedPlayers;
         // CraftBukkit end
         this.ap = Vec3.ZERO;
@@ -144,6 +152,7 @@ public class ServerEntity {
         if (this.tickCount % this.updateInterval == 0 || this.entity.hasImpulse || this.entity.getEntityData().isDirty()) {
             int i;
             int j;
+            List<Packet<?>> movementPackets = null; // Folia - distance tiered entity tracking
 
             if (this.entity.isPassenger()) {
                 i = Mth.floor(this.entity.getYRot() * 256.0F / 360.0F);
@@ -160,6 +169,11 @@ public class ServerEntity {
                 this.sendDirtyEntityData();
                 this.wasRiding = true;
             } else {
+                // Folia start - distance tiered entity tracking
+                if (this.broadcastMovement != null && io.papermc.paper.entity.EntityTrackingTiers.isTiered(this.level, this.entity)) {
+                    movementPackets = new ArrayList<>(3);
+                }
+                // Folia end - distance tiered entity tracking
                 ++this.teleportDelay;
                 i = Mth.floor(this.entity.getYRot() * 256.0F / 360.0F);
                 j = Mth.floor(this.entity.getXRot() * 256.0F / 360.0F);
@@ -206,12 +220,24 @@ public class ServerEntity {
 
                     if (d0 > 1.0E-7D || d0 > 0.0D && vec3d1.lengthSqr() == 0.0D) {
                         this.ap = vec3d1;
+                        // Folia start - distance tiered entity tracking
+                        if (movementPackets != null) {
+                            movementPackets.add(new ClientboundSetEntityMotionPacket(this.entity.getId(), this.ap));
+                        } else {
                         this.broadcast.accept(new ClientboundSetEntityMotionPacket(this.entity.getId(), this.ap));
+                        }
+                        // Folia end - distance tiered entity tracking
                     }
                 }
 
                 if (packet1 != null) {
+                    // Folia start - distance tiered entity tracking
+                    if (movementPackets != null) {
+                        movementPackets.add(packet1);
+                    } else {
                     this.broadcast.accept(packet1);
+                    }
+                    // Folia end - distance tiered entity tracking
                 }
 
                 this.sendDirtyEntityData();
@@ -229,9 +255,20 @@ public class ServerEntity {
 
             i = Mth.floor(this.entity.getYHeadRot() * 256.0F / 360.0F);
             if (Math.abs(i - this.yHeadRotp) >= 1) {
+                // Folia start - distance tiered entity tracking
+                if (movementPackets != null) {
+                    movementPackets.add(new ClientboundRotateHeadPacket(this.entity, (byte) i));
+                } else {
                 this.broadcast.accept(new ClientboundRotateHeadPacket(this.entity, (byte) i));
+                }
+                // Folia end - distance tiered entity tracking
                 this.yHeadRotp = i;
             }
+            // Folia start - distance tiered entity tracking
+            if (movementPackets != null) {
+                this.broadcastMovement.accept(movementPackets);
+            }
+            // Folia end - distance tiered entity tracking
 
             this.entity.hasImpulse = false;
         }
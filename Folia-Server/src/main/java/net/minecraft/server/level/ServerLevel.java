@@ -393,6 +393,7 @@ public class ServerLevel extends Level implements WorldGenLevel {
 
     // Paper start - rewrite chunk system
     public final io.papermc.paper.chunk.system.scheduling.ChunkTaskScheduler chunkTaskScheduler;
+    public final io.papermc.paper.chunk.system.ChunkPacketCache chunkPacketCache = new io.papermc.paper.chunk.system.ChunkPacketCache(Math.max(0L, io.papermc.paper.configuration.GlobalConfiguration.get().chunkLoadingAdvanced.chunkPacketCacheSize) * 1024L * 1024L); // Folia - shared chunk packets
     public final io.papermc.paper.chunk.system.io.RegionFileIOThread.ChunkDataController chunkDataControllerNew
         = new io.papermc.paper.chunk.system.io.RegionFileIOThread.ChunkDataController(io.papermc.paper.chunk.system.io.RegionFileIOThread.RegionFileType.CHUNK_DATA) {
 
@@ -2021,7 +2022,7 @@ public class ServerLevel extends Level implements WorldGenLevel {
         }
 
         this.getChunkSource().blockChanged(pos);
-        if(this.paperConfig().misc.updatePathfindingOnBlockUpdate) { // Paper - option to disable pathfinding updates
+        if(this.paperConfig().misc.updatePathfindingOnBlockUpdate && !io.papermc.paper.threadedregions.TickRegionScheduler.shouldSkipOptionalWork()) { // Paper - option to disable pathfinding updates // Folia - budgeted ticking
         VoxelShape voxelshape = oldState.getCollisionShape(this, pos);
         VoxelShape voxelshape1 = newState.getCollisionShape(this, pos);
 
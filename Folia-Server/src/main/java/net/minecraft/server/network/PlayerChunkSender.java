@@ -92,7 +92,13 @@ public class PlayerChunkSender {
         handler.player.serverLevel().chunkSource.chunkMap.getVisibleChunkIfPresent(chunk.getPos().toLong()).addPlayer(handler.player);
         // Paper start - Anti-Xray
         final boolean shouldModify = world.chunkPacketBlockController.shouldModify(handler.player, chunk);
-        handler.send(new ClientboundLevelChunkWithLightPacket(chunk, world.getLightEngine(), (BitSet)null, (BitSet)null, shouldModify));
+        // Folia start - shared chunk packets - plugins rewriting chunk packets per player need their own packet
+        if (handler.getClass() == ServerGamePacketListenerImpl.class && handler.connection.canShareEncodedPackets()) {
+            handler.send(world.chunkPacketCache.getOrCreate(world, chunk, shouldModify));
+        } else {
+            handler.send(new ClientboundLevelChunkWithLightPacket(chunk, world.getLightEngine(), (BitSet)null, (BitSet)null, shouldModify));
+        }
+        // Folia end - shared chunk packets
         // Paper end - Anti-Xray
         // Paper start - PlayerChunkLoadEvent
         if (io.papermc.paper.event.packet.PlayerChunkLoadEvent.getHandlerList().getRegisteredListeners().length > 0) {
@@ -229,6 +229,12 @@ public abstract class ServerCommonPacketListenerImpl implements ServerCommonPack
     }
 
     public void send(Packet<?> packet, @Nullable PacketSendListener callbacks) {
+        // Folia start - compress-once broadcasts
+        this.send(packet, callbacks, null);
+    }
+
+    public void send(Packet<?> packet, @Nullable PacketSendListener callbacks, @Nullable io.papermc.paper.network.BroadcastPacket broadcast) {
+        // Folia end - compress-once broadcasts
         // CraftBukkit start
         if (packet == null || this.processedDisconnect) { // Spigot
             return;
@@ -240,7 +246,7 @@ public abstract class ServerCommonPacketListenerImpl implements ServerCommonPack
         boolean flag = !this.suspendFlushingOnServerThread || !this.server.isSameThread();
 
         try {
-            this.connection.send(packet, callbacks, flag);
+            this.connection.send(packet, callbacks, flag, broadcast); // Folia - compress-once broadcasts
         } catch (Throwable throwable) {
             CrashReport crashreport = CrashReport.forThrowable(throwable, "Sending packet");
             CrashReportCategory crashreportsystemdetails = crashreport.addCategory("Packet being sent");
@@ -57,6 +57,11 @@ public class ServerConnectionListener {
     public static final Supplier<EpollEventLoopGroup> SERVER_EPOLL_EVENT_GROUP = Suppliers.memoize(() -> {
         return new EpollEventLoopGroup(0, (new ThreadFactoryBuilder()).setNameFormat("Netty Epoll Server IO #%d").setDaemon(true).setUncaughtExceptionHandler(new net.minecraft.DefaultUncaughtExceptionHandlerWithName(LOGGER)).build()); // Paper
     });
+    // Folia start - io_uring transport
+    public static final Supplier<io.netty.incubator.channel.uring.IOUringEventLoopGroup> SERVER_IO_URING_EVENT_GROUP = Suppliers.memoize(() -> {
+        return new io.netty.incubator.channel.uring.IOUringEventLoopGroup(0, (new ThreadFactoryBuilder()).setNameFormat("Netty io_uring Server IO #%d").setDaemon(true).setUncaughtExceptionHandler(new net.minecraft.DefaultUncaughtExceptionHandlerWithName(LOGGER)).build());
+    });
+    // Folia end - io_uring transport
     final MinecraftServer server;
     public volatile boolean running;
     private final List<ChannelFuture> channels = Collections.synchronizedList(Lists.newArrayList());
@@ -90,7 +95,17 @@ public class ServerConnectionListener {
             Class oclass;
             EventLoopGroup eventloopgroup;
 
-            if (Epoll.isAvailable() && this.server.isEpollEnabled()) {
+            // Folia start - io_uring transport
+            final io.papermc.paper.network.NettyTransport transport = io.papermc.paper.network.NettyTransport.select(
+                io.papermc.paper.configuration.GlobalConfiguration.get().misc.nettyTransport, this.server.isEpollEnabled(), address
+            );
+            if (transport == io.papermc.paper.network.NettyTransport.IO_URING) {
+                oclass = io.netty.incubator.channel.uring.IOUringServerSocketChannel.class;
+                eventloopgroup = ServerConnectionListener.SERVER_IO_URING_EVENT_GROUP.get();
+                ServerConnectionListener.LOGGER.info("Using io_uring channel type");
+            } else
+            if (transport == io.papermc.paper.network.NettyTransport.EPOLL) {
+            // Folia end - io_uring transport
                 // Paper start
                 if (address instanceof io.netty.channel.unix.DomainSocketAddress) {
                     oclass = io.netty.channel.epoll.EpollServerDomainSocketChannel.class;
@@ -92,6 +92,7 @@ public class LevelChunk extends ChunkAccess {
     private final LevelChunkTicks<Block> blockTicks;
     private final LevelChunkTicks<Fluid> fluidTicks;
     public volatile FullChunkStatus chunkStatus = FullChunkStatus.INACCESSIBLE; // Paper - rewrite chunk system
+    public long packetCacheVersion; // Folia - shared chunk packets - counts light and block entity changes, see ChunkPacketCache
 
     public LevelChunk(Level world, ChunkPos pos) {
         this(world, pos, UpgradeData.EMPTY, new LevelChunkTicks<>(), new LevelChunkTicks<>(), 0L, (LevelChunkSection[]) null, (LevelChunk.PostLoadProcessor) null, (BlendingData) null);
@@ -594,6 +595,7 @@ public class LevelChunk extends ChunkAccess {
             blockEntity.setLevel(this.level);
             blockEntity.clearRemoved();
             BlockEntity tileentity1 = (BlockEntity) this.blockEntities.put(blockposition.immutable(), blockEntity);
+            ++this.packetCacheVersion; // Folia - shared chunk packets
 
             if (tileentity1 != null && tileentity1 != blockEntity) {
                 tileentity1.setRemoved();
@@ -640,6 +642,7 @@ public class LevelChunk extends ChunkAccess {
     public void removeBlockEntity(BlockPos pos) {
         if (this.isInLevel()) {
             BlockEntity tileentity = (BlockEntity) this.blockEntities.remove(pos);
+            ++this.packetCacheVersion; // Folia - shared chunk packets
 
             // CraftBukkit start - SPIGOT-5561: Also remove from pending map
             if (!this.pendingBlockEntities.isEmpty()) {
@@ -849,6 +852,12 @@ public class LevelChunk extends ChunkAccess {
     // Paper start - add dirty system to tick lists
     @Override
     public void setUnsaved(boolean needsSaving) {
+        // Folia start - shared chunk packets
+        if (needsSaving) {
+            // light and block entity changes, block changes are tracked by the section revisions
+            ++this.packetCacheVersion;
+        }
+        // Folia end - shared chunk packets
         if (!needsSaving) {
             this.blockTicks.clearDirty();
             this.fluidTicks.clearDirty();
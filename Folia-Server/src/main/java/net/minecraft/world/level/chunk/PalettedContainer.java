@@ -33,6 +33,15 @@ public class PalettedContainer<T> implements PaletteResize<T>, PalettedContainer
     private final T @org.jetbrains.annotations.Nullable [] presetValues; // Paper - Anti-Xray - Add preset values
     private volatile PalettedContainer.Data<T> data;
     private final PalettedContainer.Strategy strategy;
+    // Folia start - anti-xray obfuscation cache
+    private static final java.util.concurrent.atomic.AtomicLong REVISION_IDS = new java.util.concurrent.atomic.AtomicLong();
+    // unique across all containers: the upper 32 bits identify the container, the lower 32 bits count its modifications
+    private volatile long revision = REVISION_IDS.getAndIncrement() << 32;
+
+    public long getRevision() {
+        return this.revision;
+    }
+    // Folia end - anti-xray obfuscation cache
     // private final ThreadingDetector threadingDetector = new ThreadingDetector("PalettedContainer"); // Paper - unused
 
     public void acquire() {
@@ -180,6 +189,7 @@ public class PalettedContainer<T> implements PaletteResize<T>, PalettedContainer
     private synchronized T getAndSet(int index, T value) { // Paper - synchronize
         int i = this.data.palette.idFor(value);
         int j = this.data.storage.getAndSet(index, i);
+        ++this.revision; // Folia - anti-xray obfuscation cache
         return this.data.palette.valueFor(j);
     }
 
@@ -197,6 +207,7 @@ public class PalettedContainer<T> implements PaletteResize<T>, PalettedContainer
     private synchronized void set(int index, T value) { // Paper - synchronize
         int i = this.data.palette.idFor(value);
         this.data.storage.set(index, i);
+        ++this.revision; // Folia - anti-xray obfuscation cache
     }
 
     @Override
@@ -229,6 +240,7 @@ public class PalettedContainer<T> implements PaletteResize<T>, PalettedContainer
             buf.readLongArray(data.storage.getRaw());
             this.data = data;
             this.addPresetValues(); // Paper - Anti-Xray - Add preset values (inefficient, but this isn't used by the server)
+            ++this.revision; // Folia - anti-xray obfuscation cache
         } finally {
             this.release();
         }
@@ -247,6 +259,7 @@ public class PalettedContainer<T> implements PaletteResize<T>, PalettedContainer
 
             if (chunkPacketInfo != null) {
                 chunkPacketInfo.setPresetValues(chunkSectionIndex, this.presetValues);
+                chunkPacketInfo.setRevision(chunkSectionIndex, this.revision); // Folia - anti-xray obfuscation cache
             }
             // Paper end
         } finally {
@@ -256,7 +269,16 @@ public class PalettedContainer<T> implements PaletteResize<T>, PalettedContainer
     }
 
     private static <T> DataResult<PalettedContainer<T>> unpack(IdMap<T> idList, PalettedContainer.Strategy paletteProvider, PalettedContainerRO.PackedData<T> serialized, T defaultValue, T @org.jetbrains.annotations.Nullable [] presetValues) { // Paper - Anti-Xray - Add preset values
-        List<T> list = serialized.paletteEntries();
+        // Folia start - streaming chunk decode
+        return unpack(idList, paletteProvider, serialized.paletteEntries(), serialized.storage().map(LongStream::toArray).orElse(null), defaultValue, presetValues);
+    }
+
+    /**
+     * Same as the codec, but without going through a {@code PackedData}. The storage array is used as is,
+     * so it must not be shared.
+     */
+    public static <T> DataResult<PalettedContainer<T>> unpack(IdMap<T> idList, PalettedContainer.Strategy paletteProvider, List<T> list, @Nullable long[] storage, T defaultValue, T @org.jetbrains.annotations.Nullable [] presetValues) {
+        // Folia end - streaming chunk decode
         int i = paletteProvider.size();
         int j = paletteProvider.calculateBitsForSerialization(idList, list.size());
         PalettedContainer.Configuration<T> configuration = paletteProvider.getConfiguration(idList, j);
@@ -264,14 +286,13 @@ public class PalettedContainer<T> implements PaletteResize<T>, PalettedContainer
         if (j == 0) {
             bitStorage = new ZeroBitStorage(i);
         } else {
-            Optional<LongStream> optional = serialized.storage();
-            if (optional.isEmpty()) {
+            if (storage == null) { // Folia - streaming chunk decode
                 return DataResult.error(() -> {
                     return "Missing values for non-zero storage";
                 });
             }
 
-            long[] ls = optional.get().toArray();
+            long[] ls = storage; // Folia - streaming chunk decode
 
             try {
                 if (configuration.factory() == PalettedContainer.Strategy.GLOBAL_PALETTE_FACTORY) {
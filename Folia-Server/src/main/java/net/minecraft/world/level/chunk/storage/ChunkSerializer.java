@@ -180,7 +180,10 @@ public class ChunkSerializer {
 
         for (int j = 0; j < nbttaglist.size(); ++j) {
             CompoundTag nbttagcompound1 = nbttaglist.getCompound(j); CompoundTag sectionData = nbttagcompound1; // Paper
-            byte b0 = nbttagcompound1.getByte("Y");
+            // Folia start - streaming chunk decode - read the decoded section directly, any tag access would build its tags
+            final io.papermc.paper.chunk.system.io.StreamingChunkDecoder.DecodedSection decoded = io.papermc.paper.chunk.system.io.StreamingChunkDecoder.getDecoded(nbttagcompound1);
+            byte b0 = decoded != null ? decoded.getByte("Y") : nbttagcompound1.getByte("Y");
+            // Folia end - streaming chunk decode
             int k = world.getSectionIndexFromSectionY(b0);
 
             if (k >= 0 && k < achunksection.length) {
@@ -189,7 +192,14 @@ public class ChunkSerializer {
                 // Paper start - Anti-Xray - Add preset block states
                 BlockState[] presetBlockStates = world.chunkPacketBlockController.getPresetBlockStates(world, chunkPos, b0);
 
-                if (nbttagcompound1.contains("block_states", 10)) {
+                // Folia start - streaming chunk decode
+                final PalettedContainer<BlockState> decodedStates = decoded != null && decoded.hasBlockStates() ? decoded.readBlockStates(presetBlockStates, (s) -> {
+                    ChunkSerializer.logErrors(chunkPos, b0, s);
+                }) : null;
+                if (decodedStates != null) {
+                    datapaletteblock = decodedStates;
+                } else if ((decoded == null || decoded.hasBlockStates()) && nbttagcompound1.contains("block_states", 10)) { // fall back to the codec if the palette cannot be resolved
+                    // Folia end - streaming chunk decode
                     Codec<PalettedContainer<BlockState>> blockStateCodec = presetBlockStates == null ? ChunkSerializer.BLOCK_STATE_CODEC : PalettedContainer.codecRW(Block.BLOCK_STATE_REGISTRY, BlockState.CODEC, PalettedContainer.Strategy.SECTION_STATES, Blocks.AIR.defaultBlockState(), presetBlockStates);
                     dataresult = blockStateCodec.parse(NbtOps.INSTANCE, nbttagcompound1.getCompound("block_states")).promotePartial((s) -> {
                         ChunkSerializer.logErrors(chunkPos, b0, s);
@@ -204,7 +214,14 @@ public class ChunkSerializer {
 
                 PalettedContainer object; // CraftBukkit - read/write
 
-                if (nbttagcompound1.contains("biomes", 10)) {
+                // Folia start - streaming chunk decode
+                final PalettedContainer<Holder<Biome>> decodedBiomes = decoded != null && decoded.hasBiomes() ? decoded.readBiomes(iregistry, (s) -> {
+                    ChunkSerializer.logErrors(chunkPos, b0, s);
+                }) : null;
+                if (decodedBiomes != null) {
+                    object = decodedBiomes;
+                } else if ((decoded == null || decoded.hasBiomes()) && nbttagcompound1.contains("biomes", 10)) { // fall back to the codec if the palette cannot be resolved
+                    // Folia end - streaming chunk decode
                     dataresult = codec.parse(NbtOps.INSTANCE, nbttagcompound1.getCompound("biomes")).promotePartial((s) -> {
                         ChunkSerializer.logErrors(chunkPos, b0, s);
                     });
@@ -223,20 +240,22 @@ public class ChunkSerializer {
                 // Paper - rewrite chunk system - moved to final load stage
             }
 
-            boolean flag3 = nbttagcompound1.contains("BlockLight", 7);
-            boolean flag4 = flag1 && nbttagcompound1.contains("SkyLight", 7);
+            // Folia start - streaming chunk decode
+            boolean flag3 = decoded != null ? decoded.getBlockLight() != null : nbttagcompound1.contains("BlockLight", 7);
+            boolean flag4 = flag1 && (decoded != null ? decoded.getSkyLight() != null : nbttagcompound1.contains("SkyLight", 7));
+            // Folia end - streaming chunk decode
 
             // Paper start - rewrite the light engine
             if (flag) {
                 try {
-                int y = sectionData.getByte("Y");
+                int y = b0; // Folia - streaming chunk decode
                 // Paper end - rewrite the light engine
                 if (flag3) {
                     // Paper start - rewrite the light engine
                     // this is where our diff is
-                    blockNibbles[y - minSection] = new ca.spottedleaf.starlight.common.light.SWMRNibbleArray(sectionData.getByteArray("BlockLight").clone(), sectionData.getInt(BLOCKLIGHT_STATE_TAG)); // clone for data safety
+                    blockNibbles[y - minSection] = new ca.spottedleaf.starlight.common.light.SWMRNibbleArray((decoded != null ? decoded.getBlockLight() : sectionData.getByteArray("BlockLight")).clone(), decoded != null ? decoded.getInt(BLOCKLIGHT_STATE_TAG) : sectionData.getInt(BLOCKLIGHT_STATE_TAG)); // clone for data safety // Folia - streaming chunk decode
                 } else {
-                    blockNibbles[y - minSection] = new ca.spottedleaf.starlight.common.light.SWMRNibbleArray(null, sectionData.getInt(BLOCKLIGHT_STATE_TAG));
+                    blockNibbles[y - minSection] = new ca.spottedleaf.starlight.common.light.SWMRNibbleArray(null, decoded != null ? decoded.getInt(BLOCKLIGHT_STATE_TAG) : sectionData.getInt(BLOCKLIGHT_STATE_TAG)); // Folia - streaming chunk decode
                     // Paper end - rewrite the light engine
                 }
 
@@ -247,9 +266,9 @@ public class ChunkSerializer {
                     // however, for compatibility we store chunks as unlit so vanilla
                     // is forced to re-light them if it encounters our data. It's too much of a burden
                     // to try and maintain compatibility with a broken and inferior skylight management system.
-                    skyNibbles[y - minSection] = new ca.spottedleaf.starlight.common.light.SWMRNibbleArray(sectionData.getByteArray("SkyLight").clone(), sectionData.getInt(SKYLIGHT_STATE_TAG)); // clone for data safety
+                    skyNibbles[y - minSection] = new ca.spottedleaf.starlight.common.light.SWMRNibbleArray((decoded != null ? decoded.getSkyLight() : sectionData.getByteArray("SkyLight")).clone(), decoded != null ? decoded.getInt(SKYLIGHT_STATE_TAG) : sectionData.getInt(SKYLIGHT_STATE_TAG)); // clone for data safety // Folia - streaming chunk decode
                 } else if (flag1) {
-                    skyNibbles[y - minSection] = new ca.spottedleaf.starlight.common.light.SWMRNibbleArray(null, sectionData.getInt(SKYLIGHT_STATE_TAG));
+                    skyNibbles[y - minSection] = new ca.spottedleaf.starlight.common.light.SWMRNibbleArray(null, decoded != null ? decoded.getInt(SKYLIGHT_STATE_TAG) : sectionData.getInt(SKYLIGHT_STATE_TAG)); // Folia - streaming chunk decode
                     // Paper end - rewrite the light engine
                 }
 
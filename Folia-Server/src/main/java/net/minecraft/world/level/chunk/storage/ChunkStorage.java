@@ -119,7 +119,7 @@ public class ChunkStorage implements AutoCloseable {
         // Spigot end
 
         ChunkStorage.injectDatafixingContext(nbttagcompound, resourcekey, optional);
-        nbttagcompound = ca.spottedleaf.dataconverter.minecraft.MCDataConverter.convertTag(ca.spottedleaf.dataconverter.minecraft.datatypes.MCTypeRegistry.CHUNK, nbttagcompound, Math.max(1493, i), SharedConstants.getCurrentVersion().getDataVersion().getVersion()); // Paper - replace chunk converter
+        nbttagcompound = ca.spottedleaf.dataconverter.minecraft.MCDataConverter.convertTag(ca.spottedleaf.dataconverter.minecraft.datatypes.MCTypeRegistry.CHUNK, nbttagcompound, Math.max(1493, i), SharedConstants.getCurrentVersion().getDataVersion().getVersion()); // Paper - replace chunk converter // Folia - the conversion plan of data at the current version is empty, so its sections are not walked
         if (i < SharedConstants.getCurrentVersion().getDataVersion().getVersion()) {
             NbtUtils.addCurrentDataVersion(nbttagcompound);
         }
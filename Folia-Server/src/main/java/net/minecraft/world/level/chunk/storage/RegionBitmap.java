@@ -53,6 +53,16 @@ public class RegionBitmap {
         }
     }
 
+    // Folia start - batched regionfile writes
+    public int getTotalSectors() {
+        return this.used.length();
+    }
+
+    public int getFreeSectors() {
+        return this.used.length() - this.used.cardinality();
+    }
+    // Folia end - batched regionfile writes
+
     @VisibleForTesting
     public IntSet getUsed() {
         return this.used.stream().collect(IntArraySet::new, IntCollection::add, IntCollection::addAll);
@@ -90,7 +90,7 @@ public class RegionFile implements AutoCloseable {
                 return null;
             }
 
-            InputStream input = compression.wrap(new ByteArrayInputStream(chunkData.array(), chunkData.position(), chunkDataLength - chunkData.position()));
+            InputStream input = compression.wrap(new ByteArrayInputStream(chunkData.array(), chunkData.position(), chunkDataLength - chunkData.position()), this.externalFileDir); // Folia - lz4/zstd region compression
 
             return NbtIo.read(new DataInputStream(input));
         } catch (Exception ex) {
@@ -243,7 +243,7 @@ public class RegionFile implements AutoCloseable {
                     RegionFileVersion compression = null;
                     for (RegionFileVersion compressionType : RegionFileVersion.VERSIONS.values()) {
                         try {
-                            DataInputStream in = new DataInputStream(compressionType.wrap(new ByteArrayInputStream(chunkData))); // typical java
+                            DataInputStream in = new DataInputStream(compressionType.wrap(new ByteArrayInputStream(chunkData), this.externalFileDir)); // typical java // Folia - lz4/zstd region compression
                             compound = NbtIo.read((java.io.DataInput)in);
                             compression = compressionType;
                             break; // reaches here iff readNBT does not throw
@@ -402,7 +402,14 @@ public class RegionFile implements AutoCloseable {
     // Paper start - Cache chunk status
     private final net.minecraft.world.level.chunk.ChunkStatus[] statuses = new net.minecraft.world.level.chunk.ChunkStatus[32 * 32];
 
-    private boolean closed;
+    private volatile boolean closed; // Folia - concurrent regionfile cache - volatile
+    // Folia start - concurrent regionfile cache
+    public boolean cacheReferenced; // CLOCK reference bit, racy by design
+
+    public boolean isClosed() {
+        return this.closed;
+    }
+    // Folia end - concurrent regionfile cache
 
     // invoked on write/read
     public void setStatus(int x, int z, net.minecraft.world.level.chunk.ChunkStatus status) {
@@ -424,11 +431,11 @@ public class RegionFile implements AutoCloseable {
     // Paper end
 
     public RegionFile(Path file, Path directory, boolean dsync) throws IOException {
-        this(file, directory, RegionFileVersion.getCompressionFormat(), dsync); // Paper - Configurable region compression format
+        this(file, directory, RegionFileVersion.getCompressionFormat(directory), dsync); // Paper - Configurable region compression format // Folia - lz4/zstd region compression
     }
     // Paper start - add can recalc flag
     public RegionFile(Path file, Path directory, boolean dsync, boolean canRecalcHeader) throws IOException {
-        this(file, directory, RegionFileVersion.getCompressionFormat(), dsync, canRecalcHeader); // Paper - Configurable region compression format
+        this(file, directory, RegionFileVersion.getCompressionFormat(directory), dsync, canRecalcHeader); // Paper - Configurable region compression format // Folia - lz4/zstd region compression
     }
     // Paper end - add can recalc flag
 
@@ -583,6 +590,16 @@ public class RegionFile implements AutoCloseable {
 
     @Nullable
     public synchronized DataInputStream getChunkDataInputStream(ChunkPos pos) throws IOException {
+        // Folia start - batched regionfile writes
+        final PendingWrite pending = this.pendingWrites.isEmpty() ? null : this.pendingWrites.get(RegionFile.getOffsetIndex(pos));
+        if (pending != null) {
+            // copy, the buffer may go back to the pool once committed
+            final ByteBuffer data = pending.data();
+            final byte[] copy = new byte[data.remaining() - 5];
+            data.get(5, copy);
+            return this.createChunkInputStream(pos, data.get(4), new ByteArrayInputStream(copy));
+        }
+        // Folia end - batched regionfile writes
         int i = this.getOffset(pos);
 
         if (i == 0) {
@@ -598,10 +615,27 @@ public class RegionFile implements AutoCloseable {
             }
             // Spigot end
             int l = k * 4096;
-            ByteBuffer bytebuffer = ByteBuffer.allocate(l);
+            // Folia start - pooled/mapped regionfile buffers
+            final io.papermc.paper.chunk.system.io.RegionFileBuffers.Mode bufferMode = io.papermc.paper.chunk.system.io.RegionFileBuffers.getMode();
+            ByteBuffer bytebuffer = null;
+            byte[] pooledBuffer = null;
+            // the mapping is read after this function returns, which is only safe while writers are excluded:
+            // otherwise the sectors could be freed and reused by another chunk while the stream is being read
+            if (bufferMode == io.papermc.paper.chunk.system.io.RegionFileBuffers.Mode.MEMORY_MAPPED && this.fileLock.isHeldByCurrentThread()) {
+                bytebuffer = this.getMappedSectors((long)j * 4096L, l);
+            }
+            if (bytebuffer == null) {
+                if (bufferMode == io.papermc.paper.chunk.system.io.RegionFileBuffers.Mode.ALLOCATE) {
+                    bytebuffer = ByteBuffer.wrap(io.papermc.paper.chunk.system.io.RegionFileBuffers.allocate(l));
+                } else {
+                    pooledBuffer = io.papermc.paper.chunk.system.io.RegionFileBuffers.acquire(l);
+                    bytebuffer = ByteBuffer.wrap(pooledBuffer, 0, l);
+                }
+            // Folia end - pooled/mapped regionfile buffers
 
             this.file.read(bytebuffer, (long) (j * 4096));
             ((java.nio.Buffer) bytebuffer).flip(); // CraftBukkit - decompile error
+            } // Folia - pooled/mapped regionfile buffers
             if (bytebuffer.remaining() < 5) {
                 RegionFile.LOGGER.error("Chunk {} header is truncated: expected {} but read {}", new Object[]{pos, l, bytebuffer.remaining()});
                 // Paper start - recalculate header on regionfile corruption
@@ -660,7 +694,7 @@ public class RegionFile implements AutoCloseable {
                         return null;
                     } else {
                         // Paper start - recalculate header on regionfile corruption
-                        final DataInputStream ret = this.createChunkInputStream(pos, b0, RegionFile.createStream(bytebuffer, j1));
+                        final DataInputStream ret = this.createChunkInputStream(pos, b0, RegionFile.createStream(bytebuffer, j1, pooledBuffer)); // Folia - pooled/mapped regionfile buffers
                         if (ret == null && this.canRecalcHeader && this.recalculateHeader()) {
                             return this.getChunkDataInputStream(pos);
                         }
@@ -692,7 +726,7 @@ public class RegionFile implements AutoCloseable {
             RegionFile.LOGGER.error("Chunk {} has invalid chunk stream version {}", pos, flags);
             return null;
         } else {
-            return new DataInputStream(regionfilecompression.wrap(stream));
+            return new DataInputStream(regionfilecompression.wrap(stream, this.externalFileDir)); // Folia - lz4/zstd region compression
         }
     }
 
@@ -712,6 +746,55 @@ public class RegionFile implements AutoCloseable {
         return new ByteArrayInputStream(buffer.array(), buffer.position(), length);
     }
 
+    // Folia start - pooled/mapped regionfile buffers
+    private static InputStream createStream(ByteBuffer buffer, int length, @Nullable byte[] pooledBuffer) {
+        if (!buffer.hasArray()) {
+            return io.papermc.paper.chunk.system.io.RegionFileBuffers.createStream(buffer.slice(buffer.position(), length));
+        }
+        if (pooledBuffer != null) {
+            return io.papermc.paper.chunk.system.io.RegionFileBuffers.createPooledStream(pooledBuffer, buffer.position(), length);
+        }
+        return RegionFile.createStream(buffer, length);
+    }
+
+    @Nullable
+    private java.nio.MappedByteBuffer mapping; // guarded by this
+    // mappings replaced after the file grew, streams of the current reader may still use them
+    private final java.util.List<java.nio.MappedByteBuffer> retiredMappings = new java.util.ArrayList<>(); // guarded by this
+
+    // returns null if the sectors are not entirely inside the file, so that the copying read reports the truncation
+    @Nullable
+    private ByteBuffer getMappedSectors(long offset, int length) throws IOException {
+        final long end = offset + (long)length;
+        java.nio.MappedByteBuffer mapping = this.mapping;
+        if (mapping == null || (long)mapping.capacity() < end) {
+            final long size = this.file.size();
+            if (end > size || size > (long)Integer.MAX_VALUE) {
+                return null;
+            }
+            // the file only grows, so remapping happens once per growth. old mappings are released on close
+            if (mapping != null) {
+                this.retiredMappings.add(mapping);
+            }
+            this.mapping = mapping = this.file.map(FileChannel.MapMode.READ_ONLY, 0L, size);
+        }
+        io.papermc.paper.chunk.system.io.RegionFileBuffers.recordMappedRead();
+        return mapping.slice((int)offset, length);
+    }
+
+    // only called on close: mapped streams are only read while holding the file lock, which close holds as well
+    private void releaseMappings() {
+        if (this.mapping != null) {
+            io.netty.util.internal.PlatformDependent.freeDirectBuffer(this.mapping);
+            this.mapping = null;
+        }
+        for (final java.nio.MappedByteBuffer retired : this.retiredMappings) {
+            io.netty.util.internal.PlatformDependent.freeDirectBuffer(retired);
+        }
+        this.retiredMappings.clear();
+    }
+    // Folia end - pooled/mapped regionfile buffers
+
     private int packSectorOffset(int offset, int size) {
         return offset << 8 | size;
     }
@@ -729,6 +812,11 @@ public class RegionFile implements AutoCloseable {
     }
 
     public synchronized boolean doesChunkExist(ChunkPos pos) { // Paper - synchronized
+        // Folia start - batched regionfile writes
+        if (this.pendingWrites.containsKey(RegionFile.getOffsetIndex(pos))) {
+            return true;
+        }
+        // Folia end - batched regionfile writes
         int i = this.getOffset(pos);
 
         if (i == 0) {
@@ -781,15 +869,17 @@ public class RegionFile implements AutoCloseable {
     }
 
     public DataOutputStream getChunkDataOutputStream(ChunkPos pos) throws IOException {
-        return new DataOutputStream(this.version.wrap((OutputStream) (new RegionFile.ChunkBuffer(pos))));
+        return new DataOutputStream(this.version.wrap((OutputStream) (new RegionFile.ChunkBuffer(pos)), this.externalFileDir)); // Folia - lz4/zstd region compression
     }
 
     public void flush() throws IOException {
+        this.commitPendingWrites(); // Folia - batched regionfile writes
         this.file.force(true);
     }
 
     public void clear(ChunkPos pos) throws IOException {
         int i = RegionFile.getOffsetIndex(pos);
+        this.discardPendingWrite(i); // Folia - batched regionfile writes
         int j = this.offsets.get(i);
 
         if (j != 0) {
@@ -803,6 +893,7 @@ public class RegionFile implements AutoCloseable {
 
     protected synchronized void write(ChunkPos pos, ByteBuffer buf) throws IOException {
         int i = RegionFile.getOffsetIndex(pos);
+        this.discardPendingWrite(i); // Folia - batched regionfile writes - this write is newer
         int j = this.offsets.get(i);
         int k = RegionFile.getSectorNumber(j);
         int l = RegionFile.getNumSectors(j);
@@ -892,7 +983,14 @@ public class RegionFile implements AutoCloseable {
     }
 
     public boolean hasChunk(ChunkPos pos) {
-        return this.getOffset(pos) != 0;
+        // Folia start - batched regionfile writes
+        if (this.getOffset(pos) != 0) {
+            return true;
+        }
+        synchronized (this) {
+            return this.pendingWrites.containsKey(RegionFile.getOffsetIndex(pos));
+        }
+        // Folia end - batched regionfile writes
     }
 
     private static int getChunkLocation(int x, int z) { return (x & 31) + (z & 31) * 32; } // Paper - OBFHELPER - sort of, mirror of logic below
@@ -906,7 +1004,15 @@ public class RegionFile implements AutoCloseable {
         synchronized (this) {
         try {
         // Paper end
+        // Folia start - batched regionfile writes
+        try {
+            this.commitPendingWritesLocked();
+        } catch (final IOException ex) {
+            LOGGER.error("Failed to write pending chunks to regionfile " + this.regionFile.toAbsolutePath() + ", they will be lost", ex);
+        }
+        // Folia end - batched regionfile writes
         this.closed = true; // Paper
+        this.releaseMappings(); // Folia - pooled/mapped regionfile buffers
         try {
             this.padToFullSector();
         } finally {
@@ -1007,12 +1113,311 @@ public class RegionFile implements AutoCloseable {
     public static final int MAX_CHUNK_SIZE = 500 * 1024 * 1024; // Paper - don't write garbage data to disk if writing serialization fails
 
     // Paper end
+
+    // Folia start - batched regionfile writes
+    private static final ByteBuffer ZERO_SECTOR = ByteBuffer.allocateDirect(4096);
+
+    private static record PendingWrite(ChunkPos pos, ByteBuffer data, @Nullable byte[] pooledBuffer, long queuedAt) {}
+
+    // guarded by this
+    private final it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap<PendingWrite> pendingWrites = new it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap<>();
+
+    private synchronized void discardPendingWrite(int index) {
+        final PendingWrite pending = this.pendingWrites.remove(index);
+        if (pending != null && pending.pooledBuffer() != null) {
+            io.papermc.paper.chunk.system.io.RegionFileBuffers.release(pending.pooledBuffer());
+        }
+    }
+
+    // returns whether the chunk data (and the pooled buffer) is now owned by the pending write
+    synchronized boolean deferWrite(ChunkPos pos, ByteBuffer buf, @Nullable byte[] pooledBuffer) {
+        // oversized chunks go to an external file, which is written immediately
+        if (this.closed || RegionFile.sizeToSectors(buf.remaining()) >= 256) {
+            return false;
+        }
+
+        this.discardPendingWrite(RegionFile.getOffsetIndex(pos));
+        this.pendingWrites.put(RegionFile.getOffsetIndex(pos), new PendingWrite(pos, buf, pooledBuffer, System.nanoTime()));
+
+        // committing needs the file lock, which writers through the regionfile cache already hold
+        if (this.pendingWrites.size() >= io.papermc.paper.chunk.system.io.RegionFileWriteBatching.getMaxBatchSize() && this.fileLock.isHeldByCurrentThread()) {
+            try {
+                this.commitPendingWritesLocked();
+            } catch (final IOException ex) {
+                // the chunks stay pending, the I/O thread retries the commit once its queue drains
+                LOGGER.error("Failed to commit batched chunk writes to regionfile " + this.regionFile.toAbsolutePath(), ex);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Writes all pending chunks to the file: sectors are allocated in chunk order, contiguous sectors are written with
+     * one write, then the header is written once and finally the sectors of the previous data are freed. If the
+     * data or the header cannot be written, the pending chunks are kept and the allocated sectors are released.
+     */
+    public void commitPendingWrites() throws IOException {
+        this.fileLock.lock();
+        try {
+            synchronized (this) {
+                this.commitPendingWritesLocked();
+            }
+        } finally {
+            this.fileLock.unlock();
+        }
+    }
+
+    private void commitPendingWritesLocked() throws IOException {
+        final int size = this.pendingWrites.size();
+        if (size == 0 || this.closed) {
+            return;
+        }
+
+        final long start = System.nanoTime();
+        final int[] indices = this.pendingWrites.keySet().toIntArray();
+        java.util.Arrays.sort(indices);
+
+        final PendingWrite[] writes = new PendingWrite[size];
+        final int[] sectors = new int[size];
+        final int[] counts = new int[size];
+        final int[] order = new int[size];
+        for (int i = 0; i < size; ++i) {
+            writes[i] = this.pendingWrites.get(indices[i]);
+            counts[i] = RegionFile.sizeToSectors(writes[i].data().remaining());
+            sectors[i] = this.usedSectors.allocate(counts[i]);
+            order[i] = i;
+        }
+        it.unimi.dsi.fastutil.ints.IntArrays.quickSort(order, (final int a, final int b) -> Integer.compare(sectors[a], sectors[b]));
+
+        int writeOperations = 0;
+        try {
+            for (int i = 0; i < size;) {
+                int end = i + 1;
+                while (end < size && sectors[order[end]] == sectors[order[end - 1]] + counts[order[end - 1]]) {
+                    ++end;
+                }
+
+                // [i, end) occupy contiguous sectors, pad all but the last to their sector boundary
+                final ByteBuffer[] buffers = new ByteBuffer[(end - i) * 2];
+                int buffersLength = 0;
+                long remaining = 0L;
+                for (int k = i; k < end; ++k) {
+                    final ByteBuffer data = writes[order[k]].data().duplicate();
+                    buffers[buffersLength++] = data;
+                    remaining += (long)data.remaining();
+                    final int padding = counts[order[k]] * 4096 - data.remaining();
+                    if (k + 1 < end && padding > 0) {
+                        buffers[buffersLength++] = ZERO_SECTOR.duplicate().limit(padding);
+                        remaining += (long)padding;
+                    }
+                }
+
+                // there is no positional gathering write, but every other access to the channel is positional
+                this.file.position((long)sectors[order[i]] * 4096L);
+                while (remaining > 0L) {
+                    remaining -= this.file.write(buffers, 0, buffersLength);
+                }
+                ++writeOperations;
+
+                i = end;
+            }
+        } catch (final IOException ex) {
+            for (int i = 0; i < size; ++i) {
+                this.usedSectors.free(sectors[i], counts[i]);
+            }
+            io.papermc.paper.chunk.system.io.RegionFileWriteBatching.recordFailedCommit();
+            throw ex;
+        }
+
+        final int timestamp = RegionFile.getTimestamp();
+        final int[] previous = new int[size];
+        final int[] previousTimestamps = new int[size];
+        for (int i = 0; i < size; ++i) {
+            previous[i] = this.offsets.get(indices[i]);
+            previousTimestamps[i] = this.timestamps.get(indices[i]);
+            this.offsets.put(indices[i], this.packSectorOffset(sectors[i], counts[i]));
+            this.timestamps.put(indices[i], timestamp);
+        }
+
+        try {
+            this.writeHeader();
+        } catch (final IOException ex) {
+            // the header on disk may still reference the old data, so keep it and the chunks pending
+            for (int i = 0; i < size; ++i) {
+                this.offsets.put(indices[i], previous[i]);
+                this.timestamps.put(indices[i], previousTimestamps[i]);
+                this.usedSectors.free(sectors[i], counts[i]);
+            }
+            io.papermc.paper.chunk.system.io.RegionFileWriteBatching.recordFailedCommit();
+            throw ex;
+        }
+
+        // the header on disk now references the new data, so from here on the writes are done
+        final long now = System.nanoTime();
+        long totalLatency = 0L;
+        long maxLatency = 0L;
+        this.pendingWrites.clear();
+        for (int i = 0; i < size; ++i) {
+            final PendingWrite write = writes[i];
+            final long latency = now - write.queuedAt();
+            totalLatency += latency;
+            maxLatency = Math.max(maxLatency, latency);
+            if (write.pooledBuffer() != null) {
+                io.papermc.paper.chunk.system.io.RegionFileBuffers.release(write.pooledBuffer());
+            }
+            Files.deleteIfExists(this.getExternalChunkPath(write.pos()));
+            // only free once the header on disk no longer references the old data
+            if (previous[i] != 0) {
+                this.usedSectors.free(RegionFile.getSectorNumber(previous[i]), RegionFile.getNumSectors(previous[i]));
+            }
+        }
+
+        io.papermc.paper.chunk.system.io.RegionFileWriteBatching.recordCommit(
+            size, writeOperations + 1, System.nanoTime() - start, totalLatency, maxLatency,
+            this.usedSectors.getFreeSectors(), this.usedSectors.getTotalSectors()
+        );
+    }
+    // Folia end - batched regionfile writes
+
+    // Folia start - regionfile compaction
+    public static record CompactionResult(int chunks, int foldedExternalChunks, long sizeBefore, long sizeAfter) {}
+
+    /**
+     * Rewrites the specified regionfile so that its chunks are stored contiguously in chunk index order, dropping
+     * every free sector. External chunks small enough to fit into the regionfile are folded back into it.
+     * The regionfile must not be open anywhere else while it is compacted.
+     */
+    public static CompactionResult compact(Path file, Path directory) throws IOException {
+        final long sizeBefore = Files.size(file);
+        final Path compacted = file.resolveSibling(file.getFileName().toString() + ".compact");
+        final java.util.List<Path> folded = new java.util.ArrayList<>();
+        final int chunks;
+
+        try (final RegionFile regionFile = new RegionFile(file, directory, false)) {
+            chunks = regionFile.writeCompacted(compacted, folded);
+        } catch (final IOException ex) {
+            Files.deleteIfExists(compacted);
+            throw ex;
+        }
+
+        Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // only delete once the regionfile holding their data has replaced the old one
+        for (final Path external : folded) {
+            Files.deleteIfExists(external);
+        }
+
+        return new CompactionResult(chunks, folded.size(), sizeBefore, Files.size(file));
+    }
+
+    private synchronized int writeCompacted(Path target, java.util.List<Path> folded) throws IOException {
+        final ChunkPos regionPos = RegionFileStorage.getRegionFileCoordinates(this.regionFile);
+        if (regionPos == null) {
+            throw new IOException("Not a regionfile: " + this.regionFile.toAbsolutePath());
+        }
+
+        final ByteBuffer header = ByteBuffer.allocate(8192);
+        int chunks = 0;
+        int nextSector = 2;
+
+        try (final FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (int index = 0; index < 32 * 32; ++index) {
+                final int offset = this.offsets.get(index);
+                if (offset == 0) {
+                    continue;
+                }
+
+                final ChunkPos pos = new ChunkPos(regionPos.x + (index & 31), regionPos.z + (index >>> 5));
+                final ByteBuffer data = this.readForCompaction(pos, offset, folded);
+                if (!data.hasRemaining()) {
+                    // points past the end of the file, there is nothing to keep
+                    continue;
+                }
+                final int sectors = RegionFile.sizeToSectors(data.remaining());
+
+                while (data.hasRemaining()) {
+                    out.write(data, (long)nextSector * 4096L + (long)data.position());
+                }
+
+                // keep the spigot behaviour of storing 255 for chunks with more sectors
+                header.putInt(index * 4, this.packSectorOffset(nextSector, Math.min(255, sectors)));
+                header.putInt(4096 + index * 4, this.timestamps.get(index));
+                nextSector += sectors;
+                ++chunks;
+            }
+
+            while (header.hasRemaining()) {
+                out.write(header, (long)header.position());
+            }
+            // pad to a full sector, as the last chunk rarely fills its last sector
+            if (out.size() < (long)nextSector * 4096L) {
+                out.write(RegionFile.PADDING_BUFFER.duplicate().position(0), (long)nextSector * 4096L - 1L);
+            }
+            out.force(true);
+        }
+
+        return chunks;
+    }
+
+    private ByteBuffer readForCompaction(ChunkPos pos, int offset, java.util.List<Path> folded) throws IOException {
+        final int sector = RegionFile.getSectorNumber(offset);
+        int sectors = RegionFile.getNumSectors(offset);
+        if (sectors == 255) {
+            final ByteBuffer realLen = ByteBuffer.allocate(4);
+            this.file.read(realLen, (long)sector * 4096L);
+            sectors = Math.max(sectors, (realLen.getInt(0) + 4) / 4096 + 1);
+        }
+
+        final ByteBuffer data = ByteBuffer.allocate(sectors * 4096);
+        while (data.hasRemaining() && this.file.read(data, (long)sector * 4096L + (long)data.position()) >= 0);
+        data.flip();
+
+        if (data.remaining() < 5) {
+            // copy whatever is there, compaction must not lose anything that is readable or recoverable
+            return data;
+        }
+
+        final int length = data.getInt(0);
+        final byte flags = data.get(4);
+
+        if (RegionFile.isExternalStreamChunk(flags)) {
+            final Path external = this.getExternalChunkPath(pos);
+            if (Files.isRegularFile(external) && RegionFile.sizeToSectors((int)Math.min((long)Integer.MAX_VALUE, Files.size(external) + 5L)) < EXTERNAL_CHUNK_THRESHOLD) {
+                final byte[] externalData = Files.readAllBytes(external);
+                final ByteBuffer ret = ByteBuffer.allocate(externalData.length + 5);
+                ret.putInt(externalData.length + 1);
+                ret.put(RegionFile.getExternalChunkVersion(flags));
+                ret.put(externalData);
+                folded.add(external);
+                return ret.flip();
+            }
+            // still too large, keep the stub
+            return data.limit(5);
+        }
+
+        if (length <= 0 || length + 4 > data.remaining()) {
+            // corrupt, copy the sectors as they are
+            return data;
+        }
+
+        return data.limit(length + 4);
+    }
+    // Folia end - regionfile compaction
+
     private class ChunkBuffer extends ByteArrayOutputStream {
 
         private final ChunkPos pos;
 
+        // Folia start - pooled/mapped regionfile buffers
+        private final boolean pooled = io.papermc.paper.chunk.system.io.RegionFileBuffers.getMode() != io.papermc.paper.chunk.system.io.RegionFileBuffers.Mode.ALLOCATE;
+        private boolean released;
+        // Folia end - pooled/mapped regionfile buffers
+
         public ChunkBuffer(ChunkPos chunkcoordintpair) {
-            super(8096);
+            super(0); // Folia - pooled/mapped regionfile buffers - set below
+            // Folia start - pooled/mapped regionfile buffers
+            this.buf = this.pooled ? io.papermc.paper.chunk.system.io.RegionFileBuffers.acquire(8096) : io.papermc.paper.chunk.system.io.RegionFileBuffers.allocate(8096);
+            // Folia end - pooled/mapped regionfile buffers
             super.write(0);
             super.write(0);
             super.write(0);
@@ -1027,7 +1432,13 @@ public class RegionFile implements AutoCloseable {
             if (this.count > MAX_CHUNK_SIZE) {
                 throw new RegionFileStorage.RegionFileSizeException("Region file too large: " + this.count);
             }
+            // Folia start - pooled/mapped regionfile buffers
+            final byte[] prev = this.buf;
             super.write(b);
+            if (prev != this.buf) {
+                io.papermc.paper.chunk.system.io.RegionFileBuffers.recordAllocation(this.buf.length);
+            }
+            // Folia end - pooled/mapped regionfile buffers
         }
 
         @Override
@@ -1035,15 +1446,48 @@ public class RegionFile implements AutoCloseable {
             if (this.count + len > MAX_CHUNK_SIZE) {
                 throw new RegionFileStorage.RegionFileSizeException("Region file too large: " + (this.count + len));
             }
+            // Folia start - pooled/mapped regionfile buffers
+            final byte[] prev = this.buf;
             super.write(b, off, len);
+            if (prev != this.buf) {
+                io.papermc.paper.chunk.system.io.RegionFileBuffers.recordAllocation(this.buf.length);
+            }
+            // Folia end - pooled/mapped regionfile buffers
         }
         // Paper end
 
         public void close() throws IOException {
+            // Folia start - pooled/mapped regionfile buffers
+            if (this.released) {
+                return;
+            }
+            boolean deferred = false; // Folia - batched regionfile writes
+            try {
+            // Folia end - pooled/mapped regionfile buffers
             ByteBuffer bytebuffer = ByteBuffer.wrap(this.buf, 0, this.count);
 
             bytebuffer.putInt(0, this.count - 5 + 1);
+            // Folia start - batched regionfile writes
+            deferred = io.papermc.paper.chunk.system.io.RegionFileWriteBatching.shouldBatchCurrentThread() && RegionFile.this.deferWrite(this.pos, bytebuffer, this.pooled ? this.buf : null);
+            if (deferred) {
+                io.papermc.paper.chunk.system.io.RegionFileIOThread.addBatchedRegionFile(RegionFile.this);
+            } else {
+            // Folia end - batched regionfile writes
             RegionFile.this.write(this.pos, bytebuffer);
+            } // Folia - batched regionfile writes
+            // Folia start - pooled/mapped regionfile buffers
+            } finally {
+                this.released = true;
+                if (this.pooled) {
+                    final byte[] buffer = this.buf;
+                    this.buf = new byte[0];
+                    this.count = 0;
+                    if (!deferred) { // Folia - batched regionfile writes - owned by the pending write
+                    io.papermc.paper.chunk.system.io.RegionFileBuffers.release(buffer);
+                    } // Folia - batched regionfile writes
+                }
+            }
+            // Folia end - pooled/mapped regionfile buffers
         }
     }
 
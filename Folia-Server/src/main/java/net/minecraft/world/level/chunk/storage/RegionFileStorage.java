@@ -21,7 +21,135 @@ public class RegionFileStorage implements AutoCloseable {
 
     public static final String ANVIL_EXTENSION = ".mca";
     private static final int MAX_CACHE_SIZE = 256;
-    public final Long2ObjectLinkedOpenHashMap<RegionFile> regionCache = new Long2ObjectLinkedOpenHashMap();
+    // Folia start - concurrent regionfile cache
+    public final java.util.concurrent.ConcurrentHashMap<Long, RegionFile> regionCache = new java.util.concurrent.ConcurrentHashMap<>();
+    // opening and closing a regionfile is done while holding the stripe for its key, so that the same file is never open twice
+    private static final int OPEN_LOCK_STRIPES = 64;
+    private final Object[] openLocks = new Object[OPEN_LOCK_STRIPES];
+    {
+        for (int i = 0; i < this.openLocks.length; ++i) {
+            this.openLocks[i] = new Object();
+        }
+    }
+    // CLOCK eviction order, guarded by itself. Contains every key in regionCache.
+    private final java.util.ArrayDeque<Long> clock = new java.util.ArrayDeque<>();
+    private final java.util.concurrent.atomic.LongAdder cacheHits = new java.util.concurrent.atomic.LongAdder();
+    private final java.util.concurrent.atomic.LongAdder cacheMisses = new java.util.concurrent.atomic.LongAdder();
+    private final java.util.concurrent.atomic.LongAdder filesOpened = new java.util.concurrent.atomic.LongAdder();
+    private final java.util.concurrent.atomic.LongAdder filesClosed = new java.util.concurrent.atomic.LongAdder();
+
+    public static record CacheStatistics(long hits, long misses, long opened, long closed, int size) {
+
+        public double hitRate() {
+            final long total = this.hits + this.misses;
+            return total == 0L ? 1.0 : (double)this.hits / (double)total;
+        }
+    }
+
+    public CacheStatistics getCacheStatistics() {
+        return new CacheStatistics(
+            this.cacheHits.sum(), this.cacheMisses.sum(), this.filesOpened.sum(), this.filesClosed.sum(), this.regionCache.size()
+        );
+    }
+
+    private Object getOpenLock(final long key) {
+        return this.openLocks[(int)it.unimi.dsi.fastutil.HashCommon.mix(key) & (OPEN_LOCK_STRIPES - 1)];
+    }
+
+    private void evictToSize(final int maxSize) throws IOException {
+        while (this.regionCache.size() > maxSize) {
+            Long victim = null;
+            synchronized (this.clock) {
+                // give every referenced file a second chance, then take whatever is at the hand
+                for (int i = 0, max = this.clock.size() << 1; i <= max; ++i) {
+                    final Long key = this.clock.pollFirst();
+                    if (key == null) {
+                        break;
+                    }
+                    final RegionFile file = this.regionCache.get(key);
+                    if (file == null) {
+                        // stale
+                        continue;
+                    }
+                    if (file.fileLock.isHeldByCurrentThread()) {
+                        // closing it would pull it out from under ourselves
+                        this.clock.addLast(key);
+                        continue;
+                    }
+                    if (file.cacheReferenced && i < max) {
+                        file.cacheReferenced = false;
+                        this.clock.addLast(key);
+                        continue;
+                    }
+                    victim = key;
+                    break;
+                }
+            }
+
+            if (victim == null) {
+                return;
+            }
+
+            synchronized (this.getOpenLock(victim.longValue())) {
+                final RegionFile file = this.regionCache.remove(victim);
+                if (file != null) {
+                    this.filesClosed.increment();
+                    // waits for any user holding the file lock, users that locked after this will see it closed and retry
+                    file.close();
+                }
+            }
+        }
+    }
+    // Folia end - concurrent regionfile cache
+    // Folia start - regionfile compaction
+    public Path getFolder() {
+        return this.folder;
+    }
+
+    // regionfiles being compacted, opening them waits for the compaction to complete
+    private final java.util.concurrent.ConcurrentHashMap<Long, java.util.concurrent.CompletableFuture<Void>> compactions = new java.util.concurrent.ConcurrentHashMap<>();
+
+    /**
+     * Compacts the specified regionfile, closing it first if it is open. Users of the regionfile block until the
+     * compaction is done, after which the next access opens the compacted file. Other regionfiles stay usable while
+     * it is compacted. Returns {@code null} if the regionfile does not exist.
+     */
+    @Nullable
+    public RegionFile.CompactionResult compactRegionFile(final int regionX, final int regionZ) throws IOException {
+        final long key = ChunkPos.asLong(regionX, regionZ);
+        final Long boxedKey = Long.valueOf(key);
+        final java.util.concurrent.CompletableFuture<Void> compaction = new java.util.concurrent.CompletableFuture<>();
+        try {
+            for (;;) {
+                final java.util.concurrent.CompletableFuture<Void> running;
+                synchronized (this.getOpenLock(key)) {
+                    running = this.compactions.putIfAbsent(boxedKey, compaction);
+                    if (running == null) {
+                        final RegionFile regionfile = this.regionCache.remove(boxedKey);
+                        if (regionfile != null) {
+                            this.filesClosed.increment();
+                            // writes out any pending chunks
+                            regionfile.close();
+                        }
+                        break;
+                    }
+                }
+                // compacted by another thread, wait without holding the stripe lock
+                running.join();
+            }
+
+            final Path file = this.folder.resolve("r." + regionX + "." + regionZ + ".mca"); // Paper - diff on change
+            if (!java.nio.file.Files.isRegularFile(file)) {
+                return null;
+            }
+            // the regionfile cannot be opened until the compaction completes, so the stripe lock is not needed
+            return RegionFile.compact(file, this.folder);
+        } finally {
+            this.compactions.remove(boxedKey, compaction);
+            compaction.complete(null);
+        }
+    }
+    // Folia end - regionfile compaction
     private final Path folder;
     private final boolean sync;
     private final boolean isChunkData; // Paper
@@ -29,27 +157,33 @@ public class RegionFileStorage implements AutoCloseable {
     // Paper start - cache regionfile does not exist state
     static final int MAX_NON_EXISTING_CACHE = 1024 * 64;
     private final it.unimi.dsi.fastutil.longs.LongLinkedOpenHashSet nonExistingRegionFiles = new it.unimi.dsi.fastutil.longs.LongLinkedOpenHashSet();
-    private synchronized boolean doesRegionFilePossiblyExist(long position) {
+    private boolean doesRegionFilePossiblyExist(long position) {
+        synchronized (this.nonExistingRegionFiles) { // Folia - concurrent regionfile cache
         if (this.nonExistingRegionFiles.contains(position)) {
             this.nonExistingRegionFiles.addAndMoveToFirst(position);
             return false;
         }
         return true;
+        } // Folia - concurrent regionfile cache
     }
 
-    private synchronized void createRegionFile(long position) {
+    private void createRegionFile(long position) {
+        synchronized (this.nonExistingRegionFiles) { // Folia - concurrent regionfile cache
         this.nonExistingRegionFiles.remove(position);
+        } // Folia - concurrent regionfile cache
     }
 
-    private synchronized void markNonExisting(long position) {
+    private void markNonExisting(long position) {
+        synchronized (this.nonExistingRegionFiles) { // Folia - concurrent regionfile cache
         if (this.nonExistingRegionFiles.addAndMoveToFirst(position)) {
             while (this.nonExistingRegionFiles.size() >= MAX_NON_EXISTING_CACHE) {
                 this.nonExistingRegionFiles.removeLastLong();
             }
         }
+        } // Folia - concurrent regionfile cache
     }
 
-    public synchronized boolean doesRegionFileNotExistNoIO(ChunkPos pos) {
+    public boolean doesRegionFileNotExistNoIO(ChunkPos pos) { // Folia - concurrent regionfile cache
         long key = ChunkPos.asLong(pos.getRegionX(), pos.getRegionZ());
         return !this.doesRegionFilePossiblyExist(key);
     }
@@ -90,41 +224,103 @@ public class RegionFileStorage implements AutoCloseable {
         }
     }
     
-    public synchronized RegionFile getRegionFileIfLoaded(ChunkPos chunkcoordintpair) {
-        return this.regionCache.getAndMoveToFirst(ChunkPos.asLong(chunkcoordintpair.getRegionX(), chunkcoordintpair.getRegionZ()));
+    public RegionFile getRegionFileIfLoaded(ChunkPos chunkcoordintpair) { // Folia - concurrent regionfile cache
+        // Folia start - concurrent regionfile cache
+        final RegionFile regionfile = this.regionCache.get(Long.valueOf(ChunkPos.asLong(chunkcoordintpair.getRegionX(), chunkcoordintpair.getRegionZ())));
+        if (regionfile != null && !regionfile.cacheReferenced) {
+            regionfile.cacheReferenced = true;
+        }
+        return regionfile;
+    }
+
+    public RegionFile getRegionFileIfLoaded(ChunkPos chunkcoordintpair, boolean lock) {
+        for (;;) {
+            final RegionFile regionfile = this.getRegionFileIfLoaded(chunkcoordintpair);
+            if (regionfile == null || !lock) {
+                return regionfile;
+            }
+            regionfile.fileLock.lock();
+            if (!regionfile.isClosed()) {
+                return regionfile;
+            }
+            // evicted between the lookup and the lock
+            regionfile.fileLock.unlock();
+        }
+        // Folia end - concurrent regionfile cache
     }
 
-    public synchronized boolean chunkExists(ChunkPos pos) throws IOException {
-        RegionFile regionfile = getRegionFile(pos, true);
+    public boolean chunkExists(ChunkPos pos) throws IOException { // Folia - concurrent regionfile cache
+        RegionFile regionfile = getRegionFile(pos, true, true); // Folia - concurrent regionfile cache - lock, so that it is not closed while in use
 
-        return regionfile != null ? regionfile.hasChunk(pos) : false;
+        // Folia start - concurrent regionfile cache
+        if (regionfile == null) {
+            return false;
+        }
+        try {
+            return regionfile.hasChunk(pos);
+        } finally {
+            regionfile.fileLock.unlock();
+        }
+        // Folia end - concurrent regionfile cache
     }
 
-    public synchronized RegionFile getRegionFile(ChunkPos chunkcoordintpair, boolean existingOnly) throws IOException { // CraftBukkit
+    public RegionFile getRegionFile(ChunkPos chunkcoordintpair, boolean existingOnly) throws IOException { // CraftBukkit // Folia - concurrent regionfile cache
         return this.getRegionFile(chunkcoordintpair, existingOnly, false);
     }
-    public synchronized RegionFile getRegionFile(ChunkPos chunkcoordintpair, boolean existingOnly, boolean lock) throws IOException {
+    public RegionFile getRegionFile(ChunkPos chunkcoordintpair, boolean existingOnly, boolean lock) throws IOException { // Folia - concurrent regionfile cache
         // Paper end
+        // Folia start - concurrent regionfile cache
+        for (;;) {
+            final RegionFile regionfile = this.getOrOpenRegionFile(chunkcoordintpair, existingOnly);
+            if (regionfile == null || !lock) {
+                return regionfile;
+            }
+            regionfile.fileLock.lock();
+            if (!regionfile.isClosed()) {
+                return regionfile;
+            }
+            // evicted between the lookup and the lock, the next lookup will open it again
+            regionfile.fileLock.unlock();
+        }
+    }
+
+    private RegionFile getOrOpenRegionFile(ChunkPos chunkcoordintpair, boolean existingOnly) throws IOException {
+        // Folia end - concurrent regionfile cache
         long i = ChunkPos.asLong(chunkcoordintpair.getRegionX(), chunkcoordintpair.getRegionZ()); final long regionPos = i; // Paper - OBFHELPER
-        RegionFile regionfile = (RegionFile) this.regionCache.getAndMoveToFirst(i);
+        // Folia start - concurrent regionfile cache
+        final Long key = Long.valueOf(i);
+        RegionFile regionfile = this.regionCache.get(key);
 
         if (regionfile != null) {
-            // Paper start
-            if (lock) {
-                // must be in this synchronized block
-                regionfile.fileLock.lock();
+            this.cacheHits.increment();
+            if (!regionfile.cacheReferenced) {
+                regionfile.cacheReferenced = true;
             }
-            // Paper end
             return regionfile;
         } else {
             // Paper start - cache regionfile does not exist state
             if (existingOnly && !this.doesRegionFilePossiblyExist(regionPos)) {
+                this.cacheMisses.increment(); // Folia - concurrent regionfile cache
                 return null;
             }
             // Paper end - cache regionfile does not exist state
-            if (this.regionCache.size() >= io.papermc.paper.configuration.GlobalConfiguration.get().misc.regionFileCacheSize) { // Paper - configurable
-                ((RegionFile) this.regionCache.removeLast()).close();
+            this.evictToSize(io.papermc.paper.configuration.GlobalConfiguration.get().misc.regionFileCacheSize - 1); // Paper - configurable // Folia - concurrent regionfile cache
+
+            for (;;) { // Folia - regionfile compaction
+            final java.util.concurrent.CompletableFuture<Void> compaction; // Folia - regionfile compaction
+            synchronized (this.getOpenLock(i)) {
+            regionfile = this.regionCache.get(key);
+            if (regionfile != null) {
+                // opened by another thread while we were evicting
+                this.cacheHits.increment();
+                return regionfile;
             }
+            // Folia start - regionfile compaction
+            compaction = this.compactions.get(key);
+            if (compaction == null) {
+            // Folia end - regionfile compaction
+            this.cacheMisses.increment();
+            // Folia end - concurrent regionfile cache
 
             // Paper - only create directory if not existing only - moved down
             Path path = this.folder;
@@ -140,14 +336,21 @@ public class RegionFileStorage implements AutoCloseable {
             FileUtil.createDirectoriesSafe(this.folder); // Paper - only create directory if not existing only - moved from above
             RegionFile regionfile1 = new RegionFile(path1, this.folder, this.sync, this.isChunkData); // Paper - allow for chunk regionfiles to regen header
 
-            this.regionCache.putAndMoveToFirst(i, regionfile1);
-            // Paper start
-            if (lock) {
-                // must be in this synchronized block
-                regionfile1.fileLock.lock();
+            // Folia start - concurrent regionfile cache
+            this.filesOpened.increment();
+            regionfile1.cacheReferenced = true;
+            this.regionCache.put(key, regionfile1);
+            synchronized (this.clock) {
+                this.clock.addLast(key);
             }
-            // Paper end
             return regionfile1;
+            } // Folia - regionfile compaction
+            }
+            // Folia end - concurrent regionfile cache
+            // Folia start - regionfile compaction - wait without holding the stripe lock, then open the compacted file
+            compaction.join();
+            }
+            // Folia end - regionfile compaction
         }
     }
 
@@ -245,7 +448,7 @@ public class RegionFileStorage implements AutoCloseable {
         {
             try {
                 if (datainputstream != null) {
-                    nbttagcompound = NbtIo.read((DataInput) datainputstream);
+                    nbttagcompound = this.isChunkData && io.papermc.paper.chunk.system.io.StreamingChunkDecoder.isEnabled() ? io.papermc.paper.chunk.system.io.StreamingChunkDecoder.read(datainputstream) : NbtIo.read((DataInput) datainputstream); // Folia - streaming chunk decode
                     // Paper start - recover from corrupt regionfile header
                     if (this.isChunkData) {
                         ChunkPos chunkPos = ChunkSerializer.getChunkCoordinate(nbttagcompound);
@@ -295,11 +498,12 @@ public class RegionFileStorage implements AutoCloseable {
 
     public void scanChunk(ChunkPos chunkPos, StreamTagVisitor scanner) throws IOException {
         // CraftBukkit start - SPIGOT-5680: There's no good reason to preemptively create files on read, save that for writing
-        RegionFile regionfile = this.getRegionFile(chunkPos, true);
+        RegionFile regionfile = this.getRegionFile(chunkPos, true, true); // Folia - concurrent regionfile cache - lock, so that it is not closed while in use
         if (regionfile == null) {
             return;
         }
         // CraftBukkit end
+        try { // Folia - concurrent regionfile cache
         DataInputStream datainputstream = regionfile.getChunkDataInputStream(chunkPos);
 
         try {
@@ -322,6 +526,11 @@ public class RegionFileStorage implements AutoCloseable {
             datainputstream.close();
         }
 
+        // Folia start - concurrent regionfile cache
+        } finally {
+            regionfile.fileLock.unlock();
+        }
+        // Folia end - concurrent regionfile cache
     }
 
     protected void write(ChunkPos pos, @Nullable CompoundTag nbt) throws IOException {
@@ -379,30 +588,45 @@ public class RegionFileStorage implements AutoCloseable {
         } // Paper end
     }
 
-    public synchronized void close() throws IOException { // Paper -> synchronized
+    public void close() throws IOException { // Paper -> synchronized // Folia - concurrent regionfile cache
         ExceptionCollector<IOException> exceptionsuppressor = new ExceptionCollector<>();
-        ObjectIterator objectiterator = this.regionCache.values().iterator();
-
-        while (objectiterator.hasNext()) {
-            RegionFile regionfile = (RegionFile) objectiterator.next();
+        // Folia start - concurrent regionfile cache
+        synchronized (this.clock) {
+            this.clock.clear();
+        }
+        for (final Long key : this.regionCache.keySet()) {
+            synchronized (this.getOpenLock(key.longValue())) {
+                final RegionFile regionfile = this.regionCache.remove(key);
+                if (regionfile == null) {
+                    continue;
+                }
+                this.filesClosed.increment();
+        // Folia end - concurrent regionfile cache
 
             try {
                 regionfile.close();
             } catch (IOException ioexception) {
                 exceptionsuppressor.add(ioexception);
             }
+            } // Folia - concurrent regionfile cache
         }
 
         exceptionsuppressor.throwIfPresent();
     }
 
-    public synchronized void flush() throws IOException { // Paper - synchronize
-        ObjectIterator objectiterator = this.regionCache.values().iterator();
-
-        while (objectiterator.hasNext()) {
-            RegionFile regionfile = (RegionFile) objectiterator.next();
-
-            regionfile.flush();
+    public void flush() throws IOException { // Paper - synchronize // Folia - concurrent regionfile cache
+        for (final RegionFile regionfile : this.regionCache.values()) { // Folia - concurrent regionfile cache
+            // Folia start - concurrent regionfile cache - do not flush a file that is being evicted
+            regionfile.fileLock.lock();
+            try {
+                if (regionfile.isClosed()) {
+                    continue;
+                }
+                regionfile.flush();
+            } finally {
+                regionfile.fileLock.unlock();
+            }
+            // Folia end - concurrent regionfile cache
         }
 
     }
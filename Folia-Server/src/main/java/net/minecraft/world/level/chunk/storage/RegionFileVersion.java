@@ -31,21 +31,75 @@ public class RegionFileVersion {
         return stream;
     }));
 
+    // Folia start - lz4/zstd region compression
+    // same id and stream format as later vanilla versions use for lz4
+    public static final RegionFileVersion VERSION_LZ4 = register(new RegionFileVersion(4, (stream) -> {
+        return new FastBufferedInputStream(new net.jpountz.lz4.LZ4BlockInputStream(stream));
+    }, (stream) -> {
+        return new net.jpountz.lz4.LZ4BlockOutputStream(stream);
+    }));
+    // 53 and 54 are not used by vanilla or Paper, they are far above the ids vanilla assigns in sequence and must stay
+    // reserved: check them against every upstream update, chunks written with them are unreadable if an id is reassigned
+    public static final RegionFileVersion VERSION_ZSTD = register(new RegionFileVersion(53, (stream) -> {
+        return new FastBufferedInputStream(new com.github.luben.zstd.ZstdInputStream(stream));
+    }, (stream) -> {
+        return new BufferedOutputStream(new com.github.luben.zstd.ZstdOutputStream(stream, io.papermc.paper.chunk.system.io.ZstdDictionaryCache.COMPRESSION_LEVEL));
+    }));
+    // uses the dictionary stored beside the regionfile, see ZstdDictionaryCache
+    public static final RegionFileVersion VERSION_ZSTD_DICTIONARY = register(new RegionFileVersion(54, (stream, directory) -> {
+        final com.github.luben.zstd.ZstdInputStream ret = new com.github.luben.zstd.ZstdInputStream(stream);
+        ret.setDict(getZstdDictionary(directory).decompress());
+        return new FastBufferedInputStream(ret);
+    }, (stream, directory) -> {
+        final com.github.luben.zstd.ZstdOutputStream ret = new com.github.luben.zstd.ZstdOutputStream(stream, io.papermc.paper.chunk.system.io.ZstdDictionaryCache.COMPRESSION_LEVEL);
+        ret.setDict(getZstdDictionary(directory).compress());
+        return new BufferedOutputStream(ret);
+    }));
+
+    private static io.papermc.paper.chunk.system.io.ZstdDictionaryCache.Dictionary getZstdDictionary(@Nullable java.nio.file.Path directory) throws IOException {
+        final io.papermc.paper.chunk.system.io.ZstdDictionaryCache.Dictionary ret = io.papermc.paper.chunk.system.io.ZstdDictionaryCache.getDictionary(directory);
+        if (ret == null) {
+            throw new IOException("Missing " + io.papermc.paper.chunk.system.io.ZstdDictionaryCache.DICTIONARY_FILE + " in " + directory);
+        }
+        return ret;
+    }
+    // Folia end - lz4/zstd region compression
+
     // Paper Start - Configurable region compression format
     public static RegionFileVersion getCompressionFormat() {
         return switch (io.papermc.paper.configuration.GlobalConfiguration.get().unsupportedSettings.compressionFormat) {
             case GZIP -> VERSION_GZIP;
             case ZLIB -> VERSION_DEFLATE;
             case NONE -> VERSION_NONE;
+            // Folia start - lz4/zstd region compression
+            case LZ4 -> VERSION_LZ4;
+            case ZSTD -> VERSION_ZSTD;
+            // Folia end - lz4/zstd region compression
         };
     }
     // Paper End
 
+    // Folia start - lz4/zstd region compression
+    public static RegionFileVersion getCompressionFormat(@Nullable java.nio.file.Path directory) {
+        final RegionFileVersion ret = getCompressionFormat();
+        if (ret == VERSION_ZSTD && io.papermc.paper.chunk.system.io.ZstdDictionaryCache.getDictionary(directory) != null) {
+            return VERSION_ZSTD_DICTIONARY;
+        }
+        return ret;
+    }
+    // Folia end - lz4/zstd region compression
+
     private final int id;
-    private final RegionFileVersion.StreamWrapper<InputStream> inputWrapper;
-    private final RegionFileVersion.StreamWrapper<OutputStream> outputWrapper;
+    private final RegionFileVersion.DirectoryStreamWrapper<InputStream> inputWrapper; // Folia - lz4/zstd region compression
+    private final RegionFileVersion.DirectoryStreamWrapper<OutputStream> outputWrapper; // Folia - lz4/zstd region compression
 
     private RegionFileVersion(int id, RegionFileVersion.StreamWrapper<InputStream> inputStreamWrapper, RegionFileVersion.StreamWrapper<OutputStream> outputStreamWrapper) {
+        // Folia start - lz4/zstd region compression
+        this(id, (stream, directory) -> inputStreamWrapper.wrap(stream), (stream, directory) -> outputStreamWrapper.wrap(stream));
+    }
+
+    private RegionFileVersion(int id, RegionFileVersion.DirectoryStreamWrapper<InputStream> inputStreamWrapper, RegionFileVersion.DirectoryStreamWrapper<OutputStream> outputStreamWrapper) {
+        // Folia end - lz4/zstd region compression
         this.id = id;
         this.inputWrapper = inputStreamWrapper;
         this.outputWrapper = outputStreamWrapper;
@@ -70,15 +124,32 @@ public class RegionFileVersion {
     }
 
     public OutputStream wrap(OutputStream outputStream) throws IOException {
-        return this.outputWrapper.wrap(outputStream);
+        return this.wrap(outputStream, null); // Folia - lz4/zstd region compression
     }
 
     public InputStream wrap(InputStream inputStream) throws IOException {
-        return this.inputWrapper.wrap(inputStream);
+        return this.wrap(inputStream, null); // Folia - lz4/zstd region compression
     }
 
+    // Folia start - lz4/zstd region compression
+    public OutputStream wrap(OutputStream outputStream, @Nullable java.nio.file.Path directory) throws IOException {
+        return this.outputWrapper.wrap(outputStream, directory);
+    }
+
+    public InputStream wrap(InputStream inputStream, @Nullable java.nio.file.Path directory) throws IOException {
+        return this.inputWrapper.wrap(inputStream, directory);
+    }
+    // Folia end - lz4/zstd region compression
+
     @FunctionalInterface
     interface StreamWrapper<O> {
         O wrap(O object) throws IOException;
     }
+
+    // Folia start - lz4/zstd region compression
+    @FunctionalInterface
+    interface DirectoryStreamWrapper<O> {
+        O wrap(O object, @Nullable java.nio.file.Path directory) throws IOException;
+    }
+    // Folia end - lz4/zstd region compression
 }
@@ -1366,9 +1366,10 @@ public final class CraftServer implements Server {
         }
 
         // Paper start - fix and optimise world upgrading
-        if (this.console.options.has("forceUpgrade")) {
+        final io.papermc.paper.world.ThreadedWorldUpgrader.CompressionOptions compressionOptions = io.papermc.paper.world.ThreadedWorldUpgrader.CompressionOptions.fromOptions(this.console.options); // Folia - region recompression
+        if (this.console.options.has("forceUpgrade") || compressionOptions.any()) { // Folia - region recompression
             net.minecraft.server.Main.convertWorldButItWorks(
-                actualDimension,  worldSession, DataFixers.getDataFixer(), worlddimension.generator().getTypeNameForDataFixer(), this.console.options.has("eraseCache")
+                actualDimension,  worldSession, DataFixers.getDataFixer(), worlddimension.generator().getTypeNameForDataFixer(), this.console.options.has("eraseCache"), compressionOptions // Folia - region recompression
             );
         }
         // Paper end - fix and optimise world upgrading
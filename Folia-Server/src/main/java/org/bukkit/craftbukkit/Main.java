@@ -134,6 +134,12 @@ public class Main {
 
                 this.acceptsAll(Main.asList("forceUpgrade"), "Whether to force a world upgrade");
                 this.acceptsAll(Main.asList("eraseCache"), "Whether to force cache erase during world upgrade");
+                // Folia start - region recompression
+                this.acceptsAll(Main.asList("recompressRegionFiles"), "Whether to rewrite every chunk with the configured region compression format");
+                this.acceptsAll(Main.asList("trainZstdDictionary"), "Whether to train a zstd dictionary for each world before converting it");
+                this.acceptsAll(Main.asList("benchmarkRegionCompression"), "Whether to benchmark the region compression formats against each world's chunks");
+                // Folia end - region recompression
+                this.acceptsAll(Main.asList("compactRegionFiles"), "Whether to compact each world's regionfiles after converting them"); // Folia - regionfile compaction
                 this.acceptsAll(Main.asList("nogui"), "Disables the graphical console");
 
                 this.acceptsAll(Main.asList("nojline"), "Disables jline and emulates the vanilla console");
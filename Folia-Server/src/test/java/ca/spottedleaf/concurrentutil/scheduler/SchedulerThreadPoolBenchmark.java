@@ -0,0 +1,171 @@
+package ca.spottedleaf.concurrentutil.scheduler;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Measures the scheduling overhead of the {@link SchedulerThreadPool} scheduling modes with many small regions.
+ * <p>
+ * Each simulated region ticks every 50ms and busy-waits for a fixed amount of time, such that the total work
+ * occupies the configured fraction of the available tick thread time. The scheduler overhead is the CPU time of the
+ * scheduler threads not spent executing ticks. Results are only meaningful when there are at least as many cores
+ * available as scheduler threads.
+ * </p>
+ * <p>
+ * This is not a unit test, run it manually: {@code SchedulerThreadPoolBenchmark [threads] [seconds] [utilisation]}
+ * </p>
+ */
+public final class SchedulerThreadPoolBenchmark {
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+    private static final long TIME_BETWEEN_TICKS = TimeUnit.MILLISECONDS.toNanos(50L);
+    private static final int[] REGION_COUNTS = new int[] { 1_000, 5_000, 20_000 };
+
+    public static void main(final String[] args) throws Exception {
+        final int threads = args.length > 0 ? Integer.parseInt(args[0]) : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        final long seconds = args.length > 1 ? Long.parseLong(args[1]) : 15L;
+        final double utilisation = args.length > 2 ? Double.parseDouble(args[2]) : 0.6;
+
+        System.out.println("threads=" + threads + ", duration=" + seconds + "s, utilisation=" + utilisation);
+        for (final int regions : REGION_COUNTS) {
+            for (final SchedulerThreadPool.SchedulingMode mode : SchedulerThreadPool.SchedulingMode.values()) {
+                run(mode, threads, regions, TimeUnit.SECONDS.toNanos(seconds), utilisation);
+            }
+        }
+    }
+
+    private static void run(final SchedulerThreadPool.SchedulingMode mode, final int threads, final int regions,
+                            final long duration, final double utilisation) throws InterruptedException {
+        final AtomicInteger threadId = new AtomicInteger();
+        final SchedulerThreadPool pool = new SchedulerThreadPool(threads, (final Runnable run) -> {
+            final Thread ret = new Thread(run, "Benchmark Scheduler Thread #" + threadId.getAndIncrement());
+            ret.setDaemon(true);
+            return ret;
+        }, mode);
+
+        final long workPerTick = (long)((double)TIME_BETWEEN_TICKS * (double)threads * utilisation / (double)regions);
+        final long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100L);
+        final long end = start + duration;
+
+        final BenchmarkTick[] ticks = new BenchmarkTick[regions];
+        for (int i = 0; i < regions; ++i) {
+            // spread initial deadlines over one tick interval, like regions created over time would be
+            ticks[i] = new BenchmarkTick(start + (TIME_BETWEEN_TICKS * i) / regions, end, workPerTick);
+        }
+
+        pool.start();
+        final long[] cpuStart = getCpuTimes(pool);
+        for (final BenchmarkTick tick : ticks) {
+            pool.schedule(tick);
+        }
+
+        Thread.sleep(TimeUnit.NANOSECONDS.toMillis(end - System.nanoTime()) + 100L);
+
+        final long[] cpuEnd = getCpuTimes(pool);
+        pool.halt(true, TimeUnit.SECONDS.toNanos(5L));
+
+        long totalCpu = 0L;
+        for (int i = 0; i < cpuStart.length; ++i) {
+            totalCpu += cpuEnd[i] - cpuStart[i];
+        }
+
+        long executed = 0L;
+        long work = 0L;
+        int lateSamples = 0;
+        for (final BenchmarkTick tick : ticks) {
+            executed += tick.executed;
+            work += tick.workTime;
+            lateSamples += tick.lateSampleCount;
+        }
+        final long[] lateness = new long[lateSamples];
+        int idx = 0;
+        for (final BenchmarkTick tick : ticks) {
+            System.arraycopy(tick.lateSamples, 0, lateness, idx, tick.lateSampleCount);
+            idx += tick.lateSampleCount;
+        }
+        Arrays.sort(lateness);
+
+        final long expected = (duration / TIME_BETWEEN_TICKS) * regions;
+        final SchedulerThreadPool.SchedulerStats stats = pool.getStats();
+
+        System.out.printf(
+            "%-13s regions=%6d ticks=%6.2f%% overhead=%6.2f%% lateness(avg=%.3fms, p99=%.3fms, max=%.3fms) steals=%d migrations=%d%n",
+            mode, regions,
+            100.0 * (double)executed / (double)expected,
+            totalCpu <= 0L ? 0.0 : 100.0 * (double)(totalCpu - work) / (double)totalCpu,
+            lateness.length == 0 ? 0.0 : (double)Arrays.stream(lateness).sum() / (double)lateness.length / 1.0E6,
+            lateness.length == 0 ? 0.0 : (double)lateness[(int)(0.99 * (lateness.length - 1))] / 1.0E6,
+            lateness.length == 0 ? 0.0 : (double)lateness[lateness.length - 1] / 1.0E6,
+            stats.stolenTicks(), stats.migrations()
+        );
+    }
+
+    private static long[] getCpuTimes(final SchedulerThreadPool pool) {
+        final Thread[] threads = pool.getThreads();
+        final long[] ret = new long[threads.length];
+        for (int i = 0; i < threads.length; ++i) {
+            ret[i] = Math.max(0L, THREAD_MX_BEAN.getThreadCpuTime(threads[i].getId()));
+        }
+        return ret;
+    }
+
+    private static final class BenchmarkTick extends SchedulerThreadPool.SchedulableTick {
+
+        private static final int MAX_SAMPLES = 256;
+
+        private final long end;
+        private final long work;
+
+        private long executed;
+        private long workTime;
+        private final long[] lateSamples = new long[MAX_SAMPLES];
+        private int lateSampleCount;
+
+        private BenchmarkTick(final long firstStart, final long end, final long work) {
+            this.end = end;
+            this.work = work;
+            this.setScheduledStart(firstStart);
+        }
+
+        @Override
+        public boolean runTick() {
+            final long tickStart = System.nanoTime();
+            final long scheduled = this.getScheduledStart();
+            if (tickStart - this.end >= 0L) {
+                return false;
+            }
+
+            if (this.lateSampleCount < MAX_SAMPLES) {
+                this.lateSamples[this.lateSampleCount++] = Math.max(0L, tickStart - scheduled);
+            }
+
+            final long cpuStart = THREAD_MX_BEAN.getCurrentThreadCpuTime();
+            final long workEnd = tickStart + this.work;
+            while (System.nanoTime() - workEnd < 0L) {
+                Thread.onSpinWait();
+            }
+            final long tickEnd = System.nanoTime();
+
+            ++this.executed;
+            this.workTime += THREAD_MX_BEAN.getCurrentThreadCpuTime() - cpuStart;
+            this.setScheduledStart(Math.max(scheduled + TIME_BETWEEN_TICKS, tickEnd));
+            return true;
+        }
+
+        @Override
+        public boolean hasTasks() {
+            return false;
+        }
+
+        @Override
+        public Boolean runTasks(final BooleanSupplier canContinue) {
+            return Boolean.FALSE;
+        }
+    }
+
+    private SchedulerThreadPoolBenchmark() {}
+}
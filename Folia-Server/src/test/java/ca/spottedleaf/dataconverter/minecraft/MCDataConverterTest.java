@@ -0,0 +1,110 @@
+package ca.spottedleaf.dataconverter.minecraft;
+
+import ca.spottedleaf.dataconverter.converters.DataConverter;
+import ca.spottedleaf.dataconverter.minecraft.datatypes.MCDataType;
+import ca.spottedleaf.dataconverter.minecraft.datatypes.MCTypeRegistry;
+import ca.spottedleaf.dataconverter.types.MapType;
+import ca.spottedleaf.dataconverter.types.nbt.NBTMapType;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.minecraft.SharedConstants;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import org.bukkit.support.AbstractTestingBase;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that converting with the conversion plan gives the same result as converting every step between the
+ * breakpoints.
+ */
+public class MCDataConverterTest extends AbstractTestingBase {
+
+    @Test
+    public void testSameAsAllSteps() {
+        final int currentVersion = SharedConstants.getCurrentVersion().getDataVersion().getVersion();
+        // no dataconverter falls into (V23W33A, current], but the structure hooks still apply
+        final int[] versions = { MCVersions.V1_18_2, MCVersions.V1_19_2, MCVersions.V1_20_1, MCVersions.V23W33A, currentVersion - 1, currentVersion };
+
+        for (final int fromVersion : versions) {
+            final CompoundTag expected = convertAllSteps(MCTypeRegistry.CHUNK, createChunk(), fromVersion, currentVersion);
+            final CompoundTag actual = MCDataConverter.convertTag(MCTypeRegistry.CHUNK, createChunk(), fromVersion, currentVersion);
+            assertEquals(expected, actual, "converting from " + fromVersion);
+        }
+    }
+
+    @Test
+    public void testHooksApplyWithoutConverters() {
+        final int currentVersion = SharedConstants.getCurrentVersion().getDataVersion().getVersion();
+        final CompoundTag converted = MCDataConverter.convertTag(MCTypeRegistry.CHUNK, createChunk(), MCVersions.V23W33A, currentVersion);
+
+        final CompoundTag chest = converted.getList("block_entities", CompoundTag.TAG_COMPOUND).getCompound(0);
+        assertEquals("minecraft:chest", chest.getString("id"));
+        assertEquals("minecraft:stone", chest.getList("Items", CompoundTag.TAG_COMPOUND).getCompound(0).getString("id"));
+    }
+
+    // the conversion before the plan was introduced, split at the breakpoints only
+    private static CompoundTag convertAllSteps(final MCDataType type, final CompoundTag data, final int fromVersion, final int toVersion) {
+        final LongArrayList breakpoints = MCVersionRegistry.getBreakpoints();
+        MapType<String> ret = new NBTMapType(data);
+
+        long currentVersion = DataConverter.encodeVersions(fromVersion < 99 ? 99 : fromVersion, Integer.MAX_VALUE);
+        final long nextVersion = DataConverter.encodeVersions(toVersion, Integer.MAX_VALUE);
+
+        for (int i = 0, len = breakpoints.size(); i < len; ++i) {
+            final long breakpoint = breakpoints.getLong(i);
+
+            if (currentVersion >= breakpoint) {
+                continue;
+            }
+
+            final MapType<String> converted = type.convert(ret, currentVersion, Math.min(nextVersion, breakpoint - 1));
+            if (converted != null) {
+                ret = converted;
+            }
+
+            currentVersion = Math.min(nextVersion, breakpoint - 1);
+
+            if (currentVersion == nextVersion) {
+                break;
+            }
+        }
+
+        if (currentVersion != nextVersion) {
+            final MapType<String> converted = type.convert(ret, currentVersion, nextVersion);
+            if (converted != null) {
+                ret = converted;
+            }
+        }
+
+        return ((NBTMapType)ret).getTag();
+    }
+
+    // ids written without a namespace, as plugins sometimes do
+    private static CompoundTag createChunk() {
+        final CompoundTag item = new CompoundTag();
+        item.putString("id", "stone");
+        item.putByte("Count", (byte)1);
+        item.putByte("Slot", (byte)0);
+        final ListTag items = new ListTag();
+        items.add(item);
+
+        final CompoundTag chest = new CompoundTag();
+        chest.putString("id", "chest");
+        chest.putInt("x", 0);
+        chest.putInt("y", 64);
+        chest.putInt("z", 0);
+        chest.put("Items", items);
+        final ListTag blockEntities = new ListTag();
+        blockEntities.add(chest);
+
+        final CompoundTag ret = new CompoundTag();
+        ret.putInt("xPos", 0);
+        ret.putInt("yPos", -4);
+        ret.putInt("zPos", 0);
+        ret.putString("Status", "minecraft:full");
+        ret.put("sections", new ListTag());
+        ret.put("block_entities", blockEntities);
+        return ret;
+    }
+}
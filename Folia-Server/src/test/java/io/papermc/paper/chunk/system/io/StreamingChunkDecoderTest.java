@@ -0,0 +1,326 @@
+package io.papermc.paper.chunk.system.io;
+
+import com.mojang.serialization.Codec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import net.minecraft.core.Holder;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.IntTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.NbtOps;
+import net.minecraft.nbt.StringTag;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.biome.Biomes;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.StairBlock;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.block.state.properties.Half;
+import net.minecraft.world.level.chunk.PalettedContainer;
+import net.minecraft.world.level.chunk.storage.ChunkSerializer;
+import org.bukkit.support.AbstractTestingBase;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the streaming decoder reads the same chunk data as {@link NbtIo#read} and the codecs used by
+ * {@link ChunkSerializer}.
+ */
+public class StreamingChunkDecoderTest extends AbstractTestingBase {
+
+    private static final Codec<PalettedContainer<Holder<Biome>>> BIOME_CODEC = PalettedContainer.codecRW(
+        BIOMES.asHolderIdMap(), BIOMES.holderByNameCodec(), PalettedContainer.Strategy.SECTION_BIOMES, BIOMES.getHolderOrThrow(Biomes.PLAINS), null
+    );
+
+    @Test
+    public void testLossless() throws IOException {
+        final CompoundTag chunk = createChunk(new Random(1L));
+        final byte[] data = write(chunk);
+
+        final CompoundTag tree = NbtIo.read(new DataInputStream(new ByteArrayInputStream(data)));
+        final CompoundTag decoded = StreamingChunkDecoder.read(new DataInputStream(new ByteArrayInputStream(data)));
+
+        assertEquals(chunk, tree);
+        // compares the materialised section tags
+        assertEquals(tree, decoded);
+        assertEquals(tree, decoded.copy());
+        // writing the decoded tags must produce the same data again
+        assertEquals(tree, NbtIo.read(new DataInputStream(new ByteArrayInputStream(write(decoded)))));
+    }
+
+    @Test
+    public void testSectionsMatchCodec() throws IOException {
+        final CompoundTag chunk = createChunk(new Random(2L));
+        final byte[] data = write(chunk);
+
+        final CompoundTag tree = NbtIo.read(new DataInputStream(new ByteArrayInputStream(data)));
+        final CompoundTag decoded = StreamingChunkDecoder.read(new DataInputStream(new ByteArrayInputStream(data)));
+
+        final ListTag treeSections = tree.getList("sections", CompoundTag.TAG_COMPOUND);
+        final ListTag decodedSections = decoded.getList("sections", CompoundTag.TAG_COMPOUND);
+        assertEquals(treeSections.size(), decodedSections.size());
+
+        for (int i = 0; i < treeSections.size(); ++i) {
+            final CompoundTag treeSection = treeSections.getCompound(i);
+            final StreamingChunkDecoder.DecodedSection section = StreamingChunkDecoder.getDecoded(decodedSections.getCompound(i));
+            assertNotNull(section, "section " + i + " was not decoded");
+
+            assertEquals(treeSection.getByte("Y"), section.getByte("Y"));
+            assertArrayEquals(treeSection.contains("BlockLight", CompoundTag.TAG_BYTE_ARRAY) ? treeSection.getByteArray("BlockLight") : null, section.getBlockLight());
+            assertArrayEquals(treeSection.contains("SkyLight", CompoundTag.TAG_BYTE_ARRAY) ? treeSection.getByteArray("SkyLight") : null, section.getSkyLight());
+            assertEquals(treeSection.getInt("starlight.blocklight_state"), section.getInt("starlight.blocklight_state"));
+
+            assertSameStates(treeSection, section, new ArrayList<>());
+            assertSameBiomes(treeSection, section);
+        }
+
+        // reading the decoded data must not have built the tags of the sections
+        for (int i = 0; i < decodedSections.size(); ++i) {
+            assertNotNull(StreamingChunkDecoder.getDecoded(decodedSections.getCompound(i)), "section " + i + " was materialised");
+        }
+    }
+
+    @Test
+    public void testInvalidBlockStates() throws IOException {
+        final ListTag palette = new ListTag();
+        // invalid value and unknown property, both keep the default value
+        palette.add(createPaletteEntry("minecraft:oak_stairs", "facing", "sideways", "half", "top", "not_a_property", "x"));
+        // unknown block, is air
+        palette.add(createPaletteEntry("minecraft:not_a_block", "facing", "north"));
+        // no properties at all
+        palette.add(createPaletteEntry("minecraft:furnace"));
+
+        final CompoundTag chunk = new CompoundTag();
+        final ListTag sections = new ListTag();
+        for (int i = 0; i < palette.size(); ++i) {
+            final ListTag singlePalette = new ListTag();
+            singlePalette.add(palette.get(i).copy());
+            final CompoundTag blockStates = new CompoundTag();
+            blockStates.put("palette", singlePalette);
+
+            final CompoundTag section = new CompoundTag();
+            section.putByte("Y", (byte)i);
+            section.put("block_states", blockStates);
+            sections.add(section);
+        }
+        chunk.put("sections", sections);
+
+        final byte[] data = write(chunk);
+        final CompoundTag tree = NbtIo.read(new DataInputStream(new ByteArrayInputStream(data)));
+        final CompoundTag decoded = StreamingChunkDecoder.read(new DataInputStream(new ByteArrayInputStream(data)));
+
+        final List<String> errors = new ArrayList<>();
+        for (int i = 0; i < sections.size(); ++i) {
+            final StreamingChunkDecoder.DecodedSection section = StreamingChunkDecoder.getDecoded(decoded.getList("sections", CompoundTag.TAG_COMPOUND).getCompound(i));
+            assertNotNull(section);
+            assertSameStates(tree.getList("sections", CompoundTag.TAG_COMPOUND).getCompound(i), section, errors);
+        }
+
+        final BlockState stairs = StreamingChunkDecoder.getDecoded(decoded.getList("sections", CompoundTag.TAG_COMPOUND).getCompound(0))
+            .readBlockStates(null, errors::add).get(0);
+        assertSame(Blocks.OAK_STAIRS, stairs.getBlock());
+        assertSame(Half.TOP, stairs.getValue(StairBlock.HALF));
+        assertSame(Blocks.OAK_STAIRS.defaultBlockState().getValue(StairBlock.FACING), stairs.getValue(StairBlock.FACING));
+        assertTrue(errors.stream().anyMatch((final String error) -> error.contains("sideways")), "invalid property value was not reported: " + errors);
+        assertTrue(errors.stream().anyMatch((final String error) -> error.contains("not_a_property")), "unknown property was not reported: " + errors);
+        assertEquals(tree, decoded);
+    }
+
+    @Test
+    public void testUnresolvablePalettesFallBack() throws IOException {
+        final CompoundTag chunk = createChunk(new Random(4L));
+        final ListTag sections = chunk.getList("sections", CompoundTag.TAG_COMPOUND);
+
+        // the codec drops entries it cannot decode from the palette, so these must not be resolved by the decoder
+        sections.getCompound(1).getCompound("block_states").getList("palette", CompoundTag.TAG_COMPOUND).getCompound(0).putString("Name", "Not A Block");
+        sections.getCompound(2).getCompound("biomes").getList("palette", CompoundTag.TAG_STRING).set(0, StringTag.valueOf("minecraft:not_a_biome"));
+
+        final byte[] data = write(chunk);
+        final CompoundTag decoded = StreamingChunkDecoder.read(new DataInputStream(new ByteArrayInputStream(data)));
+        final ListTag decodedSections = decoded.getList("sections", CompoundTag.TAG_COMPOUND);
+
+        final StreamingChunkDecoder.DecodedSection invalidBlock = StreamingChunkDecoder.getDecoded(decodedSections.getCompound(1));
+        assertNotNull(invalidBlock);
+        assertNull(invalidBlock.readBlockStates(null, (final String error) -> {}));
+
+        final StreamingChunkDecoder.DecodedSection unknownBiome = StreamingChunkDecoder.getDecoded(decodedSections.getCompound(2));
+        assertNotNull(unknownBiome);
+        assertNull(unknownBiome.readBiomes(BIOMES, (final String error) -> {}));
+
+        assertEquals(NbtIo.read(new DataInputStream(new ByteArrayInputStream(data))), decoded);
+    }
+
+    @Test
+    public void testIrregularSections() throws IOException {
+        final CompoundTag chunk = createChunk(new Random(3L));
+        final ListTag sections = chunk.getList("sections", CompoundTag.TAG_COMPOUND);
+
+        // palette of the wrong type
+        final ListTag intPalette = new ListTag();
+        intPalette.add(IntTag.valueOf(1));
+        sections.getCompound(0).getCompound("block_states").put("palette", intPalette);
+        // data of the wrong type
+        sections.getCompound(1).getCompound("biomes").put("data", StringTag.valueOf("data"));
+        // empty palette
+        sections.getCompound(2).getCompound("block_states").put("palette", new ListTag());
+        // extra tags everywhere
+        sections.getCompound(3).putString("custom", "value");
+        sections.getCompound(3).getCompound("block_states").putInt("custom", 1);
+        sections.getCompound(3).getCompound("block_states").getList("palette", CompoundTag.TAG_COMPOUND).getCompound(0).putString("custom", "value");
+
+        final byte[] data = write(chunk);
+        final CompoundTag tree = NbtIo.read(new DataInputStream(new ByteArrayInputStream(data)));
+        final CompoundTag decoded = StreamingChunkDecoder.read(new DataInputStream(new ByteArrayInputStream(data)));
+        final ListTag decodedSections = decoded.getList("sections", CompoundTag.TAG_COMPOUND);
+
+        // irregular sections fall back to the codec
+        assertNull(StreamingChunkDecoder.getDecoded(decodedSections.getCompound(0)));
+        assertNull(StreamingChunkDecoder.getDecoded(decodedSections.getCompound(1)));
+        assertNull(StreamingChunkDecoder.getDecoded(decodedSections.getCompound(2)));
+        final StreamingChunkDecoder.DecodedSection extra = StreamingChunkDecoder.getDecoded(decodedSections.getCompound(3));
+        assertNotNull(extra);
+        assertSameStates(tree.getList("sections", CompoundTag.TAG_COMPOUND).getCompound(3), extra, new ArrayList<>());
+
+        assertEquals(tree, decoded);
+    }
+
+    private static void assertSameStates(final CompoundTag treeSection, final StreamingChunkDecoder.DecodedSection section, final List<String> errors) {
+        final PalettedContainer<BlockState> expected = ChunkSerializer.BLOCK_STATE_CODEC.parse(NbtOps.INSTANCE, treeSection.getCompound("block_states"))
+            .promotePartial((final String error) -> {}).getOrThrow(false, StreamingChunkDecoderTest::onError);
+        final PalettedContainer<BlockState> actual = section.readBlockStates(null, errors::add);
+        for (int i = 0; i < 16 * 16 * 16; ++i) {
+            assertSame(expected.get(i), actual.get(i), "block state " + i);
+        }
+    }
+
+    private static void assertSameBiomes(final CompoundTag treeSection, final StreamingChunkDecoder.DecodedSection section) {
+        final PalettedContainer<Holder<Biome>> expected = BIOME_CODEC.parse(NbtOps.INSTANCE, treeSection.getCompound("biomes"))
+            .promotePartial((final String error) -> {}).getOrThrow(false, StreamingChunkDecoderTest::onError);
+        final PalettedContainer<Holder<Biome>> actual = section.readBiomes(BIOMES, (final String error) -> {});
+        for (int i = 0; i < 4 * 4 * 4; ++i) {
+            assertSame(expected.get(i), actual.get(i), "biome " + i);
+        }
+    }
+
+    private static void onError(final String message) {
+        org.junit.jupiter.api.Assertions.fail(message);
+    }
+
+    private static byte[] write(final CompoundTag tag) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final DataOutputStream out = new DataOutputStream(bytes)) {
+            NbtIo.write(tag, out);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static CompoundTag createPaletteEntry(final String name, final String... properties) {
+        final CompoundTag ret = new CompoundTag();
+        ret.putString("Name", name);
+        if (properties.length != 0) {
+            final CompoundTag propertiesTag = new CompoundTag();
+            for (int i = 0; i < properties.length; i += 2) {
+                propertiesTag.putString(properties[i], properties[i + 1]);
+            }
+            ret.put("Properties", propertiesTag);
+        }
+        return ret;
+    }
+
+    // laid out like ChunkSerializer#write, the section contents are encoded by the same codecs
+    private static CompoundTag createChunk(final Random random) {
+        final List<BlockState> allStates = new ArrayList<>();
+        Block.BLOCK_STATE_REGISTRY.forEach(allStates::add);
+        final List<Holder<Biome>> allBiomes = new ArrayList<>();
+        BIOMES.holders().forEach(allBiomes::add);
+
+        final CompoundTag ret = new CompoundTag();
+        ret.putInt("DataVersion", 3578);
+        ret.putInt("xPos", 3);
+        ret.putInt("yPos", -4);
+        ret.putInt("zPos", -7);
+        ret.putLong("LastUpdate", 12345L);
+        ret.putLong("InhabitedTime", 678L);
+        ret.putString("Status", "minecraft:full");
+        ret.putBoolean("isLightOn", false);
+
+        final ListTag sections = new ListTag();
+        // palette sizes from single valued over linear and hashmap palettes to the global palette
+        final int[] paletteSizes = { 1, 2, 5, 16, 17, 200, 1, 300 };
+        for (int y = -4; y < -4 + paletteSizes.length; ++y) {
+            final int paletteSize = paletteSizes[y + 4];
+            final PalettedContainer<BlockState> states = new PalettedContainer<>(
+                Block.BLOCK_STATE_REGISTRY, Blocks.AIR.defaultBlockState(), PalettedContainer.Strategy.SECTION_STATES, null
+            );
+            final BlockState[] palette = new BlockState[paletteSize];
+            for (int i = 0; i < paletteSize; ++i) {
+                palette[i] = allStates.get(random.nextInt(allStates.size()));
+            }
+            for (int i = 0; i < 16 * 16 * 16; ++i) {
+                states.set(i & 15, (i >>> 8) & 15, (i >>> 4) & 15, palette[random.nextInt(paletteSize)]);
+            }
+
+            final PalettedContainer<Holder<Biome>> biomes = new PalettedContainer<>(
+                BIOMES.asHolderIdMap(), BIOMES.getHolderOrThrow(Biomes.PLAINS), PalettedContainer.Strategy.SECTION_BIOMES, null
+            );
+            final int biomeCount = 1 + random.nextInt(4);
+            for (int i = 0; i < 4 * 4 * 4; ++i) {
+                biomes.set(i & 3, (i >>> 4) & 3, (i >>> 2) & 3, allBiomes.get(random.nextInt(biomeCount)));
+            }
+
+            final CompoundTag section = new CompoundTag();
+            section.putByte("Y", (byte)y);
+            section.put("block_states", ChunkSerializer.BLOCK_STATE_CODEC.encodeStart(NbtOps.INSTANCE, states).getOrThrow(false, StreamingChunkDecoderTest::onError));
+            section.put("biomes", BIOME_CODEC.encodeStart(NbtOps.INSTANCE, biomes).getOrThrow(false, StreamingChunkDecoderTest::onError));
+            if (random.nextBoolean()) {
+                final byte[] light = new byte[2048];
+                random.nextBytes(light);
+                section.putByteArray("BlockLight", light);
+            }
+            final byte[] skyLight = new byte[2048];
+            random.nextBytes(skyLight);
+            section.putByteArray("SkyLight", skyLight);
+            section.putInt("starlight.blocklight_state", 2);
+            section.putInt("starlight.skylight_state", 2);
+            sections.add(section);
+        }
+        ret.put("sections", sections);
+
+        final CompoundTag heightmaps = new CompoundTag();
+        heightmaps.putLongArray("MOTION_BLOCKING", random.longs(37L).toArray());
+        heightmaps.putLongArray("WORLD_SURFACE", random.longs(37L).toArray());
+        ret.put("Heightmaps", heightmaps);
+
+        final ListTag blockEntities = new ListTag();
+        final CompoundTag chest = new CompoundTag();
+        chest.putString("id", "minecraft:chest");
+        chest.putInt("x", 50);
+        chest.putInt("y", 64);
+        chest.putInt("z", -110);
+        chest.put("Items", new ListTag());
+        blockEntities.add(chest);
+        ret.put("block_entities", blockEntities);
+
+        final CompoundTag structures = new CompoundTag();
+        structures.put("starts", new CompoundTag());
+        structures.put("References", new CompoundTag());
+        ret.put("structures", structures);
+        ret.put("block_ticks", new ListTag());
+        ret.put("fluid_ticks", new ListTag());
+        ret.put("PostProcessing", new ListTag());
+        return ret;
+    }
+}
@@ -0,0 +1,256 @@
+package io.papermc.paper.network;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.handler.codec.LengthFieldPrepender;
+import io.netty.incubator.channel.uring.IOUring;
+import io.netty.incubator.channel.uring.IOUringEventLoopGroup;
+import io.netty.incubator.channel.uring.IOUringServerSocketChannel;
+import io.netty.incubator.channel.uring.IOUringSocketChannel;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load test of the server side of the NIO, epoll and io_uring transports over loopback.
+ * <p>
+ * Each fake client sends a small timestamped packet every tick (50ms) and the server answers every packet with a larger one,
+ * roughly like a player receiving entity updates. Reported are the CPU time of the server event loop threads per second and
+ * the round trip latency percentiles. The clients always use the same transport as the server and run on their own event
+ * loops, which should be pinned to other cores than the server for meaningful results.
+ * </p>
+ * <p>
+ * This is not a unit test, run it manually: {@code NettyTransportBenchmark [clients] [seconds] [server threads]}
+ * </p>
+ */
+public final class NettyTransportBenchmark {
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+    private static final long TIME_BETWEEN_TICKS = TimeUnit.MILLISECONDS.toNanos(50L);
+    private static final int REQUEST_SIZE = 32;
+    private static final int RESPONSE_SIZE = 512;
+
+    public static void main(final String[] args) throws Exception {
+        final int clients = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        final long seconds = args.length > 1 ? Long.parseLong(args[1]) : 20L;
+        final int serverThreads = args.length > 2 ? Integer.parseInt(args[2]) : Math.max(1, Runtime.getRuntime().availableProcessors() / 4);
+
+        System.out.println("clients=" + clients + ", duration=" + seconds + "s, server threads=" + serverThreads);
+        for (final NettyTransport transport : new NettyTransport[] { NettyTransport.NIO, NettyTransport.EPOLL, NettyTransport.IO_URING }) {
+            if (transport == NettyTransport.EPOLL && !Epoll.isAvailable()) {
+                System.out.println(transport + ": not available");
+                continue;
+            }
+            if (transport == NettyTransport.IO_URING && !IOUring.isAvailable()) {
+                System.out.println(transport + ": not available");
+                continue;
+            }
+            run(transport, clients, TimeUnit.SECONDS.toNanos(seconds), serverThreads);
+        }
+    }
+
+    private static void run(final NettyTransport transport, final int clients, final long duration, final int serverThreads) throws Exception {
+        final List<Thread> serverThreadList = new CopyOnWriteArrayList<>();
+        final EventLoopGroup serverGroup = createGroup(transport, serverThreads, "Benchmark Server IO", serverThreadList);
+        final EventLoopGroup clientGroup = createGroup(transport, 0, "Benchmark Client IO", new CopyOnWriteArrayList<>());
+
+        try {
+            final Channel server = new ServerBootstrap()
+                .group(serverGroup)
+                .channel(getServerChannel(transport))
+                .childOption(ChannelOption.TCP_NODELAY, Boolean.TRUE)
+                .childHandler(new ChannelInitializer<>() {
+                    @Override
+                    protected void initChannel(final Channel channel) {
+                        channel.pipeline()
+                            .addLast(new LengthFieldBasedFrameDecoder(1 << 20, 0, 4, 0, 4))
+                            .addLast(new LengthFieldPrepender(4))
+                            .addLast(new ServerHandler());
+                    }
+                })
+                .bind(new InetSocketAddress("127.0.0.1", 0)).sync().channel();
+
+            final InetSocketAddress address = (InetSocketAddress)server.localAddress();
+            final List<ClientHandler> handlers = new ArrayList<>(clients);
+            final List<Channel> channels = new ArrayList<>(clients);
+            for (int i = 0; i < clients; ++i) {
+                final ClientHandler handler = new ClientHandler();
+                handlers.add(handler);
+                channels.add(new Bootstrap()
+                    .group(clientGroup)
+                    .channel(getClientChannel(transport))
+                    .option(ChannelOption.TCP_NODELAY, Boolean.TRUE)
+                    .handler(new ChannelInitializer<>() {
+                        @Override
+                        protected void initChannel(final Channel channel) {
+                            channel.pipeline()
+                                .addLast(new LengthFieldBasedFrameDecoder(1 << 20, 0, 4, 0, 4))
+                                .addLast(new LengthFieldPrepender(4))
+                                .addLast(handler);
+                        }
+                    })
+                    .connect(address).sync().channel());
+            }
+
+            // spread the sends of the clients over one tick, like players joining over time
+            final long start = System.nanoTime() + TimeUnit.SECONDS.toNanos(1L);
+            for (int i = 0; i < clients; ++i) {
+                final Channel channel = channels.get(i);
+                final long offset = (TIME_BETWEEN_TICKS * i) / clients;
+                channel.eventLoop().scheduleAtFixedRate(() -> {
+                    final ByteBuf request = channel.alloc().buffer(REQUEST_SIZE);
+                    request.writeLong(System.nanoTime());
+                    request.writeZero(REQUEST_SIZE - Long.BYTES);
+                    channel.writeAndFlush(request);
+                }, start - System.nanoTime() + offset, TIME_BETWEEN_TICKS, TimeUnit.NANOSECONDS);
+            }
+
+            // warmup, then measure
+            Thread.sleep(TimeUnit.NANOSECONDS.toMillis(start - System.nanoTime()) + TimeUnit.NANOSECONDS.toMillis(duration / 4L));
+            for (final ClientHandler handler : handlers) {
+                handler.reset();
+            }
+            final long cpuStart = getCpuTime(serverThreadList);
+            final long measureStart = System.nanoTime();
+            Thread.sleep(TimeUnit.NANOSECONDS.toMillis(duration));
+            final long cpuEnd = getCpuTime(serverThreadList);
+            final long measureEnd = System.nanoTime();
+
+            long received = 0L;
+            final List<long[]> allLatencies = new ArrayList<>(clients);
+            for (final ClientHandler handler : handlers) {
+                final long[] latencies = handler.getLatencies();
+                received += latencies.length;
+                allLatencies.add(latencies);
+            }
+            final long[] latencies = new long[(int)received];
+            int index = 0;
+            for (final long[] clientLatencies : allLatencies) {
+                System.arraycopy(clientLatencies, 0, latencies, index, clientLatencies.length);
+                index += clientLatencies.length;
+            }
+            Arrays.sort(latencies);
+
+            final double cpuPerSecond = (double)(cpuEnd - cpuStart) / (double)(measureEnd - measureStart);
+            System.out.println(transport + ": server cpu=" + String.format("%.1f", cpuPerSecond * 100.0) + "%, responses="
+                + received + ", p50=" + formatLatency(latencies, 0.50) + ", p99=" + formatLatency(latencies, 0.99)
+                + ", p99.9=" + formatLatency(latencies, 0.999) + ", max=" + formatLatency(latencies, 1.0));
+
+            for (final Channel channel : channels) {
+                channel.close();
+            }
+            server.close().sync();
+        } finally {
+            clientGroup.shutdownGracefully(0L, 1L, TimeUnit.SECONDS).sync();
+            serverGroup.shutdownGracefully(0L, 1L, TimeUnit.SECONDS).sync();
+        }
+    }
+
+    private static String formatLatency(final long[] sorted, final double percentile) {
+        if (sorted.length == 0) {
+            return "n/a";
+        }
+        final long latency = sorted[Math.min(sorted.length - 1, (int)(percentile * (double)sorted.length))];
+        return String.format("%.3fms", (double)latency / 1.0E6);
+    }
+
+    private static long getCpuTime(final List<Thread> threads) {
+        long ret = 0L;
+        for (final Thread thread : threads) {
+            ret += Math.max(0L, THREAD_MX_BEAN.getThreadCpuTime(thread.getId()));
+        }
+        return ret;
+    }
+
+    private static EventLoopGroup createGroup(final NettyTransport transport, final int threads, final String name, final List<Thread> created) {
+        final AtomicInteger threadId = new AtomicInteger();
+        final ThreadFactory threadFactory = (final Runnable run) -> {
+            final Thread ret = new Thread(run, name + " #" + threadId.getAndIncrement());
+            ret.setDaemon(true);
+            created.add(ret);
+            return ret;
+        };
+        return switch (transport) {
+            case IO_URING -> new IOUringEventLoopGroup(threads, threadFactory);
+            case EPOLL -> new EpollEventLoopGroup(threads, threadFactory);
+            default -> new NioEventLoopGroup(threads, threadFactory);
+        };
+    }
+
+    private static Class<? extends ServerChannel> getServerChannel(final NettyTransport transport) {
+        return switch (transport) {
+            case IO_URING -> IOUringServerSocketChannel.class;
+            case EPOLL -> EpollServerSocketChannel.class;
+            default -> NioServerSocketChannel.class;
+        };
+    }
+
+    private static Class<? extends Channel> getClientChannel(final NettyTransport transport) {
+        return switch (transport) {
+            case IO_URING -> IOUringSocketChannel.class;
+            case EPOLL -> EpollSocketChannel.class;
+            default -> NioSocketChannel.class;
+        };
+    }
+
+    private static final class ServerHandler extends SimpleChannelInboundHandler<ByteBuf> {
+
+        @Override
+        protected void channelRead0(final ChannelHandlerContext ctx, final ByteBuf request) {
+            final ByteBuf response = ctx.alloc().buffer(RESPONSE_SIZE);
+            response.writeLong(request.readLong());
+            response.writeZero(RESPONSE_SIZE - Long.BYTES);
+            ctx.writeAndFlush(response);
+        }
+    }
+
+    @io.netty.channel.ChannelHandler.Sharable
+    private static final class ClientHandler extends SimpleChannelInboundHandler<ByteBuf> {
+
+        // read by the benchmark while the client is running
+        private long[] latencies = new long[64];
+        private int count;
+
+        @Override
+        protected void channelRead0(final ChannelHandlerContext ctx, final ByteBuf response) {
+            final long latency = System.nanoTime() - response.readLong();
+            synchronized (this) {
+                if (this.count == this.latencies.length) {
+                    this.latencies = Arrays.copyOf(this.latencies, this.count * 2);
+                }
+                this.latencies[this.count++] = latency;
+            }
+        }
+
+        public synchronized void reset() {
+            this.count = 0;
+        }
+
+        public synchronized long[] getLatencies() {
+            return Arrays.copyOf(this.latencies, this.count);
+        }
+    }
+}
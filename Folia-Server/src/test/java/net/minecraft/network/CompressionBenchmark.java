@@ -0,0 +1,148 @@
+package net.minecraft.network;
+
+import com.velocitypowered.natives.compression.JavaVelocityCompressor;
+import com.velocitypowered.natives.compression.VelocityCompressor;
+import com.velocitypowered.natives.util.Natives;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Measures the throughput of {@link CompressionEncoder} and {@link CompressionDecoder} with the JDK fallback, the Java
+ * compressor from velocity-native and the native libdeflate compressor (if it is available on this platform).
+ * <p>
+ * The packets are read from a capture file holding the uncompressed packets as they are passed to the
+ * {@link CompressionEncoder}, each prefixed by its length as a VarInt. Without a capture file, packets roughly shaped like
+ * chunk data and entity updates are generated.
+ * </p>
+ * <p>
+ * This is not a unit test, run it manually: {@code CompressionBenchmark [capture file] [seconds] [threshold] [level]}
+ * </p>
+ */
+public final class CompressionBenchmark {
+
+    public static void main(final String[] args) throws Exception {
+        final List<byte[]> packets = args.length > 0 && !args[0].equals("-") ? readCapture(Path.of(args[0])) : generatePackets(new Random(0L));
+        final long seconds = args.length > 1 ? Long.parseLong(args[1]) : 10L;
+        final int threshold = args.length > 2 ? Integer.parseInt(args[2]) : 256;
+        final int level = args.length > 3 ? Integer.parseInt(args[3]) : 6;
+
+        long totalBytes = 0L;
+        for (final byte[] packet : packets) {
+            totalBytes += packet.length;
+        }
+        System.out.println("packets=" + packets.size() + ", bytes=" + totalBytes + ", duration=" + seconds + "s, threshold="
+            + threshold + ", level=" + level + ", native variant=" + Natives.compress.getLoadedVariant());
+
+        run("jdk", () -> null, packets, totalBytes, TimeUnit.SECONDS.toNanos(seconds), threshold);
+        run("velocity-java", () -> JavaVelocityCompressor.FACTORY.create(level), packets, totalBytes, TimeUnit.SECONDS.toNanos(seconds), threshold);
+        if (Natives.compress.get() != JavaVelocityCompressor.FACTORY) {
+            run("native", () -> Natives.compress.get().create(level), packets, totalBytes, TimeUnit.SECONDS.toNanos(seconds), threshold);
+        }
+    }
+
+    private static void run(final String name, final Supplier<VelocityCompressor> compressors, final List<byte[]> packets,
+                            final long totalBytes, final long duration, final int threshold) {
+        final EmbeddedChannel encodeChannel = new EmbeddedChannel(new CompressionEncoder(compressors.get(), threshold));
+        final EmbeddedChannel decodeChannel = new EmbeddedChannel(new CompressionDecoder(compressors.get(), threshold, true));
+
+        // the compressed packets are also the input of the decoder
+        final List<byte[]> compressed = new ArrayList<>(packets.size());
+        long compressedBytes = 0L;
+        for (final byte[] packet : packets) {
+            final ByteBuf out = encode(encodeChannel, packet);
+            final byte[] bytes = new byte[out.readableBytes()];
+            out.readBytes(bytes);
+            out.release();
+            compressed.add(bytes);
+            compressedBytes += bytes.length;
+        }
+
+        final long encodeTime = measure(duration, packets, (final byte[] packet) -> encode(encodeChannel, packet).release());
+        final long decodeTime = measure(duration, compressed, (final byte[] packet) -> decode(decodeChannel, packet).release());
+
+        encodeChannel.finishAndReleaseAll();
+        decodeChannel.finishAndReleaseAll();
+
+        System.out.println(name + ": ratio=" + String.format("%.3f", (double)compressedBytes / (double)totalBytes)
+            + ", encode=" + String.format("%.1f", getThroughput(totalBytes, encodeTime)) + "MiB/s"
+            + ", decode=" + String.format("%.1f", getThroughput(totalBytes, decodeTime)) + "MiB/s");
+    }
+
+    // returns the time per pass over all packets
+    private static long measure(final long duration, final List<byte[]> packets, final Consumer<byte[]> action) {
+        // warmup
+        final long warmupEnd = System.nanoTime() + duration / 4L;
+        while (System.nanoTime() < warmupEnd) {
+            for (final byte[] packet : packets) {
+                action.accept(packet);
+            }
+        }
+
+        final long start = System.nanoTime();
+        final long end = start + duration;
+        long passes = 0L;
+        long now;
+        do {
+            for (final byte[] packet : packets) {
+                action.accept(packet);
+            }
+            ++passes;
+        } while ((now = System.nanoTime()) < end);
+
+        return (now - start) / passes;
+    }
+
+    private static double getThroughput(final long bytes, final long time) {
+        return ((double)bytes / (1024.0 * 1024.0)) / ((double)time / 1.0E9);
+    }
+
+    private static ByteBuf encode(final EmbeddedChannel channel, final byte[] packet) {
+        channel.writeOutbound(channel.alloc().directBuffer(packet.length).writeBytes(packet));
+        return channel.readOutbound();
+    }
+
+    private static ByteBuf decode(final EmbeddedChannel channel, final byte[] packet) {
+        channel.writeInbound(channel.alloc().directBuffer(packet.length).writeBytes(packet));
+        return channel.readInbound();
+    }
+
+    private static List<byte[]> readCapture(final Path file) throws IOException {
+        final ByteBuf capture = Unpooled.wrappedBuffer(Files.readAllBytes(file));
+        final List<byte[]> ret = new ArrayList<>();
+        while (capture.isReadable()) {
+            final byte[] packet = new byte[VarInt.read(capture)];
+            capture.readBytes(packet);
+            ret.add(packet);
+        }
+        return ret;
+    }
+
+    private static List<byte[]> generatePackets(final Random random) {
+        final List<byte[]> ret = new ArrayList<>();
+        for (int i = 0; i < 200; ++i) {
+            // chunk data: palette indices with few distinct values, bit packed into longs
+            final byte[] chunk = new byte[16_384 + random.nextInt(65_536)];
+            for (int k = 0; k < chunk.length; ++k) {
+                chunk[k] = (byte)(random.nextInt(8) == 0 ? random.nextInt(256) : (k & 7) * 17);
+            }
+            ret.add(chunk);
+            for (int j = 0; j < 20; ++j) {
+                // entity movement and metadata: short packets, mostly below the threshold
+                final byte[] update = new byte[8 + random.nextInt(512)];
+                random.nextBytes(update);
+                ret.add(update);
+            }
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,123 @@
+package net.minecraft.world.level.chunk.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.world.level.ChunkPos;
+import org.bukkit.support.AbstractTestingBase;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RegionFileTest extends AbstractTestingBase {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testPendingWrites() throws IOException {
+        final Path file = this.directory.resolve("r.0.0.mca");
+        final ChunkPos pos = new ChunkPos(3, 5);
+        final ChunkPos other = new ChunkPos(4, 5);
+
+        try (final RegionFile regionFile = new RegionFile(file, this.directory, false)) {
+            // pending writes are read back before they are committed
+            assertTrue(regionFile.deferWrite(pos, createChunkData(createChunk(1)), null));
+            assertTrue(regionFile.doesChunkExist(pos));
+            assertEquals(createChunk(1), read(regionFile, pos));
+
+            regionFile.commitPendingWrites();
+            assertEquals(createChunk(1), read(regionFile, pos));
+
+            // a newer write discards the pending one
+            assertTrue(regionFile.deferWrite(pos, createChunkData(createChunk(2)), null));
+            assertEquals(createChunk(2), read(regionFile, pos));
+            regionFile.write(pos, createChunkData(createChunk(3)));
+            assertEquals(createChunk(3), read(regionFile, pos));
+            regionFile.commitPendingWrites();
+            assertEquals(createChunk(3), read(regionFile, pos));
+
+            // clearing the chunk discards the pending write
+            assertTrue(regionFile.deferWrite(other, createChunkData(createChunk(4)), null));
+            regionFile.clear(other);
+            assertFalse(regionFile.doesChunkExist(other));
+            regionFile.commitPendingWrites();
+            assertNull(read(regionFile, other));
+
+            // writes still pending on close are committed
+            assertTrue(regionFile.deferWrite(other, createChunkData(createChunk(5)), null));
+        }
+
+        try (final RegionFile regionFile = new RegionFile(file, this.directory, false)) {
+            assertEquals(createChunk(3), read(regionFile, pos));
+            assertEquals(createChunk(5), read(regionFile, other));
+        }
+    }
+
+    @Test
+    public void testCompaction() throws IOException {
+        final RegionFileStorage storage = new RegionFileStorage(this.directory, false);
+        final Path file = this.directory.resolve("r.0.0.mca");
+        try {
+            for (int i = 0; i < 64; ++i) {
+                storage.write(new ChunkPos(i & 31, i >>> 5), createChunk(i));
+            }
+            // grown chunks move to the end of the file, removed chunks leave free sectors behind
+            for (int i = 0; i < 64; i += 4) {
+                storage.write(new ChunkPos(i & 31, i >>> 5), createChunk(i + 64));
+                storage.write(new ChunkPos((i + 1) & 31, (i + 1) >>> 5), null);
+            }
+
+            final RegionFile.CompactionResult result = storage.compactRegionFile(0, 0);
+            assertEquals(48, result.chunks());
+            assertTrue(result.sizeAfter() < result.sizeBefore(), "regionfile did not shrink: " + result);
+            assertEquals(result.sizeAfter(), Files.size(file));
+
+            // the compacted file is opened on the next access
+            for (int i = 0; i < 64; ++i) {
+                final CompoundTag expected = (i & 3) == 1 ? null : createChunk((i & 3) == 0 ? i + 64 : i);
+                assertEquals(expected, storage.read(new ChunkPos(i & 31, i >>> 5)), "chunk " + i);
+            }
+        } finally {
+            storage.close();
+        }
+    }
+
+    static CompoundTag createChunk(final int value) {
+        final CompoundTag ret = new CompoundTag();
+        ret.putInt("value", value);
+        // incompressible, so that the size in the file grows with the value
+        ret.putLongArray("data", new Random(value).longs(value * 37L).toArray());
+        return ret;
+    }
+
+    // laid out like the data written by RegionFile.ChunkBuffer
+    static ByteBuffer createChunkData(final CompoundTag chunk) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0);
+            out.writeByte(RegionFileVersion.VERSION_NONE.getId());
+            NbtIo.write(chunk, out);
+        }
+        final ByteBuffer ret = ByteBuffer.wrap(bytes.toByteArray());
+        ret.putInt(0, ret.remaining() - 4);
+        return ret;
+    }
+
+    static CompoundTag read(final RegionFile regionFile, final ChunkPos pos) throws IOException {
+        try (final DataInputStream in = regionFile.getChunkDataInputStream(pos)) {
+            return in == null ? null : NbtIo.read(in);
+        }
+    }
+}